@@ -0,0 +1,535 @@
+package in.openalgo;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
+/**
+ * Shared polling of positionbook(), holdings() and funds() with change events.
+ *
+ * One background thread polls the three endpoints on a fixed delay and decodes the
+ * responses into typed records keyed by instrument. Each poll is compared with the previous
+ * one and listeners receive only added, updated and removed records, so any number of
+ * strategies can share a single poll. A record whose quantity or average price changed is
+ * UPDATED; one where only the price and P&amp;L moved is reported as PRICE, so fill handlers
+ * can skip it. The latest state is readable at any time through immutable maps. A listener
+ * that throws is counted and does not keep the others from being notified.
+ *
+ * Example usage:
+ * <pre>
+ * AccountStateService account = new AccountStateService(client, 1000);
+ * account.addListener(new AccountStateService.AccountListener() {
+ *     public void onPositionChange(AccountStateService.Change&lt;AccountStateService.Position&gt; change) {
+ *         System.out.println(change);
+ *     }
+ * });
+ * account.start();
+ * AccountStateService.Funds funds = account.getFunds();
+ * </pre>
+ */
+public class AccountStateService implements AutoCloseable {
+
+    /**
+     * Kind of change.
+     */
+    public enum ChangeType {
+        ADDED,
+        /** Quantity or average price changed */
+        UPDATED,
+        /** Only the price and P&amp;L changed */
+        PRICE,
+        REMOVED
+    }
+
+    /**
+     * One changed record.
+     *
+     * @param <T> Record type
+     */
+    public static final class Change<T> {
+        private final ChangeType type;
+        private final String key;
+        private final T previous;
+        private final T current;
+
+        Change(ChangeType type, String key, T previous, T current) {
+            this.type = type;
+            this.key = key;
+            this.previous = previous;
+            this.current = current;
+        }
+
+        public ChangeType getType() {
+            return type;
+        }
+
+        /** @return Record key, e.g. NFO:NIFTY30DEC2526000CE:NRML */
+        public String getKey() {
+            return key;
+        }
+
+        /** @return Record before the change, null when added */
+        public T getPrevious() {
+            return previous;
+        }
+
+        /** @return Record after the change, null when removed */
+        public T getCurrent() {
+            return current;
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + key + " " + (current != null ? current : previous);
+        }
+    }
+
+    /**
+     * Receives account changes on the polling thread. All methods are optional.
+     */
+    public interface AccountListener {
+        default void onPositionChange(Change<Position> change) {
+        }
+
+        default void onHoldingChange(Change<Holding> change) {
+        }
+
+        default void onFundsChange(Funds previous, Funds current) {
+        }
+
+        /**
+         * Called when an endpoint returned an error; the previous state is kept.
+         *
+         * @param endpoint positionbook, holdings or funds
+         * @param response Error response
+         */
+        default void onError(String endpoint, JsonObject response) {
+        }
+    }
+
+    /**
+     * Position record from positionbook(), keyed by exchange, symbol and product.
+     */
+    public static final class Position {
+        private final String symbol;
+        private final String exchange;
+        private final String product;
+        private final long quantity;
+        private final double averagePrice;
+        private final double ltp;
+        private final double pnl;
+
+        Position(JsonObject row) {
+            symbol = JsonFields.text(row, "symbol");
+            exchange = JsonFields.text(row, "exchange");
+            product = JsonFields.text(row, "product");
+            quantity = (long) JsonFields.number(row, "quantity");
+            averagePrice = JsonFields.number(row, "average_price");
+            ltp = JsonFields.number(row, "ltp");
+            pnl = JsonFields.number(row, "pnl");
+        }
+
+        String key() {
+            return exchange + ":" + symbol + (product != null ? ":" + product : "");
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        public String getExchange() {
+            return exchange;
+        }
+
+        public String getProduct() {
+            return product;
+        }
+
+        public long getQuantity() {
+            return quantity;
+        }
+
+        public double getAveragePrice() {
+            return averagePrice;
+        }
+
+        public double getLtp() {
+            return ltp;
+        }
+
+        public double getPnl() {
+            return pnl;
+        }
+
+        // Same holding apart from the price and P&L
+        boolean sameBook(Position p) {
+            return quantity == p.quantity && Double.compare(averagePrice, p.averagePrice) == 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Position)) {
+                return false;
+            }
+            Position p = (Position) o;
+            return quantity == p.quantity && Double.compare(averagePrice, p.averagePrice) == 0
+                    && Double.compare(ltp, p.ltp) == 0 && Double.compare(pnl, p.pnl) == 0
+                    && Objects.equals(symbol, p.symbol) && Objects.equals(exchange, p.exchange)
+                    && Objects.equals(product, p.product);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(symbol, exchange, product, quantity, averagePrice, ltp, pnl);
+        }
+
+        @Override
+        public String toString() {
+            return "Position{" + symbol + " " + exchange + " " + product + " qty=" + quantity
+                    + " avg=" + averagePrice + " ltp=" + ltp + " pnl=" + pnl + "}";
+        }
+    }
+
+    /**
+     * Holding record from holdings(), keyed by exchange and symbol.
+     */
+    public static final class Holding {
+        private final String symbol;
+        private final String exchange;
+        private final String product;
+        private final long quantity;
+        private final double pnl;
+        private final double pnlPercent;
+
+        Holding(JsonObject row) {
+            symbol = JsonFields.text(row, "symbol");
+            exchange = JsonFields.text(row, "exchange");
+            product = JsonFields.text(row, "product");
+            quantity = (long) JsonFields.number(row, "quantity");
+            pnl = JsonFields.number(row, "pnl");
+            pnlPercent = JsonFields.number(row, "pnlpercent");
+        }
+
+        String key() {
+            return exchange + ":" + symbol;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        public String getExchange() {
+            return exchange;
+        }
+
+        public String getProduct() {
+            return product;
+        }
+
+        public long getQuantity() {
+            return quantity;
+        }
+
+        public double getPnl() {
+            return pnl;
+        }
+
+        public double getPnlPercent() {
+            return pnlPercent;
+        }
+
+        // Same holding apart from the price and P&L
+        boolean sameBook(Holding h) {
+            return quantity == h.quantity;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Holding)) {
+                return false;
+            }
+            Holding h = (Holding) o;
+            return quantity == h.quantity && Double.compare(pnl, h.pnl) == 0
+                    && Double.compare(pnlPercent, h.pnlPercent) == 0 && Objects.equals(symbol, h.symbol)
+                    && Objects.equals(exchange, h.exchange) && Objects.equals(product, h.product);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(symbol, exchange, product, quantity, pnl, pnlPercent);
+        }
+
+        @Override
+        public String toString() {
+            return "Holding{" + symbol + " " + exchange + " qty=" + quantity + " pnl=" + pnl + "}";
+        }
+    }
+
+    /**
+     * Funds record from funds().
+     */
+    public static final class Funds {
+        private final double availableCash;
+        private final double collateral;
+        private final double m2mRealized;
+        private final double m2mUnrealized;
+        private final double utilisedDebits;
+
+        Funds(JsonObject data) {
+            availableCash = JsonFields.number(data, "availablecash");
+            collateral = JsonFields.number(data, "collateral");
+            m2mRealized = JsonFields.number(data, "m2mrealized");
+            m2mUnrealized = JsonFields.number(data, "m2munrealized");
+            utilisedDebits = JsonFields.number(data, "utiliseddebits");
+        }
+
+        public double getAvailableCash() {
+            return availableCash;
+        }
+
+        public double getCollateral() {
+            return collateral;
+        }
+
+        public double getM2mRealized() {
+            return m2mRealized;
+        }
+
+        public double getM2mUnrealized() {
+            return m2mUnrealized;
+        }
+
+        public double getUtilisedDebits() {
+            return utilisedDebits;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Funds)) {
+                return false;
+            }
+            Funds f = (Funds) o;
+            return Double.compare(availableCash, f.availableCash) == 0 && Double.compare(collateral, f.collateral) == 0
+                    && Double.compare(m2mRealized, f.m2mRealized) == 0
+                    && Double.compare(m2mUnrealized, f.m2mUnrealized) == 0
+                    && Double.compare(utilisedDebits, f.utilisedDebits) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(availableCash, collateral, m2mRealized, m2mUnrealized, utilisedDebits);
+        }
+
+        @Override
+        public String toString() {
+            return "Funds{cash=" + availableCash + " collateral=" + collateral + " realized=" + m2mRealized
+                    + " unrealized=" + m2mUnrealized + " debits=" + utilisedDebits + "}";
+        }
+    }
+
+    private final AccountApi api;
+    private final long intervalMillis;
+    private final CopyOnWriteArrayList<AccountListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile long listenerErrors;
+
+    private volatile Map<String, Position> positions = Collections.emptyMap();
+    private volatile Map<String, Holding> holdings = Collections.emptyMap();
+    private volatile Funds funds;
+    private ScheduledExecutorService timer;
+
+    /**
+     * Creates a service.
+     *
+     * @param api            Client used for the account calls
+     * @param intervalMillis Delay between the end of one poll and the start of the next
+     */
+    public AccountStateService(AccountApi api, long intervalMillis) {
+        this.api = api;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Adds a listener.
+     *
+     * @param listener Listener called on the polling thread
+     */
+    public void addListener(AccountListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener Listener to remove
+     */
+    public void removeListener(AccountListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Starts polling on a background thread.
+     */
+    public synchronized void start() {
+        if (timer != null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "openalgo-account-poller");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                // Keep polling; the next cycle may succeed
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling.
+     */
+    @Override
+    public synchronized void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+    }
+
+    /**
+     * Polls all three endpoints once and publishes the changes.
+     */
+    public synchronized void poll() {
+        pollPositions();
+        pollHoldings();
+        pollFunds();
+    }
+
+    /** @return Latest positions keyed by EXCHANGE:SYMBOL:PRODUCT */
+    public Map<String, Position> getPositions() {
+        return positions;
+    }
+
+    /** @return Latest holdings keyed by EXCHANGE:SYMBOL */
+    public Map<String, Holding> getHoldings() {
+        return holdings;
+    }
+
+    /** @return Latest funds, or null before the first successful poll */
+    public Funds getFunds() {
+        return funds;
+    }
+
+    /** @return Exceptions thrown by listeners */
+    public long getListenerErrors() {
+        return listenerErrors;
+    }
+
+    private void pollPositions() {
+        JsonObject response = api.positionbook();
+        JsonArray rows = success(response) && response.get("data").isJsonArray()
+                ? response.getAsJsonArray("data") : null;
+        if (rows == null) {
+            error("positionbook", response);
+            return;
+        }
+        Map<String, Position> next = new LinkedHashMap<>();
+        for (JsonElement row : rows) {
+            Position position = new Position(row.getAsJsonObject());
+            next.put(position.key(), position);
+        }
+        Map<String, Position> previous = positions;
+        positions = Collections.unmodifiableMap(next);
+        diff(previous, next, Position::sameBook, change -> notify(listener -> listener.onPositionChange(change)));
+    }
+
+    private void pollHoldings() {
+        JsonObject response = api.holdings();
+        JsonArray rows = null;
+        if (success(response)) {
+            JsonElement data = response.get("data");
+            if (data.isJsonObject() && data.getAsJsonObject().has("holdings")) {
+                rows = data.getAsJsonObject().getAsJsonArray("holdings");
+            } else if (data.isJsonArray()) {
+                rows = data.getAsJsonArray();
+            }
+        }
+        if (rows == null) {
+            error("holdings", response);
+            return;
+        }
+        Map<String, Holding> next = new LinkedHashMap<>();
+        for (JsonElement row : rows) {
+            Holding holding = new Holding(row.getAsJsonObject());
+            next.put(holding.key(), holding);
+        }
+        Map<String, Holding> previous = holdings;
+        holdings = Collections.unmodifiableMap(next);
+        diff(previous, next, Holding::sameBook, change -> notify(listener -> listener.onHoldingChange(change)));
+    }
+
+    private void pollFunds() {
+        JsonObject response = api.funds();
+        if (!success(response) || !response.get("data").isJsonObject()) {
+            error("funds", response);
+            return;
+        }
+        Funds next = new Funds(response.getAsJsonObject("data"));
+        Funds previous = funds;
+        funds = next;
+        if (!next.equals(previous)) {
+            notify(listener -> listener.onFundsChange(previous, next));
+        }
+    }
+
+    private static <T> void diff(Map<String, T> previous, Map<String, T> next,
+                                 BiPredicate<T, T> sameBook, Consumer<Change<T>> sink) {
+        for (Map.Entry<String, T> entry : next.entrySet()) {
+            T before = previous.get(entry.getKey());
+            if (before == null) {
+                sink.accept(new Change<>(ChangeType.ADDED, entry.getKey(), null, entry.getValue()));
+            } else if (!before.equals(entry.getValue())) {
+                ChangeType type = sameBook.test(before, entry.getValue()) ? ChangeType.PRICE : ChangeType.UPDATED;
+                sink.accept(new Change<>(type, entry.getKey(), before, entry.getValue()));
+            }
+        }
+        for (Map.Entry<String, T> entry : previous.entrySet()) {
+            if (!next.containsKey(entry.getKey())) {
+                sink.accept(new Change<>(ChangeType.REMOVED, entry.getKey(), entry.getValue(), null));
+            }
+        }
+    }
+
+    private void error(String endpoint, JsonObject response) {
+        notify(listener -> listener.onError(endpoint, response));
+    }
+
+    // A failing listener must not keep the others from seeing the change
+    private void notify(Consumer<AccountListener> call) {
+        for (AccountListener listener : listeners) {
+            try {
+                call.accept(listener);
+            } catch (RuntimeException e) {
+                listenerErrors++;
+            }
+        }
+    }
+
+    private static boolean success(JsonObject response) {
+        return response.has("status") && "success".equals(response.get("status").getAsString())
+                && response.has("data") && !response.get("data").isJsonNull();
+    }
+}
@@ -0,0 +1,503 @@
+package in.openalgo;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Resumable historical backfill of a universe of symbols into a {@link CandleStore}.
+ *
+ * Each (symbol, exchange, interval) task splits the date range into chunks the broker
+ * accepts in one history() call (30 days for intraday intervals and 365 days for daily and
+ * longer ones by default) and syncs them in order with {@link CandleStore#sync}. Tasks run on
+ * a bounded worker pool and every history() call takes a permit from a shared
+ * {@link RateLimiter}. Completed tasks are appended to a checkpoint file, so a restarted job
+ * skips them and picks up where the previous run stopped; a task that failed part-way
+ * resumes after its last stored candle. Failed tasks are reported with their cause in
+ * {@link Progress#getFailures()}.
+ *
+ * Example usage:
+ * <pre>
+ * BackfillJob job = new BackfillJob.Builder(client, store)
+ *     .universe(BackfillJob.universe(client.instruments("NSE")))
+ *     .intervals("1m", "D")
+ *     .dateRange("2025-01-01", "2025-12-22")
+ *     .workers(4)
+ *     .requestsPerSecond(5)
+ *     .checkpoint(Paths.get("backfill.ckpt"))
+ *     .onProgress(p -&gt; System.out.println(p))
+ *     .build();
+ * BackfillJob.Progress result = job.run();
+ * </pre>
+ */
+public class BackfillJob {
+
+    private final DataApi api;
+    private final CandleStore store;
+    private final List<Map<String, String>> universe;
+    private final List<String> intervals;
+    private final String startDate;
+    private final String endDate;
+    private final int workers;
+    private final int intradayChunkDays;
+    private final int dailyChunkDays;
+    private final RateLimiter rateLimiter;
+    private final Path checkpoint;
+    private final Consumer<Progress> progressListener;
+
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong candles = new AtomicLong();
+    private final List<Failure> failures = Collections.synchronizedList(new ArrayList<>());
+    private volatile int total;
+    private volatile int resumed;
+    private volatile long startNanos;
+    private volatile boolean cancelled;
+    private BufferedWriter checkpointWriter;
+
+    private BackfillJob(Builder builder) {
+        this.api = builder.api;
+        this.store = builder.store;
+        this.universe = builder.universe;
+        this.intervals = builder.intervals;
+        this.startDate = builder.startDate;
+        this.endDate = builder.endDate;
+        this.workers = builder.workers;
+        this.intradayChunkDays = builder.intradayChunkDays;
+        this.dailyChunkDays = builder.dailyChunkDays;
+        this.rateLimiter = new RateLimiter(builder.requestsPerSecond);
+        this.checkpoint = builder.checkpoint;
+        this.progressListener = builder.progressListener;
+    }
+
+    /**
+     * Extracts the symbol/exchange pairs of an {@code instruments()} response.
+     *
+     * @param instrumentsResponse JsonObject returned by instruments()
+     * @return List of maps with symbol and exchange keys
+     */
+    public static List<Map<String, String>> universe(JsonObject instrumentsResponse) {
+        List<Map<String, String>> result = new ArrayList<>();
+        if (instrumentsResponse == null || !instrumentsResponse.has("data")
+                || !instrumentsResponse.get("data").isJsonArray()) {
+            return result;
+        }
+        JsonArray data = instrumentsResponse.getAsJsonArray("data");
+        for (JsonElement element : data) {
+            JsonObject row = element.getAsJsonObject();
+            if (row.has("symbol") && row.has("exchange")) {
+                Map<String, String> instrument = new HashMap<>();
+                instrument.put("symbol", row.get("symbol").getAsString());
+                instrument.put("exchange", row.get("exchange").getAsString());
+                result.add(instrument);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Runs the backfill and blocks until every task has finished or the job is cancelled.
+     * Failed tasks are not checkpointed and are retried on the next run; the returned
+     * progress lists them with their cause.
+     *
+     * @return Final progress
+     * @throws IOException          if the checkpoint file cannot be read or written
+     * @throws InterruptedException if interrupted while waiting for workers
+     */
+    public Progress run() throws IOException, InterruptedException {
+        Set<String> done = readCheckpoint();
+        List<String[]> tasks = new ArrayList<>();
+        int skipped = 0;
+        for (Map<String, String> instrument : universe) {
+            for (String interval : intervals) {
+                String key = taskKey(instrument.get("exchange"), instrument.get("symbol"), interval);
+                if (done.contains(key)) {
+                    skipped++;
+                } else {
+                    tasks.add(new String[]{instrument.get("symbol"), instrument.get("exchange"), interval, key});
+                }
+            }
+        }
+
+        total = tasks.size() + skipped;
+        resumed = skipped;
+        startNanos = System.nanoTime();
+
+        if (checkpoint != null) {
+            if (checkpoint.getParent() != null) {
+                Files.createDirectories(checkpoint.getParent());
+            }
+            checkpointWriter = Files.newBufferedWriter(checkpoint, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            for (String[] task : tasks) {
+                pool.execute(() -> runTask(task[0], task[1], task[2], task[3]));
+            }
+            pool.shutdown();
+            while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                if (cancelled) {
+                    pool.shutdownNow();
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+            if (checkpointWriter != null) {
+                synchronized (this) {
+                    checkpointWriter.close();
+                    checkpointWriter = null;
+                }
+            }
+        }
+        return getProgress();
+    }
+
+    private void runTask(String symbol, String exchange, String interval, String key) {
+        if (cancelled) {
+            return;
+        }
+        try {
+            int days = isIntraday(interval) ? intradayChunkDays : dailyChunkDays;
+            LocalDate end = LocalDate.parse(endDate);
+            // Chunks must go in order: sync() resumes after the last stored candle
+            for (LocalDate from = LocalDate.parse(startDate); !from.isAfter(end); from = from.plusDays(days)) {
+                LocalDate to = from.plusDays(days - 1L);
+                rateLimiter.acquire();
+                candles.addAndGet(store.sync(api, symbol, exchange, interval, from.toString(),
+                        (to.isAfter(end) ? end : to).toString()));
+            }
+            markDone(key);
+            completed.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            failures.add(new Failure(symbol, exchange, interval, e));
+            failed.incrementAndGet();
+        }
+        if (progressListener != null) {
+            progressListener.accept(getProgress());
+        }
+    }
+
+    // Minute and hour bars, e.g. 1m or 1h; D, W and M are daily or longer
+    private static boolean isIntraday(String interval) {
+        return interval.endsWith("m") || interval.endsWith("h");
+    }
+
+    private synchronized void markDone(String key) throws IOException {
+        if (checkpointWriter != null) {
+            checkpointWriter.write(key);
+            checkpointWriter.newLine();
+            checkpointWriter.flush();
+        }
+    }
+
+    private Set<String> readCheckpoint() throws IOException {
+        if (checkpoint == null || !Files.exists(checkpoint)) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(Files.readAllLines(checkpoint, StandardCharsets.UTF_8));
+    }
+
+    private String taskKey(String exchange, String symbol, String interval) {
+        return exchange + ":" + symbol + ":" + interval + ":" + startDate + ":" + endDate;
+    }
+
+    /**
+     * Stops scheduling new tasks. Tasks already running finish normally.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Gets the current progress.
+     *
+     * @return Progress snapshot
+     */
+    public Progress getProgress() {
+        long elapsed = startNanos == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        List<Failure> failed;
+        synchronized (failures) {
+            failed = List.copyOf(failures);
+        }
+        return new Progress(total, resumed, completed.get(), failed.size(), candles.get(), elapsed, failed);
+    }
+
+    /**
+     * A task that failed, with the exception that stopped it.
+     */
+    public static final class Failure {
+        private final String symbol;
+        private final String exchange;
+        private final String interval;
+        private final Exception cause;
+
+        Failure(String symbol, String exchange, String interval, Exception cause) {
+            this.symbol = symbol;
+            this.exchange = exchange;
+            this.interval = interval;
+            this.cause = cause;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        public String getExchange() {
+            return exchange;
+        }
+
+        public String getInterval() {
+            return interval;
+        }
+
+        /** @return Exception thrown by history() or while writing the store */
+        public Exception getCause() {
+            return cause;
+        }
+
+        @Override
+        public String toString() {
+            return exchange + ":" + symbol + " " + interval + ": " + cause.getMessage();
+        }
+    }
+
+    /**
+     * Immutable snapshot of backfill progress.
+     */
+    public static class Progress {
+        private final int total;
+        private final int resumed;
+        private final int completed;
+        private final int failed;
+        private final long candles;
+        private final long elapsedMillis;
+        private final List<Failure> failures;
+
+        Progress(int total, int resumed, int completed, int failed, long candles, long elapsedMillis,
+                 List<Failure> failures) {
+            this.total = total;
+            this.resumed = resumed;
+            this.completed = completed;
+            this.failed = failed;
+            this.candles = candles;
+            this.elapsedMillis = elapsedMillis;
+            this.failures = failures;
+        }
+
+        /** Total tasks, including ones skipped from the checkpoint. */
+        public int getTotal() {
+            return total;
+        }
+
+        /** Tasks skipped because the checkpoint marks them done. */
+        public int getResumed() {
+            return resumed;
+        }
+
+        /** Tasks completed in this run. */
+        public int getCompleted() {
+            return completed;
+        }
+
+        /** Tasks that failed in this run. */
+        public int getFailed() {
+            return failed;
+        }
+
+        /** Tasks that failed in this run, with their cause, in the order they failed. */
+        public List<Failure> getFailures() {
+            return failures;
+        }
+
+        /** Candles appended in this run. */
+        public long getCandles() {
+            return candles;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /** Tasks finished (completed or failed) per second in this run. */
+        public double getThroughput() {
+            return elapsedMillis == 0 ? 0 : (completed + failed) * 1000.0 / elapsedMillis;
+        }
+
+        /** Estimated time to finish the remaining tasks, or -1 when unknown. */
+        public long getEtaMillis() {
+            double throughput = getThroughput();
+            int remaining = total - resumed - completed - failed;
+            return throughput == 0 ? -1 : (long) (remaining * 1000 / throughput);
+        }
+
+        @Override
+        public String toString() {
+            return "Backfill " + (resumed + completed) + "/" + total
+                    + " (failed " + failed + ", candles " + candles + ", "
+                    + String.format("%.2f", getThroughput()) + " tasks/s, eta "
+                    + (getEtaMillis() < 0 ? "?" : getEtaMillis() / 1000 + "s") + ")";
+        }
+    }
+
+    /**
+     * Builder for BackfillJob.
+     */
+    public static class Builder {
+        private final DataApi api;
+        private final CandleStore store;
+        private List<Map<String, String>> universe = new ArrayList<>();
+        private List<String> intervals = new ArrayList<>();
+        private String startDate;
+        private String endDate;
+        private int workers = 4;
+        private int intradayChunkDays = 30;
+        private int dailyChunkDays = 365;
+        private double requestsPerSecond = 3;
+        private Path checkpoint;
+        private Consumer<Progress> progressListener;
+
+        /**
+         * Creates a new Builder.
+         *
+         * @param api   Client used for history() calls
+         * @param store Store the candles are written to
+         */
+        public Builder(DataApi api, CandleStore store) {
+            this.api = api;
+            this.store = store;
+        }
+
+        /**
+         * Sets the instruments to backfill.
+         *
+         * @param universe List of maps with symbol and exchange keys
+         * @return Builder instance
+         */
+        public Builder universe(List<Map<String, String>> universe) {
+            this.universe = universe;
+            return this;
+        }
+
+        /**
+         * Sets the intervals to backfill.
+         *
+         * @param intervals Intervals such as 1m, 5m, D
+         * @return Builder instance
+         */
+        public Builder intervals(String... intervals) {
+            this.intervals = List.of(intervals);
+            return this;
+        }
+
+        /**
+         * Sets the date range.
+         *
+         * @param startDate Start date in YYYY-MM-DD format
+         * @param endDate   End date in YYYY-MM-DD format
+         * @return Builder instance
+         */
+        public Builder dateRange(String startDate, String endDate) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+            return this;
+        }
+
+        /**
+         * Sets the worker pool size.
+         *
+         * @param workers Number of worker threads (default: 4)
+         * @return Builder instance
+         */
+        public Builder workers(int workers) {
+            this.workers = Math.max(1, workers);
+            return this;
+        }
+
+        /**
+         * Sets the longest date range requested in one history() call.
+         *
+         * @param intradayDays Days per call for minute and hour intervals (default: 30)
+         * @param dailyDays    Days per call for daily and longer intervals (default: 365)
+         * @return Builder instance
+         */
+        public Builder chunkDays(int intradayDays, int dailyDays) {
+            this.intradayChunkDays = Math.max(1, intradayDays);
+            this.dailyChunkDays = Math.max(1, dailyDays);
+            return this;
+        }
+
+        /**
+         * Sets the history() request budget.
+         *
+         * @param requestsPerSecond Sustained requests per second (default: 3)
+         * @return Builder instance
+         */
+        public Builder requestsPerSecond(double requestsPerSecond) {
+            this.requestsPerSecond = requestsPerSecond;
+            return this;
+        }
+
+        /**
+         * Sets the checkpoint file used to resume the job.
+         *
+         * @param checkpoint Checkpoint file (optional)
+         * @return Builder instance
+         */
+        public Builder checkpoint(Path checkpoint) {
+            this.checkpoint = checkpoint;
+            return this;
+        }
+
+        /**
+         * Sets a listener called after every finished task.
+         *
+         * @param progressListener Progress listener (optional)
+         * @return Builder instance
+         */
+        public Builder onProgress(Consumer<Progress> progressListener) {
+            this.progressListener = progressListener;
+            return this;
+        }
+
+        /**
+         * Builds the BackfillJob instance.
+         *
+         * @return BackfillJob instance
+         */
+        public BackfillJob build() {
+            if (startDate == null || endDate == null) {
+                throw new IllegalStateException("dateRange is required");
+            }
+            if (intervals.isEmpty()) {
+                throw new IllegalStateException("At least one interval is required");
+            }
+            return new BackfillJob(this);
+        }
+    }
+}
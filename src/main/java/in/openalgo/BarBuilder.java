@@ -0,0 +1,474 @@
+package in.openalgo;
+
+import com.google.gson.JsonObject;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds rolling OHLCV bars from the WebSocket feed.
+ *
+ * Each subscribed symbol gets one slot per configured interval, held in primitive arrays.
+ * Quote ticks update the forming bar (volume is taken from the change in the cumulative day
+ * volume). Bars close on a timer aligned to exchange session time, so a bar is emitted when
+ * its interval ends even if no further tick arrives. {@link #seed} loads today's 1m candles
+ * through history() so the bar that is forming at startup has the correct open, high and low.
+ *
+ * Example usage:
+ * <pre>
+ * client.connect();
+ * BarBuilder bars = new BarBuilder(client, "1m", "5m");
+ * bars.addListener((exchange, symbol, interval, ts, o, h, l, c, v) -&gt;
+ *     System.out.println(symbol + " " + interval + " close " + c));
+ * bars.subscribe(instruments);
+ * bars.seed(client);
+ * bars.start();
+ * </pre>
+ */
+public class BarBuilder implements AutoCloseable {
+
+    /**
+     * Receives closed bars.
+     */
+    @FunctionalInterface
+    public interface BarListener {
+        void onBar(String exchange, String symbol, String interval, long timestamp,
+                   double open, double high, double low, double close, long volume);
+    }
+
+    private static final long DEFAULT_CLOSE_DELAY_MILLIS = 250;
+
+    private final FeedApi feed;
+    private final String[] intervals;
+    private final CandleResampler[] aligners;
+    private final long closeDelayMillis;
+    private final CopyOnWriteArrayList<BarListener> listeners = new CopyOnWriteArrayList<>();
+    private final TickListener feedListener = new TickListener() {
+        @Override
+        public void onTick(Tick tick) {
+            onFeedTick(tick);
+        }
+    };
+
+    // Symbol index, by name and by feed instrument id (symbol + 1, 0 for none). The id array
+    // is republished after every change so feed ticks read it without the lock.
+    private final Map<String, Integer> index = new HashMap<>();
+    private volatile int[] symbolById = new int[64];
+    private String[] exchanges = new String[16];
+    private String[] symbols = new String[16];
+    private long[] lastCumVolume = new long[16];
+    private int symbolCount;
+
+    // Bar state, one slot per (symbol, interval): slot = symbol * intervals.length + k
+    private long[] barStart;
+    private double[] open;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+    private long[] volume;
+    private boolean[] emitted;
+
+    private ScheduledExecutorService timer;
+
+    // Subscriptions taken through subscribe(), released on close; guarded by this
+    private final List<Map<String, String>> subscribed = new ArrayList<>();
+
+    /**
+     * Creates a bar builder with a 250 ms grace period before bars close.
+     *
+     * @param feed      Connected feed client
+     * @param intervals Bar intervals, e.g. 1m, 5m, 15m
+     */
+    public BarBuilder(FeedApi feed, String... intervals) {
+        this(feed, DEFAULT_CLOSE_DELAY_MILLIS, intervals);
+    }
+
+    /**
+     * Creates a bar builder.
+     *
+     * @param feed             Connected feed client
+     * @param closeDelayMillis Grace period after an interval ends before its bars close
+     * @param intervals        Bar intervals, e.g. 1m, 5m, 15m
+     */
+    public BarBuilder(FeedApi feed, long closeDelayMillis, String... intervals) {
+        if (intervals.length == 0) {
+            throw new IllegalArgumentException("At least one interval is required");
+        }
+        this.feed = feed;
+        this.intervals = intervals.clone();
+        this.closeDelayMillis = closeDelayMillis;
+        this.aligners = new CandleResampler[intervals.length];
+        for (int k = 0; k < intervals.length; k++) {
+            aligners[k] = new CandleResampler(intervals[k]);
+        }
+        int slots = symbols.length * intervals.length;
+        barStart = new long[slots];
+        open = new double[slots];
+        high = new double[slots];
+        low = new double[slots];
+        close = new double[slots];
+        volume = new long[slots];
+        emitted = new boolean[slots];
+    }
+
+    /**
+     * Adds a listener for closed bars.
+     *
+     * @param listener Bar listener
+     */
+    public void addListener(BarListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a bar listener.
+     *
+     * @param listener Bar listener
+     */
+    public void removeListener(BarListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Registers instruments and subscribes them in Quote mode. The subscriptions are
+     * released by {@link #close()}.
+     *
+     * @param instruments List of instrument maps with exchange, symbol keys
+     * @return true if the subscription was sent
+     */
+    public boolean subscribe(List<Map<String, String>> instruments) {
+        synchronized (this) {
+            for (Map<String, String> instrument : instruments) {
+                register(instrument.get("exchange"), instrument.get("symbol"));
+            }
+        }
+        boolean sent = feed.subscribe(instruments, 2);
+        if (sent) {
+            synchronized (this) {
+                subscribed.addAll(instruments);
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Seeds the forming bar of every registered symbol from today's 1m history().
+     *
+     * @param api Client used for history() calls
+     */
+    public void seed(DataApi api) {
+        String today = LocalDate.now(CandleStore.MARKET_ZONE).toString();
+        List<String[]> pending = new ArrayList<>();
+        synchronized (this) {
+            for (int s = 0; s < symbolCount; s++) {
+                pending.add(new String[]{exchanges[s], symbols[s]});
+            }
+        }
+        for (String[] instrument : pending) {
+            JsonObject response = api.history(instrument[1], instrument[0], "1m", today, today);
+            CandleBuffer candles = CandleBuffer.fromHistory(response);
+            if (candles.size() > 0) {
+                seed(instrument[0], instrument[1], candles);
+            }
+        }
+    }
+
+    /**
+     * Seeds the forming bars of one symbol from base candles.
+     *
+     * @param exchange Exchange code
+     * @param symbol   Trading symbol
+     * @param candles  Base candles, typically today's 1m history
+     */
+    public synchronized void seed(String exchange, String symbol, CandleSeries candles) {
+        int s = register(exchange, symbol);
+        long nowSec = System.currentTimeMillis() / 1000;
+        for (int k = 0; k < intervals.length; k++) {
+            CandleResampler resampler = new CandleResampler(intervals[k]);
+            resampler.appendAll(candles);
+            CandleBuffer bars = resampler.getCandles();
+            int last = bars.size() - 1;
+            if (last < 0 || bars.timestamp(last) != aligners[k].bucketStart(nowSec)) {
+                continue;
+            }
+            int slot = s * intervals.length + k;
+            barStart[slot] = bars.timestamp(last);
+            open[slot] = bars.open(last);
+            high[slot] = bars.high(last);
+            low[slot] = bars.low(last);
+            close[slot] = bars.close(last);
+            volume[slot] = bars.volume(last);
+            emitted[slot] = false;
+        }
+    }
+
+    /**
+     * Starts listening to the feed and the bar-close timer.
+     */
+    public synchronized void start() {
+        if (timer != null) {
+            return;
+        }
+        feed.addTickListener(feedListener);
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "openalgo-bar-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduleNextClose();
+    }
+
+    /**
+     * Stops the timer, detaches from the feed and releases the subscriptions taken by
+     * {@link #subscribe}. Open bars are not emitted.
+     */
+    @Override
+    public synchronized void close() {
+        feed.removeTickListener(feedListener);
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+        if (!subscribed.isEmpty()) {
+            feed.unsubscribe(new ArrayList<>(subscribed), 2);
+            subscribed.clear();
+        }
+    }
+
+    /**
+     * Copies the forming bar of a symbol into a buffer.
+     *
+     * @param exchange Exchange code
+     * @param symbol   Trading symbol
+     * @param interval One of the configured intervals
+     * @param out      Buffer the bar is appended to
+     * @return true if a bar is forming
+     */
+    public synchronized boolean currentBar(String exchange, String symbol, String interval, CandleBuffer out) {
+        Integer s = index.get(exchange + ":" + symbol);
+        int k = Arrays.asList(intervals).indexOf(interval);
+        if (s == null || k < 0) {
+            return false;
+        }
+        int slot = s * intervals.length + k;
+        if (barStart[slot] == 0 || emitted[slot]) {
+            return false;
+        }
+        out.append(barStart[slot], open[slot], high[slot], low[slot], close[slot], volume[slot]);
+        return true;
+    }
+
+    private int register(String exchange, String symbol) {
+        String key = exchange + ":" + symbol;
+        Integer existing = index.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (symbolCount == symbols.length) {
+            int cap = symbols.length * 2;
+            exchanges = Arrays.copyOf(exchanges, cap);
+            symbols = Arrays.copyOf(symbols, cap);
+            lastCumVolume = Arrays.copyOf(lastCumVolume, cap);
+            int slots = cap * intervals.length;
+            barStart = Arrays.copyOf(barStart, slots);
+            open = Arrays.copyOf(open, slots);
+            high = Arrays.copyOf(high, slots);
+            low = Arrays.copyOf(low, slots);
+            close = Arrays.copyOf(close, slots);
+            volume = Arrays.copyOf(volume, slots);
+            emitted = Arrays.copyOf(emitted, slots);
+        }
+        int s = symbolCount++;
+        exchanges[s] = exchange;
+        symbols[s] = symbol;
+        index.put(key, s);
+
+        int id = feed.getInstrumentRegistry().register(exchange, symbol);
+        int[] byId = symbolById;
+        if (id >= byId.length) {
+            byId = Arrays.copyOf(byId, Math.max(byId.length * 2, id + 1));
+        }
+        byId[id] = s + 1;
+        symbolById = byId;
+        return s;
+    }
+
+    private void onFeedTick(Tick tick) {
+        int[] byId = symbolById;
+        int id = tick.getInstrumentId();
+        int s = id < byId.length ? byId[id] - 1 : -1;
+        if (s < 0 || !(tick.getLtp() > 0)) {
+            // Not a registered symbol, or no price in the message
+            return;
+        }
+        long millis = tick.getTimestamp() > 0 ? tick.getTimestamp() : System.currentTimeMillis();
+        long cumVolume = tick instanceof QuoteTick ? ((QuoteTick) tick).getVolume() : -1;
+        apply(s, tick.getLtp(), cumVolume, millis);
+    }
+
+    /**
+     * Applies a tick. Called from the feed; also usable to replay ticks offline.
+     *
+     * @param exchange        Exchange code
+     * @param symbol          Trading symbol
+     * @param price           Last traded price
+     * @param cumulativeVolume Day volume so far, or -1 if unknown
+     * @param timestampMillis Tick time, epoch milliseconds
+     */
+    public void onTick(String exchange, String symbol, double price, long cumulativeVolume, long timestampMillis) {
+        Integer s;
+        synchronized (this) {
+            s = index.get(exchange + ":" + symbol);
+        }
+        if (s != null) {
+            apply(s, price, cumulativeVolume, timestampMillis);
+        }
+    }
+
+    private void apply(int s, double price, long cumulativeVolume, long timestampMillis) {
+        List<ClosedBar> closed = null;
+        synchronized (this) {
+            long traded = 0;
+            if (cumulativeVolume >= 0) {
+                if (lastCumVolume[s] > 0 && cumulativeVolume >= lastCumVolume[s]) {
+                    traded = cumulativeVolume - lastCumVolume[s];
+                }
+                lastCumVolume[s] = cumulativeVolume;
+            }
+
+            long tsSec = timestampMillis / 1000;
+            for (int k = 0; k < intervals.length; k++) {
+                int slot = s * intervals.length + k;
+                long bucket = aligners[k].bucketStart(tsSec);
+                if (bucket > barStart[slot]) {
+                    if (barStart[slot] != 0 && !emitted[slot]) {
+                        if (closed == null) {
+                            closed = new ArrayList<>();
+                        }
+                        closed.add(snapshot(slot, k));
+                    }
+                    barStart[slot] = bucket;
+                    open[slot] = price;
+                    high[slot] = price;
+                    low[slot] = price;
+                    close[slot] = price;
+                    volume[slot] = traded;
+                    emitted[slot] = false;
+                } else if (bucket == barStart[slot] && !emitted[slot]) {
+                    high[slot] = Math.max(high[slot], price);
+                    low[slot] = Math.min(low[slot], price);
+                    close[slot] = price;
+                    volume[slot] += traded;
+                }
+            }
+        }
+        emit(closed);
+    }
+
+    /**
+     * Closes every bar whose interval has ended.
+     *
+     * @param nowMillis Current time, epoch milliseconds
+     */
+    void closeDueBars(long nowMillis) {
+        List<ClosedBar> closed = null;
+        synchronized (this) {
+            long nowSec = nowMillis / 1000;
+            for (int k = 0; k < intervals.length; k++) {
+                long length = aligners[k].getIntervalSeconds();
+                for (int s = 0; s < symbolCount; s++) {
+                    int slot = s * intervals.length + k;
+                    if (barStart[slot] != 0 && !emitted[slot] && barStart[slot] + length <= nowSec) {
+                        if (closed == null) {
+                            closed = new ArrayList<>();
+                        }
+                        closed.add(snapshot(slot, k));
+                    }
+                }
+            }
+        }
+        emit(closed);
+    }
+
+    private ClosedBar snapshot(int slot, int k) {
+        emitted[slot] = true;
+        int s = slot / intervals.length;
+        return new ClosedBar(exchanges[s], symbols[s], intervals[k], barStart[slot],
+                open[slot], high[slot], low[slot], close[slot], volume[slot]);
+    }
+
+    private void emit(List<ClosedBar> closed) {
+        if (closed == null) {
+            return;
+        }
+        for (ClosedBar bar : closed) {
+            for (BarListener listener : listeners) {
+                listener.onBar(bar.exchange, bar.symbol, bar.interval, bar.timestamp,
+                        bar.open, bar.high, bar.low, bar.close, bar.volume);
+            }
+        }
+    }
+
+    private void scheduleNextClose() {
+        long nowMillis = System.currentTimeMillis();
+        long nowSec = nowMillis / 1000;
+        long next = Long.MAX_VALUE;
+        synchronized (this) {
+            for (CandleResampler aligner : aligners) {
+                next = Math.min(next, aligner.bucketStart(nowSec) + aligner.getIntervalSeconds());
+            }
+        }
+        long delay = Math.max(0, next * 1000 + closeDelayMillis - nowMillis);
+        ScheduledExecutorService t = timer;
+        if (t == null) {
+            return;
+        }
+        t.schedule(() -> {
+            try {
+                closeDueBars(System.currentTimeMillis() - closeDelayMillis);
+            } finally {
+                synchronized (BarBuilder.this) {
+                    if (timer != null) {
+                        scheduleNextClose();
+                    }
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Values of a bar captured when it closed, emitted outside the lock.
+     */
+    private static final class ClosedBar {
+        final String exchange;
+        final String symbol;
+        final String interval;
+        final long timestamp;
+        final double open;
+        final double high;
+        final double low;
+        final double close;
+        final long volume;
+
+        ClosedBar(String exchange, String symbol, String interval, long timestamp,
+                  double open, double high, double low, double close, long volume) {
+            this.exchange = exchange;
+            this.symbol = symbol;
+            this.interval = interval;
+            this.timestamp = timestamp;
+            this.open = open;
+            this.high = high;
+            this.low = low;
+            this.close = close;
+            this.volume = volume;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package in.openalgo;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.Arrays;
+
+/**
+ * Growable in-heap candle series backed by one primitive array per column.
+ */
+public class CandleBuffer implements CandleSeries {
+
+    private long[] timestamps;
+    private double[] opens;
+    private double[] highs;
+    private double[] lows;
+    private double[] closes;
+    private long[] volumes;
+    private int size;
+
+    /**
+     * Creates an empty buffer with a default capacity.
+     */
+    public CandleBuffer() {
+        this(256);
+    }
+
+    /**
+     * Creates an empty buffer.
+     *
+     * @param capacity Initial capacity in candles
+     */
+    public CandleBuffer(int capacity) {
+        int cap = Math.max(capacity, 1);
+        timestamps = new long[cap];
+        opens = new double[cap];
+        highs = new double[cap];
+        lows = new double[cap];
+        closes = new double[cap];
+        volumes = new long[cap];
+    }
+
+    /**
+     * Decodes the candles of a {@code history()} response.
+     *
+     * @param response JsonObject returned by history()
+     * @return CandleBuffer with the response candles, empty if the response has no data
+     */
+    public static CandleBuffer fromHistory(JsonObject response) {
+        JsonArray data = response != null && response.has("data") && response.get("data").isJsonArray()
+                ? response.getAsJsonArray("data") : new JsonArray();
+        CandleBuffer buffer = new CandleBuffer(data.size());
+        for (JsonElement element : data) {
+            JsonObject c = element.getAsJsonObject();
+            buffer.append(
+                    c.has("timestamp") ? c.get("timestamp").getAsLong() : 0,
+                    c.has("open") ? c.get("open").getAsDouble() : 0,
+                    c.has("high") ? c.get("high").getAsDouble() : 0,
+                    c.has("low") ? c.get("low").getAsDouble() : 0,
+                    c.has("close") ? c.get("close").getAsDouble() : 0,
+                    c.has("volume") ? c.get("volume").getAsLong() : 0);
+        }
+        return buffer;
+    }
+
+    /**
+     * Appends a candle.
+     */
+    public void append(long timestamp, double open, double high, double low, double close, long volume) {
+        if (size == timestamps.length) {
+            grow(size + 1);
+        }
+        timestamps[size] = timestamp;
+        opens[size] = open;
+        highs[size] = high;
+        lows[size] = low;
+        closes[size] = close;
+        volumes[size] = volume;
+        size++;
+    }
+
+    /**
+     * Overwrites the candle at an index.
+     */
+    public void set(int index, long timestamp, double open, double high, double low, double close, long volume) {
+        checkIndex(index);
+        timestamps[index] = timestamp;
+        opens[index] = open;
+        highs[index] = high;
+        lows[index] = low;
+        closes[index] = close;
+        volumes[index] = volume;
+    }
+
+    void setPrices(int index, double open, double high, double low, double close) {
+        opens[index] = open;
+        highs[index] = high;
+        lows[index] = low;
+        closes[index] = close;
+    }
+
+    void setVolume(int index, long volume) {
+        volumes[index] = volume;
+    }
+
+    /**
+     * Removes all candles, keeping the allocated arrays.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Ensures room for at least the given number of candles.
+     *
+     * @param capacity Required capacity
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > timestamps.length) {
+            grow(capacity);
+        }
+    }
+
+    private void grow(int minCapacity) {
+        int cap = Math.max(minCapacity, timestamps.length * 2);
+        timestamps = Arrays.copyOf(timestamps, cap);
+        opens = Arrays.copyOf(opens, cap);
+        highs = Arrays.copyOf(highs, cap);
+        lows = Arrays.copyOf(lows, cap);
+        closes = Arrays.copyOf(closes, cap);
+        volumes = Arrays.copyOf(volumes, cap);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long timestamp(int index) {
+        checkIndex(index);
+        return timestamps[index];
+    }
+
+    @Override
+    public double open(int index) {
+        checkIndex(index);
+        return opens[index];
+    }
+
+    @Override
+    public double high(int index) {
+        checkIndex(index);
+        return highs[index];
+    }
+
+    @Override
+    public double low(int index) {
+        checkIndex(index);
+        return lows[index];
+    }
+
+    @Override
+    public double close(int index) {
+        checkIndex(index);
+        return closes[index];
+    }
+
+    @Override
+    public long volume(int index) {
+        checkIndex(index);
+        return volumes[index];
+    }
+}
@@ -0,0 +1,472 @@
+package in.openalgo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Compact binary format for {@code history()} candles.
+ *
+ * Candles are split into blocks of up to {@code blockSize} rows. Within a block:
+ * - Timestamps are stored as the first value, the first delta and then delta-of-deltas,
+ *   so regular intervals cost one byte per candle.
+ * - Prices are stored as scaled integers (e.g. paise for two decimals) relative to the
+ *   previous close and the candle open. A block whose prices are not exact at the scale
+ *   falls back to XOR-ing the raw double bits against the previous value of the column.
+ * - Volumes are stored as deltas from the previous volume.
+ * All deltas are zig-zag varints. A block index at the end of the file records the time
+ * range and offset of each block so range reads only decode the blocks they need.
+ *
+ * Decoding writes straight into the primitive columns of a {@link CandleBuffer}.
+ *
+ * Example usage:
+ * <pre>
+ * CandleCodec codec = new CandleCodec();
+ * codec.write(Paths.get("SBIN_1m.oac"), CandleBuffer.fromHistory(response));
+ * CandleBuffer day = CandleCodec.read(Paths.get("SBIN_1m.oac"), from, to);
+ * </pre>
+ */
+public class CandleCodec {
+
+    public static final int DEFAULT_PRICE_DECIMALS = 2;
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    private static final int MAGIC = 0x4F41_4343; // "OACC"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int INDEX_ENTRY_SIZE = 28;
+    private static final int FLAG_XOR_PRICES = 1;
+    private static final int XOR_ZERO = 0xFF;
+
+    private final int priceDecimals;
+    private final int blockSize;
+    private final long scale;
+
+    /**
+     * Creates a codec with two price decimals and the default block size.
+     */
+    public CandleCodec() {
+        this(DEFAULT_PRICE_DECIMALS, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates a codec.
+     *
+     * @param priceDecimals Decimals kept by the scaled-integer price encoding (0-8)
+     * @param blockSize     Candles per block
+     */
+    public CandleCodec(int priceDecimals, int blockSize) {
+        if (priceDecimals < 0 || priceDecimals > 8) {
+            throw new IllegalArgumentException("priceDecimals must be between 0 and 8");
+        }
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        this.priceDecimals = priceDecimals;
+        this.blockSize = blockSize;
+        long s = 1;
+        for (int i = 0; i < priceDecimals; i++) {
+            s *= 10;
+        }
+        this.scale = s;
+    }
+
+    /**
+     * Encodes a candle series.
+     *
+     * @param candles Candles in ascending time order
+     * @return Encoded bytes
+     */
+    public byte[] encode(CandleSeries candles) {
+        int count = candles.size();
+        int blockCount = (count + blockSize - 1) / blockSize;
+        Output out = new Output(HEADER_SIZE + count * 8 + blockCount * INDEX_ENTRY_SIZE);
+        out.pos = HEADER_SIZE;
+
+        long[] blockFirst = new long[blockCount];
+        long[] blockLast = new long[blockCount];
+        long[] blockOffset = new long[blockCount];
+        int[] blockRows = new int[blockCount];
+
+        for (int b = 0; b < blockCount; b++) {
+            int from = b * blockSize;
+            int to = Math.min(count, from + blockSize);
+            blockFirst[b] = candles.timestamp(from);
+            blockLast[b] = candles.timestamp(to - 1);
+            blockOffset[b] = out.pos;
+            blockRows[b] = to - from;
+            encodeBlock(candles, from, to, out);
+        }
+
+        long indexOffset = out.pos;
+        for (int b = 0; b < blockCount; b++) {
+            out.writeLong(blockFirst[b]);
+            out.writeLong(blockLast[b]);
+            out.writeLong(blockOffset[b]);
+            out.writeInt(blockRows[b]);
+        }
+        int end = out.pos;
+
+        out.pos = 0;
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(priceDecimals);
+        out.writeInt(blockSize);
+        out.writeInt(count);
+        out.writeInt(blockCount);
+        out.writeLong(indexOffset);
+        return Arrays.copyOf(out.bytes, end);
+    }
+
+    /**
+     * Encodes a candle series to a file, replacing it atomically.
+     *
+     * @param path    Target file
+     * @param candles Candles in ascending time order
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path path, CandleSeries candles) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.write(tmp, encode(candles));
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void encodeBlock(CandleSeries c, int from, int to, Output out) {
+        boolean scaled = true;
+        for (int i = from; i < to && scaled; i++) {
+            scaled = isExact(c.open(i)) && isExact(c.high(i)) && isExact(c.low(i)) && isExact(c.close(i));
+        }
+        out.writeByte(scaled ? 0 : FLAG_XOR_PRICES);
+
+        // Timestamps: first value, first delta, then delta-of-deltas
+        long prevTs = c.timestamp(from);
+        long prevDelta = 0;
+        out.writeLong(prevTs);
+        for (int i = from + 1; i < to; i++) {
+            long ts = c.timestamp(i);
+            long delta = ts - prevTs;
+            out.writeSignedVarLong(delta - prevDelta);
+            prevDelta = delta;
+            prevTs = ts;
+        }
+
+        if (scaled) {
+            long prevClose = 0;
+            for (int i = from; i < to; i++) {
+                long open = Math.round(c.open(i) * scale);
+                long close = Math.round(c.close(i) * scale);
+                out.writeSignedVarLong(open - prevClose);
+                out.writeSignedVarLong(Math.round(c.high(i) * scale) - open);
+                out.writeSignedVarLong(Math.round(c.low(i) * scale) - open);
+                out.writeSignedVarLong(close - open);
+                prevClose = close;
+            }
+        } else {
+            long prevOpen = 0;
+            long prevHigh = 0;
+            long prevLow = 0;
+            long prevClose = 0;
+            for (int i = from; i < to; i++) {
+                long open = Double.doubleToRawLongBits(c.open(i));
+                long high = Double.doubleToRawLongBits(c.high(i));
+                long low = Double.doubleToRawLongBits(c.low(i));
+                long close = Double.doubleToRawLongBits(c.close(i));
+                out.writeXor(open ^ prevOpen);
+                out.writeXor(high ^ prevHigh);
+                out.writeXor(low ^ prevLow);
+                out.writeXor(close ^ prevClose);
+                prevOpen = open;
+                prevHigh = high;
+                prevLow = low;
+                prevClose = close;
+            }
+        }
+
+        long prevVolume = 0;
+        for (int i = from; i < to; i++) {
+            long volume = c.volume(i);
+            out.writeSignedVarLong(volume - prevVolume);
+            prevVolume = volume;
+        }
+    }
+
+    private boolean isExact(double price) {
+        double scaledPrice = price * scale;
+        if (Double.isNaN(scaledPrice) || Math.abs(scaledPrice) >= (1L << 52)) {
+            return false;
+        }
+        return Math.round(scaledPrice) / (double) scale == price;
+    }
+
+    /**
+     * Decodes every candle.
+     *
+     * @param data Encoded bytes, positioned at the start of the header
+     * @return CandleBuffer with the decoded candles
+     */
+    public static CandleBuffer decode(ByteBuffer data) {
+        return decode(data, Long.MIN_VALUE, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Decodes candles with timestamps in {@code [from, to]}, skipping blocks outside the range.
+     *
+     * @param data Encoded bytes, positioned at the start of the header
+     * @param from Inclusive start, epoch seconds
+     * @param to   Inclusive end, epoch seconds
+     * @param out  Buffer to append to (optional, a new buffer is created when null)
+     * @return Buffer holding the decoded candles
+     */
+    public static CandleBuffer decode(ByteBuffer data, long from, long to, CandleBuffer out) {
+        int base = data.position();
+        if (data.getInt(base) != MAGIC) {
+            throw new IllegalArgumentException("Not an encoded candle block");
+        }
+        if (data.getInt(base + 4) != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported candle codec version " + data.getInt(base + 4));
+        }
+        int decimals = data.getInt(base + 8);
+        int blockCount = data.getInt(base + 20);
+        long indexOffset = data.getLong(base + 24);
+        long s = 1;
+        for (int i = 0; i < decimals; i++) {
+            s *= 10;
+        }
+        double scale = s;
+
+        // First block that can hold a candle at or after 'from'
+        int lo = 0;
+        int hi = blockCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            long lastTs = data.getLong(base + (int) indexOffset + mid * INDEX_ENTRY_SIZE + 8);
+            if (lastTs < from) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        CandleBuffer result = out != null ? out : new CandleBuffer();
+        Input in = new Input(data);
+        for (int b = lo; b < blockCount; b++) {
+            int entry = base + (int) indexOffset + b * INDEX_ENTRY_SIZE;
+            if (data.getLong(entry) > to) {
+                break;
+            }
+            in.pos = base + (int) data.getLong(entry + 16);
+            decodeBlock(in, data.getInt(entry + 24), scale, from, to, result);
+        }
+        return result;
+    }
+
+    /**
+     * Reads candles in {@code [from, to]} from a file through a read-only memory mapping.
+     *
+     * @param path File written by {@link #write}
+     * @param from Inclusive start, epoch seconds
+     * @param to   Inclusive end, epoch seconds
+     * @return CandleBuffer with the decoded candles
+     * @throws IOException if the file cannot be read
+     */
+    public static CandleBuffer read(Path path, long from, long to) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(mapped, from, to, null);
+        }
+    }
+
+    /**
+     * Reads every candle from a file.
+     */
+    public static CandleBuffer read(Path path) throws IOException {
+        return read(path, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    private static void decodeBlock(Input in, int rows, double scale, long from, long to, CandleBuffer out) {
+        boolean xor = (in.readByte() & FLAG_XOR_PRICES) != 0;
+
+        // Timestamps go straight into the buffer; in-range rows of a block are contiguous
+        int base = out.size();
+        int first = -1;
+        out.ensureCapacity(base + rows);
+        long ts = in.readLong();
+        long delta = 0;
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                delta += in.readSignedVarLong();
+                ts += delta;
+            }
+            if (ts >= from && ts <= to) {
+                if (first < 0) {
+                    first = i;
+                }
+                out.append(ts, 0, 0, 0, 0, 0);
+            }
+        }
+        int last = first < 0 ? -1 : first + out.size() - base;
+
+        if (!xor) {
+            long prevClose = 0;
+            for (int i = 0; i < rows; i++) {
+                long o = prevClose + in.readSignedVarLong();
+                long h = o + in.readSignedVarLong();
+                long l = o + in.readSignedVarLong();
+                long c = o + in.readSignedVarLong();
+                if (i >= first && i < last) {
+                    out.setPrices(base + i - first, o / scale, h / scale, l / scale, c / scale);
+                }
+                prevClose = c;
+            }
+        } else {
+            long o = 0;
+            long h = 0;
+            long l = 0;
+            long c = 0;
+            for (int i = 0; i < rows; i++) {
+                o ^= in.readXor();
+                h ^= in.readXor();
+                l ^= in.readXor();
+                c ^= in.readXor();
+                if (i >= first && i < last) {
+                    out.setPrices(base + i - first, Double.longBitsToDouble(o), Double.longBitsToDouble(h),
+                            Double.longBitsToDouble(l), Double.longBitsToDouble(c));
+                }
+            }
+        }
+
+        long volume = 0;
+        for (int i = 0; i < rows; i++) {
+            volume += in.readSignedVarLong();
+            if (i >= first && i < last) {
+                out.setVolume(base + i - first, volume);
+            }
+        }
+    }
+
+    /**
+     * Growable byte sink with varint helpers.
+     */
+    private static final class Output {
+        byte[] bytes;
+        int pos;
+
+        Output(int capacity) {
+            bytes = new byte[Math.max(capacity, 64)];
+        }
+
+        private void ensure(int n) {
+            if (pos + n > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, pos + n));
+            }
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            bytes[pos++] = (byte) b;
+        }
+
+        void writeInt(int v) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                bytes[pos++] = (byte) (v >>> shift);
+            }
+        }
+
+        void writeLong(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[pos++] = (byte) (v >>> shift);
+            }
+        }
+
+        void writeSignedVarLong(long v) {
+            long zigzag = (v << 1) ^ (v >> 63);
+            ensure(10);
+            while ((zigzag & ~0x7FL) != 0) {
+                bytes[pos++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            bytes[pos++] = (byte) zigzag;
+        }
+
+        /**
+         * Writes an XOR residual as a control byte (leading and trailing zero bytes) followed by
+         * the significant bytes.
+         */
+        void writeXor(long x) {
+            if (x == 0) {
+                writeByte(XOR_ZERO);
+                return;
+            }
+            int leading = Long.numberOfLeadingZeros(x) >>> 3;
+            int trailing = Long.numberOfTrailingZeros(x) >>> 3;
+            int significant = 8 - leading - trailing;
+            ensure(1 + significant);
+            bytes[pos++] = (byte) ((leading << 4) | trailing);
+            long v = x >>> (trailing * 8);
+            for (int i = 0; i < significant; i++) {
+                bytes[pos++] = (byte) v;
+                v >>>= 8;
+            }
+        }
+    }
+
+    /**
+     * Cursor over an encoded buffer using absolute reads.
+     */
+    private static final class Input {
+        final ByteBuffer data;
+        int pos;
+
+        Input(ByteBuffer data) {
+            this.data = data;
+        }
+
+        int readByte() {
+            return data.get(pos++) & 0xFF;
+        }
+
+        long readLong() {
+            long v = data.getLong(pos);
+            pos += 8;
+            return v;
+        }
+
+        long readSignedVarLong() {
+            long zigzag = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = data.get(pos++);
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        long readXor() {
+            int control = readByte();
+            if (control == XOR_ZERO) {
+                return 0;
+            }
+            int leading = control >>> 4;
+            int trailing = control & 0x0F;
+            int significant = 8 - leading - trailing;
+            long v = 0;
+            for (int i = 0; i < significant; i++) {
+                v |= (long) (data.get(pos++) & 0xFF) << (i * 8);
+            }
+            return v << (trailing * 8);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package in.openalgo;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+/**
+ * Aggregates a base candle series into a higher timeframe.
+ *
+ * Bars are aligned to the session open rather than midnight, so 75m bars on NSE start at
+ * 09:15, 10:30, 11:45 and so on. Any interval up to one day is supported, including ones
+ * intervals() does not list. Appending a base candle updates the last bar in place or starts
+ * a new one, so every timeframe can be derived from a single 1m download and kept current
+ * as new candles arrive.
+ *
+ * Example usage:
+ * <pre>
+ * CandleBuffer oneMinute = CandleBuffer.fromHistory(client.history("SBIN", "NSE", "1m", from, to));
+ * CandleBuffer fifteen = CandleResampler.resample(oneMinute, "15m");
+ *
+ * CandleResampler live = new CandleResampler("75m");
+ * live.appendAll(oneMinute);
+ * live.append(ts, open, high, low, close, volume); // updates the last 75m bar
+ * </pre>
+ */
+public class CandleResampler {
+
+    /** NSE/BSE equity and F&amp;O session open. */
+    public static final LocalTime NSE_SESSION_OPEN = LocalTime.of(9, 15);
+
+    private static final long DAY_SECONDS = 86_400;
+
+    private final long intervalSeconds;
+    private final ZoneId zone;
+    private final LocalTime sessionOpen;
+    private final CandleBuffer candles = new CandleBuffer();
+
+    // Cached session open of the day holding the last timestamp
+    private long dayStart = Long.MAX_VALUE;
+    private long dayEnd = Long.MIN_VALUE;
+    private long daySessionOpen;
+
+    // Last base candle and the volume it contributed to the last bar, so a forming base
+    // candle appended again replaces its earlier contribution instead of adding to it
+    private long lastBaseTimestamp = Long.MIN_VALUE;
+    private long lastBaseVolume;
+
+    /**
+     * Creates a resampler aligned to the NSE session open in exchange time.
+     *
+     * @param interval Target interval, e.g. 3m, 75m, 1h, D
+     */
+    public CandleResampler(String interval) {
+        this(interval, CandleStore.MARKET_ZONE, NSE_SESSION_OPEN);
+    }
+
+    /**
+     * Creates a resampler.
+     *
+     * @param interval    Target interval, e.g. 3m, 75m, 1h, D
+     * @param zone        Exchange time zone
+     * @param sessionOpen Session open time that bars are aligned to
+     */
+    public CandleResampler(String interval, ZoneId zone, LocalTime sessionOpen) {
+        this.intervalSeconds = intervalSeconds(interval);
+        this.zone = zone;
+        this.sessionOpen = sessionOpen;
+    }
+
+    /**
+     * Creates a resampler aligned to the session open reported by {@code timings()}.
+     *
+     * @param interval        Target interval
+     * @param timingsResponse JsonObject returned by timings()
+     * @param exchange        Exchange whose session is used
+     * @return CandleResampler, aligned to 09:15 if the exchange is not in the response
+     */
+    public static CandleResampler fromTimings(String interval, JsonObject timingsResponse, String exchange) {
+        LocalTime open = NSE_SESSION_OPEN;
+        if (timingsResponse != null && timingsResponse.has("data") && timingsResponse.get("data").isJsonArray()) {
+            for (JsonElement element : timingsResponse.getAsJsonArray("data")) {
+                JsonObject row = element.getAsJsonObject();
+                if (row.has("exchange") && exchange.equals(row.get("exchange").getAsString()) && row.has("start_time")) {
+                    open = Instant.ofEpochMilli(row.get("start_time").getAsLong()).atZone(CandleStore.MARKET_ZONE).toLocalTime();
+                    break;
+                }
+            }
+        }
+        return new CandleResampler(interval, CandleStore.MARKET_ZONE, open);
+    }
+
+    /**
+     * Resamples a series in one pass.
+     *
+     * @param base     Base candles in ascending time order
+     * @param interval Target interval
+     * @return Resampled candles
+     */
+    public static CandleBuffer resample(CandleSeries base, String interval) {
+        CandleResampler resampler = new CandleResampler(interval);
+        resampler.appendAll(base);
+        return resampler.getCandles();
+    }
+
+    /**
+     * Converts an interval string to seconds.
+     *
+     * @param interval Interval such as 1m, 75m, 1h or D (a leading number is optional for h/D)
+     * @return Interval length in seconds
+     * @throws IllegalArgumentException for unknown units and intervals longer than one day,
+     *                                  since bars are aligned to a single session
+     */
+    public static long intervalSeconds(String interval) {
+        if (interval == null || interval.isEmpty()) {
+            throw new IllegalArgumentException("Interval is required");
+        }
+        char unit = interval.charAt(interval.length() - 1);
+        String number = interval.substring(0, interval.length() - 1);
+        long n = number.isEmpty() ? 1 : Long.parseLong(number);
+        long seconds;
+        switch (unit) {
+            case 's':
+                seconds = n;
+                break;
+            case 'm':
+                seconds = n * 60;
+                break;
+            case 'h':
+                seconds = n * 3600;
+                break;
+            case 'D':
+            case 'd':
+                seconds = n * DAY_SECONDS;
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported interval: " + interval);
+        }
+        if (seconds <= 0) {
+            throw new IllegalArgumentException("Interval must be positive: " + interval);
+        }
+        if (seconds > DAY_SECONDS) {
+            throw new IllegalArgumentException("Multi-day intervals are not supported: " + interval);
+        }
+        return seconds;
+    }
+
+    /**
+     * Gets the start of the bar that holds a timestamp.
+     *
+     * @param timestamp epoch seconds
+     * @return bar start, epoch seconds
+     */
+    public long bucketStart(long timestamp) {
+        if (timestamp < dayStart || timestamp >= dayEnd) {
+            LocalDate date = Instant.ofEpochSecond(timestamp).atZone(zone).toLocalDate();
+            dayStart = date.atStartOfDay(zone).toEpochSecond();
+            dayEnd = date.plusDays(1).atStartOfDay(zone).toEpochSecond();
+            daySessionOpen = date.atTime(sessionOpen).atZone(zone).toEpochSecond();
+        }
+        if (intervalSeconds >= DAY_SECONDS) {
+            return daySessionOpen;
+        }
+        return daySessionOpen + Math.floorDiv(timestamp - daySessionOpen, intervalSeconds) * intervalSeconds;
+    }
+
+    /**
+     * Gets the interval length.
+     *
+     * @return seconds
+     */
+    public long getIntervalSeconds() {
+        return intervalSeconds;
+    }
+
+    /**
+     * Adds a base candle, updating the last bar or starting a new one. Appending the last
+     * base candle again, e.g. as it keeps forming, replaces its volume rather than adding it.
+     * Candles older than the current bar are ignored.
+     *
+     * @return true if a new bar was started
+     */
+    public boolean append(long timestamp, double open, double high, double low, double close, long volume) {
+        long bucket = bucketStart(timestamp);
+        int last = candles.size() - 1;
+        if (last >= 0) {
+            long lastBucket = candles.timestamp(last);
+            if (bucket == lastBucket) {
+                long barVolume = candles.volume(last);
+                if (timestamp == lastBaseTimestamp) {
+                    barVolume -= lastBaseVolume;
+                }
+                candles.set(last, lastBucket, candles.open(last),
+                        Math.max(candles.high(last), high), Math.min(candles.low(last), low),
+                        close, barVolume + volume);
+                lastBaseTimestamp = timestamp;
+                lastBaseVolume = volume;
+                return false;
+            }
+            if (bucket < lastBucket) {
+                return false;
+            }
+        }
+        candles.append(bucket, open, high, low, close, volume);
+        lastBaseTimestamp = timestamp;
+        lastBaseVolume = volume;
+        return true;
+    }
+
+    /**
+     * Adds every candle of a base series.
+     *
+     * @param base Base candles in ascending time order
+     */
+    public void appendAll(CandleSeries base) {
+        for (int i = 0; i < base.size(); i++) {
+            append(base.timestamp(i), base.open(i), base.high(i), base.low(i), base.close(i), base.volume(i));
+        }
+    }
+
+    /**
+     * Gets the resampled bars. The last bar may still be forming.
+     *
+     * @return CandleBuffer owned by this resampler
+     */
+    public CandleBuffer getCandles() {
+        return candles;
+    }
+}
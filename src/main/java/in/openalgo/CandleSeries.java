@@ -0,0 +1,57 @@
+package in.openalgo;
+
+/**
+ * Read-only, index-addressed view over a series of OHLCV candles.
+ *
+ * Timestamps are epoch seconds, matching the {@code history()} response.
+ * Implementations expose primitive accessors so callers can scan a series
+ * without allocating a candle object per row.
+ */
+public interface CandleSeries {
+
+    /**
+     * Gets the number of candles in the series.
+     *
+     * @return candle count
+     */
+    int size();
+
+    /**
+     * Gets the candle open time.
+     *
+     * @param index candle index
+     * @return epoch seconds
+     */
+    long timestamp(int index);
+
+    double open(int index);
+
+    double high(int index);
+
+    double low(int index);
+
+    double close(int index);
+
+    long volume(int index);
+
+    /**
+     * Finds the first index whose timestamp is greater than or equal to the given time.
+     * Assumes timestamps are strictly increasing.
+     *
+     * @param timestamp epoch seconds
+     * @return index in [0, size()]
+     */
+    default int lowerBound(long timestamp) {
+        int lo = 0;
+        int hi = size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timestamp(mid) < timestamp) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
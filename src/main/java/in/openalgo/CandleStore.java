@@ -0,0 +1,438 @@
+package in.openalgo;
+
+import com.google.gson.JsonObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent on-disk candle store with one memory-mapped columnar file per symbol and interval.
+ *
+ * Files live under {@code root/EXCHANGE/SYMBOL_INTERVAL.ohlcv}. Each file holds a fixed header
+ * followed by six columns (timestamp, open, high, low, close, volume) of {@code capacity}
+ * eight-byte slots. Candles are append-only and strictly increasing in time; {@link #sync}
+ * downloads only the tail from the last stored candle, which it rewrites in case it was
+ * stored while still forming.
+ *
+ * Range reads return {@link CandleSeries} views that read straight from the mapping, so no
+ * candle data is copied onto the heap.
+ *
+ * Example usage:
+ * <pre>
+ * CandleStore store = new CandleStore(Paths.get("candles"));
+ * store.sync(client, "SBIN", "NSE", "1m", "2025-01-01", "2025-12-22");
+ * CandleSeries candles = store.read("SBIN", "NSE", "1m");
+ * </pre>
+ */
+public class CandleStore implements Closeable {
+
+    /** Exchange time zone used to turn candle timestamps into history() dates. */
+    static final ZoneId MARKET_ZONE = ZoneId.of("Asia/Kolkata");
+
+    private static final int MAGIC = 0x4F41_4353; // "OACS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int COLUMNS = 6;
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private static final int COL_TIMESTAMP = 0;
+    private static final int COL_OPEN = 1;
+    private static final int COL_HIGH = 2;
+    private static final int COL_LOW = 3;
+    private static final int COL_CLOSE = 4;
+    private static final int COL_VOLUME = 5;
+
+    private final Path root;
+    private final ConcurrentHashMap<String, Table> tables = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a candle store rooted at a directory.
+     *
+     * @param root Directory for candle files (created on first write)
+     */
+    public CandleStore(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * Downloads candles missing from the local file and appends them.
+     *
+     * When the file already has candles, history() is requested from the date of the last
+     * stored candle instead of {@code startDate}. The last stored candle is replaced by the
+     * downloaded one with the same timestamp, since it may have been stored before its bar
+     * closed; only newer candles are appended after it. Earlier ranges are never prepended.
+     *
+     * @param api       Client used for history() calls
+     * @param symbol    Trading symbol (required)
+     * @param exchange  Exchange code (required)
+     * @param interval  Time interval (required)
+     * @param startDate Start date in YYYY-MM-DD format, used when the file is empty (required)
+     * @param endDate   End date in YYYY-MM-DD format (required)
+     * @return Number of candles written, including a replaced last candle
+     * @throws IOException if the file cannot be written or history() returns an error
+     */
+    public int sync(DataApi api, String symbol, String exchange, String interval,
+                    String startDate, String endDate) throws IOException {
+        Table table = table(symbol, exchange, interval);
+        long last = table.lastTimestamp();
+        String from = last > 0
+                ? LocalDate.ofInstant(Instant.ofEpochSecond(last), MARKET_ZONE).toString()
+                : startDate;
+        if (from.compareTo(endDate) > 0) {
+            return 0;
+        }
+
+        JsonObject response = api.history(symbol, exchange, interval, from, endDate);
+        if (!response.has("status") || !"success".equals(response.get("status").getAsString())) {
+            String message = response.has("message") ? response.get("message").getAsString() : "unknown error";
+            throw new IOException("history() failed for " + exchange + ":" + symbol + " " + interval + ": " + message);
+        }
+        return table.append(CandleBuffer.fromHistory(response), true);
+    }
+
+    /**
+     * Appends candles newer than the last stored candle.
+     *
+     * @param symbol   Trading symbol
+     * @param exchange Exchange code
+     * @param interval Time interval
+     * @param candles  Candles in ascending time order
+     * @return Number of candles appended
+     * @throws IOException if the file cannot be written
+     */
+    public int append(String symbol, String exchange, String interval, CandleSeries candles) throws IOException {
+        return table(symbol, exchange, interval).append(candles, false);
+    }
+
+    /**
+     * Reads candles with timestamps in {@code [from, to]}.
+     *
+     * The returned series is a snapshot view over the mapped file; candles appended later are
+     * not visible through it, but a last candle rewritten by {@link #sync} is.
+     *
+     * @param symbol   Trading symbol
+     * @param exchange Exchange code
+     * @param interval Time interval
+     * @param from     Inclusive start, epoch seconds
+     * @param to       Inclusive end, epoch seconds
+     * @return CandleSeries view
+     * @throws IOException if the file cannot be opened
+     */
+    public CandleSeries read(String symbol, String exchange, String interval, long from, long to) throws IOException {
+        CandleSeries all = table(symbol, exchange, interval).view();
+        int start = all.lowerBound(from);
+        int end = to == Long.MAX_VALUE ? all.size() : all.lowerBound(to + 1);
+        return ((MappedCandles) all).slice(start, Math.max(start, end));
+    }
+
+    /**
+     * Reads every stored candle.
+     */
+    public CandleSeries read(String symbol, String exchange, String interval) throws IOException {
+        return table(symbol, exchange, interval).view();
+    }
+
+    /**
+     * Gets the timestamp of the last stored candle.
+     *
+     * @return epoch seconds, or 0 if nothing is stored
+     * @throws IOException if the file cannot be opened
+     */
+    public long lastTimestamp(String symbol, String exchange, String interval) throws IOException {
+        return table(symbol, exchange, interval).lastTimestamp();
+    }
+
+    /**
+     * Gets the directory this store writes to.
+     *
+     * @return root directory
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Closes all open files. Views handed out earlier stay readable.
+     */
+    @Override
+    public void close() throws IOException {
+        for (Table table : tables.values()) {
+            table.close();
+        }
+        tables.clear();
+    }
+
+    private Table table(String symbol, String exchange, String interval) throws IOException {
+        String key = exchange + ":" + symbol + ":" + interval;
+        Table table = tables.get(key);
+        if (table != null) {
+            return table;
+        }
+        synchronized (tables) {
+            table = tables.get(key);
+            if (table == null) {
+                Path path = root.resolve(safeName(exchange)).resolve(safeName(symbol) + "_" + safeName(interval) + ".ohlcv");
+                table = new Table(path);
+                tables.put(key, table);
+            }
+            return table;
+        }
+    }
+
+    private static String safeName(String part) {
+        return part.replace('/', '_').replace('\\', '_').replace(':', '_');
+    }
+
+    private static int columnOffset(int capacity, int column, int index) {
+        // Computed in long so a large capacity fails instead of wrapping into another column
+        return Math.toIntExact(HEADER_SIZE + ((long) column * capacity + index) * 8);
+    }
+
+    /**
+     * Mapping, capacity and row count of a table, published together so a reader never pairs
+     * a grown mapping with the old capacity.
+     */
+    private static final class State {
+        final MappedByteBuffer buffer;
+        final int capacity;
+        final int count;
+
+        State(MappedByteBuffer buffer, int capacity, int count) {
+            this.buffer = buffer;
+            this.capacity = capacity;
+            this.count = count;
+        }
+    }
+
+    /**
+     * One memory-mapped candle file. Appends are serialized and publish a new {@link State};
+     * readers take one snapshot of it and need no lock.
+     */
+    private static final class Table {
+        private final Path path;
+        private FileChannel channel;
+        private volatile State state;
+
+        Table(Path path) throws IOException {
+            this.path = path;
+            if (Files.exists(path)) {
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                if (mapped.capacity() < HEADER_SIZE || mapped.getInt(0) != MAGIC) {
+                    channel.close();
+                    throw new IOException("Not a candle store file: " + path);
+                }
+                if (mapped.getInt(4) != FORMAT_VERSION) {
+                    channel.close();
+                    throw new IOException("Unsupported candle store version " + mapped.getInt(4) + ": " + path);
+                }
+                state = new State(mapped, mapped.getInt(8), mapped.getInt(12));
+            } else {
+                Files.createDirectories(path.getParent());
+                channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+                state = new State(create(channel, INITIAL_CAPACITY), INITIAL_CAPACITY, 0);
+            }
+        }
+
+        private static MappedByteBuffer create(FileChannel channel, int capacity) throws IOException {
+            long size = HEADER_SIZE + (long) COLUMNS * capacity * 8;
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Candle file would exceed 2 GB: capacity " + capacity);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            mapped.putInt(0, MAGIC);
+            mapped.putInt(4, FORMAT_VERSION);
+            mapped.putInt(8, capacity);
+            mapped.putInt(12, 0);
+            return mapped;
+        }
+
+        long lastTimestamp() {
+            State s = state;
+            return timestamp(s, s.count - 1);
+        }
+
+        // Timestamp of a row, 0 for index -1
+        private static long timestamp(State s, int index) {
+            return index < 0 ? 0 : s.buffer.getLong(columnOffset(s.capacity, COL_TIMESTAMP, index));
+        }
+
+        MappedCandles view() {
+            State s = state;
+            return new MappedCandles(s.buffer, s.capacity, 0, s.count);
+        }
+
+        /**
+         * Appends candles newer than the last stored one.
+         *
+         * @param replaceLast Also overwrite the last stored candle with the candle of the same
+         *                    timestamp, if {@code candles} has one
+         */
+        synchronized int append(CandleSeries candles, boolean replaceLast) throws IOException {
+            State s = state;
+            int n = s.count;
+            long last = timestamp(s, n - 1);
+            if (replaceLast && n > 0) {
+                int same = candles.lowerBound(last);
+                if (same < candles.size() && candles.timestamp(same) == last) {
+                    n--;
+                    last = timestamp(s, n - 1);
+                }
+            }
+            int first = candles.lowerBound(last + 1);
+            int added = candles.size() - first;
+            if (added <= 0) {
+                return 0;
+            }
+            if (n + added > s.capacity) {
+                s = grow(s, n + added);
+            }
+
+            MappedByteBuffer mapped = s.buffer;
+            int cap = s.capacity;
+            for (int i = first; i < candles.size(); i++) {
+                long ts = candles.timestamp(i);
+                if (ts <= last) {
+                    added--;
+                    continue;
+                }
+                mapped.putLong(columnOffset(cap, COL_TIMESTAMP, n), ts);
+                mapped.putDouble(columnOffset(cap, COL_OPEN, n), candles.open(i));
+                mapped.putDouble(columnOffset(cap, COL_HIGH, n), candles.high(i));
+                mapped.putDouble(columnOffset(cap, COL_LOW, n), candles.low(i));
+                mapped.putDouble(columnOffset(cap, COL_CLOSE, n), candles.close(i));
+                mapped.putLong(columnOffset(cap, COL_VOLUME, n), candles.volume(i));
+                last = ts;
+                n++;
+            }
+            mapped.putInt(12, n);
+            mapped.force();
+            state = new State(mapped, cap, n);
+            return added;
+        }
+
+        /**
+         * Rewrites the file with a larger capacity. Columns move, so the data is copied into a
+         * temporary file which then atomically replaces the original. Existing views keep the
+         * old mapping. The grown state is published with the old row count.
+         */
+        private State grow(State s, int required) throws IOException {
+            long newCapacity = s.capacity;
+            while (newCapacity < required) {
+                newCapacity *= 2;
+            }
+            if (newCapacity > Integer.MAX_VALUE) {
+                throw new IOException("Candle file capacity overflow: " + path);
+            }
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            FileChannel newChannel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer grown;
+            try {
+                grown = create(newChannel, (int) newCapacity);
+            } catch (IOException e) {
+                newChannel.close();
+                Files.deleteIfExists(tmp);
+                throw e;
+            }
+
+            int n = s.count;
+            for (int col = 0; col < COLUMNS; col++) {
+                ByteBuffer src = s.buffer.duplicate();
+                src.position(columnOffset(s.capacity, col, 0));
+                src.limit(columnOffset(s.capacity, col, n));
+                ByteBuffer dst = grown.duplicate();
+                dst.position(columnOffset((int) newCapacity, col, 0));
+                dst.put(src);
+            }
+            grown.putInt(12, n);
+            grown.force();
+
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel.close();
+            channel = newChannel;
+            State next = new State(grown, (int) newCapacity, n);
+            state = next;
+            return next;
+        }
+
+        synchronized void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Zero-copy candle view over a mapped file.
+     */
+    private static final class MappedCandles implements CandleSeries {
+        private final ByteBuffer buffer;
+        private final int capacity;
+        private final int start;
+        private final int size;
+
+        MappedCandles(ByteBuffer buffer, int capacity, int start, int size) {
+            this.buffer = buffer;
+            this.capacity = capacity;
+            this.start = start;
+            this.size = size;
+        }
+
+        MappedCandles slice(int from, int to) {
+            return new MappedCandles(buffer, capacity, start + from, to - from);
+        }
+
+        private int offset(int column, int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+            }
+            return columnOffset(capacity, column, start + index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public long timestamp(int index) {
+            return buffer.getLong(offset(COL_TIMESTAMP, index));
+        }
+
+        @Override
+        public double open(int index) {
+            return buffer.getDouble(offset(COL_OPEN, index));
+        }
+
+        @Override
+        public double high(int index) {
+            return buffer.getDouble(offset(COL_HIGH, index));
+        }
+
+        @Override
+        public double low(int index) {
+            return buffer.getDouble(offset(COL_LOW, index));
+        }
+
+        @Override
+        public double close(int index) {
+            return buffer.getDouble(offset(COL_CLOSE, index));
+        }
+
+        @Override
+        public long volume(int index) {
+            return buffer.getLong(offset(COL_VOLUME, index));
+        }
+    }
+}
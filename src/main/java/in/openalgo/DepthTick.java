@@ -0,0 +1,139 @@
+package in.openalgo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Depth mode (3) update: LTP and the order book levels, best first.
+ */
+public final class DepthTick extends Tick {
+
+    boolean hasDepth;
+    int buyLevels;
+    int sellLevels;
+    double[] buyPrice = new double[5];
+    long[] buyQuantity = new long[5];
+    int[] buyOrders = new int[5];
+    double[] sellPrice = new double[5];
+    long[] sellQuantity = new long[5];
+    int[] sellOrders = new int[5];
+
+    @Override
+    public int getMode() {
+        return 3;
+    }
+
+    /** @return Number of bid levels */
+    public int getBuyLevels() {
+        return buyLevels;
+    }
+
+    /** @return Number of ask levels */
+    public int getSellLevels() {
+        return sellLevels;
+    }
+
+    public double getBuyPrice(int level) {
+        return buyPrice[level];
+    }
+
+    public long getBuyQuantity(int level) {
+        return buyQuantity[level];
+    }
+
+    public int getBuyOrders(int level) {
+        return buyOrders[level];
+    }
+
+    public double getSellPrice(int level) {
+        return sellPrice[level];
+    }
+
+    public long getSellQuantity(int level) {
+        return sellQuantity[level];
+    }
+
+    public int getSellOrders(int level) {
+        return sellOrders[level];
+    }
+
+    void ensureLevels(int levels) {
+        if (levels > buyPrice.length) {
+            buyPrice = Arrays.copyOf(buyPrice, levels);
+            buyQuantity = Arrays.copyOf(buyQuantity, levels);
+            buyOrders = Arrays.copyOf(buyOrders, levels);
+            sellPrice = Arrays.copyOf(sellPrice, levels);
+            sellQuantity = Arrays.copyOf(sellQuantity, levels);
+            sellOrders = Arrays.copyOf(sellOrders, levels);
+        }
+    }
+
+    void copyFrom(DepthTick tick) {
+        id = tick.id;
+        exchange = tick.exchange;
+        symbol = tick.symbol;
+        ltp = tick.ltp;
+        timestamp = tick.timestamp;
+        hasDepth = tick.hasDepth;
+        buyLevels = tick.buyLevels;
+        sellLevels = tick.sellLevels;
+        ensureLevels(Math.max(buyLevels, sellLevels));
+        System.arraycopy(tick.buyPrice, 0, buyPrice, 0, buyLevels);
+        System.arraycopy(tick.buyQuantity, 0, buyQuantity, 0, buyLevels);
+        System.arraycopy(tick.buyOrders, 0, buyOrders, 0, buyLevels);
+        System.arraycopy(tick.sellPrice, 0, sellPrice, 0, sellLevels);
+        System.arraycopy(tick.sellQuantity, 0, sellQuantity, 0, sellLevels);
+        System.arraycopy(tick.sellOrders, 0, sellOrders, 0, sellLevels);
+    }
+
+    @Override
+    public DepthTick copy() {
+        DepthTick tick = new DepthTick();
+        tick.copyFrom(this);
+        return tick;
+    }
+
+    @Override
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("ltp", ltp);
+        map.put("timestamp", timestamp);
+        if (hasDepth) {
+            // Same shape and number types as the parsed JSON
+            Map<String, Object> depth = new HashMap<>();
+            depth.put("buy", levels(buyPrice, buyQuantity, buyOrders, buyLevels));
+            depth.put("sell", levels(sellPrice, sellQuantity, sellOrders, sellLevels));
+            map.put("depth", depth);
+        }
+        return map;
+    }
+
+    private static List<Map<String, Object>> levels(double[] price, long[] quantity, int[] orders, int count) {
+        List<Map<String, Object>> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> level = new HashMap<>();
+            level.put("price", price[i]);
+            level.put("quantity", (double) quantity[i]);
+            level.put("orders", (double) orders[i]);
+            list.add(level);
+        }
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("DepthTick{").append(exchange).append(':').append(symbol)
+                .append(" ltp=").append(ltp).append(" buy=[");
+        for (int i = 0; i < buyLevels; i++) {
+            sb.append(i > 0 ? ", " : "").append(buyQuantity[i]).append('@').append(buyPrice[i]);
+        }
+        sb.append("] sell=[");
+        for (int i = 0; i < sellLevels; i++) {
+            sb.append(i > 0 ? ", " : "").append(sellQuantity[i]).append('@').append(sellPrice[i]);
+        }
+        return sb.append("] ts=").append(timestamp).append('}').toString();
+    }
+}
@@ -2,17 +2,17 @@ package in.openalgo;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.handshake.ServerHandshake;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
@@ -27,16 +27,37 @@ public abstract class FeedApi extends UtilitiesApi {
     private volatile boolean authenticated = false;
     private final Gson gson = new Gson();
 
-    // Thread-safe data caches
-    private final ConcurrentHashMap<String, Map<String, Object>> ltpData = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, Map<String, Object>> quotesData = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, Map<String, Object>> depthData = new ConcurrentHashMap<>();
+    // Data caches indexed by instrument id; each cached tick is updated in place under its own lock.
+    // Slots are created, cleared and the arrays grown under cacheLock.
+    private final InstrumentRegistry registry = new InstrumentRegistry();
+    private final Object cacheLock = new Object();
+    private volatile LtpTick[] ltpData = new LtpTick[64];
+    private volatile QuoteTick[] quotesData = new QuoteTick[64];
+    private volatile DepthTick[] depthData = new DepthTick[64];
+
+    // Subscription reference counts per mode (index mode - 1) and instrument id, under cacheLock.
+    // Components sharing an instrument each hold a reference; it is dropped at the last release.
+    private int[][] subscriptions = new int[3][64];
+
+    // Flyweight ticks, reused for every message on the WebSocket thread
+    private final LtpTick ltpTick = new LtpTick();
+    private final QuoteTick quoteTick = new QuoteTick();
+    private final DepthTick depthTick = new DepthTick();
+
+    // Decodes messages on the WebSocket thread without building a JSON tree
+    private final FeedDecoder decoder = new FeedDecoder();
 
     // Callbacks
     private Consumer<Map<String, Object>> ltpCallback;
     private Consumer<Map<String, Object>> quoteCallback;
     private Consumer<Map<String, Object>> depthCallback;
 
+    // Additional listeners that receive every market data update, regardless of mode
+    private final CopyOnWriteArrayList<Consumer<Map<String, Object>>> marketDataListeners = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<TickListener> tickListeners = new CopyOnWriteArrayList<>();
+    // Written only by the WebSocket thread
+    private volatile long listenerErrors;
+
     // Connection latch
     private CountDownLatch authLatch;
 
@@ -112,9 +133,14 @@ public abstract class FeedApi extends UtilitiesApi {
         }
         connected = false;
         authenticated = false;
-        ltpData.clear();
-        quotesData.clear();
-        depthData.clear();
+        synchronized (cacheLock) {
+            Arrays.fill(ltpData, null);
+            Arrays.fill(quotesData, null);
+            Arrays.fill(depthData, null);
+            for (int[] counts : subscriptions) {
+                Arrays.fill(counts, 0);
+            }
+        }
     }
 
     private void authenticate() {
@@ -126,19 +152,16 @@ public abstract class FeedApi extends UtilitiesApi {
 
     private void processMessage(String message) {
         try {
-            JsonObject json = JsonParser.parseString(message).getAsJsonObject();
-            String type = json.has("type") ? json.get("type").getAsString() : "";
-
-            switch (type) {
-                case "auth":
-                    if (json.has("status") && "success".equals(json.get("status").getAsString())) {
+            switch (decoder.decode(message)) {
+                case FeedDecoder.AUTH:
+                    if (decoder.success) {
                         authenticated = true;
                     }
                     authLatch.countDown();
                     break;
 
-                case "market_data":
-                    handleMarketData(json);
+                case FeedDecoder.MARKET_DATA:
+                    handleMarketData();
                     break;
 
                 default:
@@ -149,106 +172,249 @@ public abstract class FeedApi extends UtilitiesApi {
         }
     }
 
-    private void handleMarketData(JsonObject json) {
-        String exchange = json.has("exchange") ? json.get("exchange").getAsString() : "";
-        String symbol = json.has("symbol") ? json.get("symbol").getAsString() : "";
-        int mode = json.has("mode") ? json.get("mode").getAsInt() : 0;
-        String key = exchange + ":" + symbol;
-
-        JsonObject data = json.has("data") ? json.get("data").getAsJsonObject() : new JsonObject();
+    private void handleMarketData() {
+        FeedDecoder d = decoder;
+        int id = registry.find(d.exchange, d.symbol);
+        if (id < 0 || id >= ltpData.length) {
+            // First message of an instrument not subscribed through this client
+            id = register(d.exchange.toString(), d.symbol.toString());
+        }
 
-        switch (mode) {
+        switch (d.mode) {
             case 1: // LTP
-                handleLtpData(key, exchange, symbol, data);
+                handleLtpData(id);
                 break;
             case 2: // Quote
-                handleQuoteData(key, exchange, symbol, data);
+                handleQuoteData(id);
                 break;
             case 3: // Depth
-                handleDepthData(key, exchange, symbol, data);
+                handleDepthData(id);
                 break;
         }
     }
 
-    private void handleLtpData(String key, String exchange, String symbol, JsonObject data) {
-        Map<String, Object> ltpInfo = new HashMap<>();
-        ltpInfo.put("ltp", data.has("ltp") ? data.get("ltp").getAsDouble() : 0);
-        ltpInfo.put("timestamp", data.has("timestamp") ? data.get("timestamp").getAsLong() : 0);
-        ltpData.put(key, ltpInfo);
+    private void handleLtpData(int id) {
+        LtpTick tick = ltpTick;
+        tick.set(id, registry.getExchange(id), registry.getSymbol(id), decoder.ltp, decoder.timestamp);
+        LtpTick cached = ltpData[id];
+        if (cached == null) {
+            cached = (LtpTick) cacheSlot(1, id);
+        }
+        synchronized (cached) {
+            cached.copyFrom(tick);
+        }
+        for (TickListener listener : tickListeners) {
+            try {
+                listener.onLtp(tick);
+            } catch (RuntimeException e) {
+                // One failing component must not starve the other listeners
+                listenerErrors++;
+            }
+        }
+        publish(ltpCallback, tick);
+    }
 
-        if (ltpCallback != null) {
-            Map<String, Object> callbackData = new HashMap<>();
-            callbackData.put("type", "market_data");
-            callbackData.put("symbol", symbol);
-            callbackData.put("exchange", exchange);
-            callbackData.put("mode", 1);
-            callbackData.put("data", ltpInfo);
-            ltpCallback.accept(callbackData);
+    private void handleQuoteData(int id) {
+        FeedDecoder d = decoder;
+        QuoteTick tick = quoteTick;
+        tick.id = id;
+        tick.exchange = registry.getExchange(id);
+        tick.symbol = registry.getSymbol(id);
+        tick.open = d.open;
+        tick.high = d.high;
+        tick.low = d.low;
+        tick.close = d.close;
+        tick.ltp = d.ltp;
+        tick.volume = d.volume;
+        tick.oi = d.oi;
+        tick.timestamp = d.timestamp;
+        QuoteTick cached = quotesData[id];
+        if (cached == null) {
+            cached = (QuoteTick) cacheSlot(2, id);
+        }
+        synchronized (cached) {
+            cached.copyFrom(tick);
         }
+        for (TickListener listener : tickListeners) {
+            try {
+                listener.onQuote(tick);
+            } catch (RuntimeException e) {
+                // One failing component must not starve the other listeners
+                listenerErrors++;
+            }
+        }
+        publish(quoteCallback, tick);
     }
 
-    private void handleQuoteData(String key, String exchange, String symbol, JsonObject data) {
-        Map<String, Object> quoteInfo = new HashMap<>();
-        quoteInfo.put("open", data.has("open") ? data.get("open").getAsDouble() : 0);
-        quoteInfo.put("high", data.has("high") ? data.get("high").getAsDouble() : 0);
-        quoteInfo.put("low", data.has("low") ? data.get("low").getAsDouble() : 0);
-        quoteInfo.put("close", data.has("close") ? data.get("close").getAsDouble() : 0);
-        quoteInfo.put("ltp", data.has("ltp") ? data.get("ltp").getAsDouble() : 0);
-        quoteInfo.put("volume", data.has("volume") ? data.get("volume").getAsLong() : 0);
-        quoteInfo.put("timestamp", data.has("timestamp") ? data.get("timestamp").getAsLong() : 0);
-        quotesData.put(key, quoteInfo);
+    private void handleDepthData(int id) {
+        FeedDecoder d = decoder;
+        DepthTick tick = depthTick;
+        tick.id = id;
+        tick.exchange = registry.getExchange(id);
+        tick.symbol = registry.getSymbol(id);
+        tick.ltp = d.ltp;
+        tick.timestamp = d.timestamp;
+        tick.hasDepth = d.hasDepth;
+        tick.buyLevels = d.buyLevels;
+        tick.sellLevels = d.sellLevels;
+        tick.ensureLevels(Math.max(d.buyLevels, d.sellLevels));
+        System.arraycopy(d.buyPrice, 0, tick.buyPrice, 0, d.buyLevels);
+        System.arraycopy(d.buyQuantity, 0, tick.buyQuantity, 0, d.buyLevels);
+        System.arraycopy(d.buyOrders, 0, tick.buyOrders, 0, d.buyLevels);
+        System.arraycopy(d.sellPrice, 0, tick.sellPrice, 0, d.sellLevels);
+        System.arraycopy(d.sellQuantity, 0, tick.sellQuantity, 0, d.sellLevels);
+        System.arraycopy(d.sellOrders, 0, tick.sellOrders, 0, d.sellLevels);
+        DepthTick cached = depthData[id];
+        if (cached == null) {
+            cached = (DepthTick) cacheSlot(3, id);
+        }
+        synchronized (cached) {
+            cached.copyFrom(tick);
+        }
+        for (TickListener listener : tickListeners) {
+            try {
+                listener.onDepth(tick);
+            } catch (RuntimeException e) {
+                // One failing component must not starve the other listeners
+                listenerErrors++;
+            }
+        }
+        publish(depthCallback, tick);
+    }
 
-        if (quoteCallback != null) {
-            Map<String, Object> callbackData = new HashMap<>();
-            callbackData.put("type", "market_data");
-            callbackData.put("symbol", symbol);
-            callbackData.put("exchange", exchange);
-            callbackData.put("mode", 2);
-            callbackData.put("data", quoteInfo);
-            quoteCallback.accept(callbackData);
+    // Assigns an id and grows the caches to cover it
+    private int register(String exchange, String symbol) {
+        synchronized (cacheLock) {
+            int id = registry.register(exchange, symbol);
+            if (id >= ltpData.length) {
+                int capacity = Math.max(ltpData.length * 2, id + 1);
+                ltpData = Arrays.copyOf(ltpData, capacity);
+                quotesData = Arrays.copyOf(quotesData, capacity);
+                depthData = Arrays.copyOf(depthData, capacity);
+                for (int m = 0; m < subscriptions.length; m++) {
+                    subscriptions[m] = Arrays.copyOf(subscriptions[m], capacity);
+                }
+            }
+            return id;
         }
     }
 
-    private void handleDepthData(String key, String exchange, String symbol, JsonObject data) {
-        Map<String, Object> depthInfo = new HashMap<>();
-        depthInfo.put("ltp", data.has("ltp") ? data.get("ltp").getAsDouble() : 0);
-        depthInfo.put("timestamp", data.has("timestamp") ? data.get("timestamp").getAsLong() : 0);
-        if (data.has("depth")) {
-            depthInfo.put("depth", gson.fromJson(data.get("depth"), Map.class));
+    // Creates the cached tick of an instrument on its first update
+    private Tick cacheSlot(int mode, int id) {
+        synchronized (cacheLock) {
+            Tick[] cache = cache(mode);
+            if (cache[id] == null) {
+                cache[id] = mode == 1 ? new LtpTick() : mode == 2 ? new QuoteTick() : new DepthTick();
+            }
+            return cache[id];
         }
-        depthData.put(key, depthInfo);
+    }
 
-        if (depthCallback != null) {
-            Map<String, Object> callbackData = new HashMap<>();
-            callbackData.put("type", "market_data");
-            callbackData.put("symbol", symbol);
-            callbackData.put("exchange", exchange);
-            callbackData.put("mode", 3);
-            callbackData.put("data", depthInfo);
-            depthCallback.accept(callbackData);
+    private Tick[] cache(int mode) {
+        return mode == 1 ? ltpData : mode == 2 ? quotesData : depthData;
+    }
+
+    // Map-based API: builds the callback envelope only when someone consumes it
+    private void publish(Consumer<Map<String, Object>> callback, Tick tick) {
+        if (callback == null && marketDataListeners.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> callbackData = new HashMap<>();
+        callbackData.put("type", "market_data");
+        callbackData.put("symbol", tick.symbol);
+        callbackData.put("exchange", tick.exchange);
+        callbackData.put("mode", tick.getMode());
+        callbackData.put("data", tick.toMap());
+
+        if (callback != null) {
+            try {
+                callback.accept(callbackData);
+            } catch (RuntimeException e) {
+                listenerErrors++;
+            }
+        }
+        for (Consumer<Map<String, Object>> listener : marketDataListeners) {
+            try {
+                listener.accept(callbackData);
+            } catch (RuntimeException e) {
+                listenerErrors++;
+            }
         }
     }
 
     /**
-     * Subscribe to LTP updates for instruments.
+     * Get the number of exceptions thrown by tick listeners, market data listeners and
+     * subscription callbacks. A failing listener does not stop the others.
+     *
+     * @return Listener exceptions since the client was created
+     */
+    public long getListenerErrors() {
+        return listenerErrors;
+    }
+
+    /**
+     * Add a typed listener that receives every market data update as a primitive tick.
+     * Unlike Map listeners, no Map is built per update. Ticks are reused after the callback
+     * returns; copy them to keep them.
+     *
+     * @param listener Listener for LTP, Quote and Depth ticks
+     */
+    public void addTickListener(TickListener listener) {
+        tickListeners.add(listener);
+    }
+
+    /**
+     * Remove a typed tick listener.
+     *
+     * @param listener Listener added with addTickListener
+     */
+    public void removeTickListener(TickListener listener) {
+        tickListeners.remove(listener);
+    }
+
+    /**
+     * Add a listener that receives every market data update (LTP, Quote and Depth).
+     * Unlike subscription callbacks, listeners are not replaced by later subscribe calls.
+     *
+     * @param listener Listener receiving the same data as subscription callbacks
+     */
+    public void addMarketDataListener(Consumer<Map<String, Object>> listener) {
+        marketDataListeners.add(listener);
+    }
+
+    /**
+     * Remove a market data listener.
+     *
+     * @param listener Listener added with addMarketDataListener
+     */
+    public void removeMarketDataListener(Consumer<Map<String, Object>> listener) {
+        marketDataListeners.remove(listener);
+    }
+
+    /**
+     * Send subscribe messages for instruments without changing the mode callback.
+     * Each call takes a reference on every instrument, released by {@link #unsubscribe}.
      *
      * @param instruments List of instrument maps with exchange, symbol keys
-     * @param callback    Callback function for data updates (optional)
+     * @param mode        1 for LTP, 2 for Quote, 3 for Depth
      * @return true if subscription sent successfully
      */
-    public boolean subscribeLtp(List<Map<String, String>> instruments, Consumer<Map<String, Object>> callback) {
+    boolean subscribe(List<Map<String, String>> instruments, int mode) {
         if (!connected || !authenticated) {
             return false;
         }
 
-        this.ltpCallback = callback;
-
         for (Map<String, String> instrument : instruments) {
+            int id = register(instrument.get("exchange"), instrument.get("symbol"));
+            synchronized (cacheLock) {
+                subscriptions[mode - 1][id]++;
+            }
             JsonObject subMsg = new JsonObject();
             subMsg.addProperty("action", "subscribe");
             subMsg.addProperty("symbol", instrument.get("symbol"));
             subMsg.addProperty("exchange", instrument.get("exchange"));
-            subMsg.addProperty("mode", 1);
+            subMsg.addProperty("mode", mode);
             subMsg.addProperty("depth", 5);
             wsClient.send(gson.toJson(subMsg));
         }
@@ -257,32 +423,40 @@ public abstract class FeedApi extends UtilitiesApi {
     }
 
     /**
-     * Subscribe to LTP updates without callback.
-     */
-    public boolean subscribeLtp(List<Map<String, String>> instruments) {
-        return subscribeLtp(instruments, null);
-    }
-
-    /**
-     * Unsubscribe from LTP updates.
+     * Release a reference on instruments. Instruments still subscribed by another caller keep
+     * streaming; the others are unsubscribed and their cached data dropped.
      *
      * @param instruments List of instrument maps with exchange, symbol keys
+     * @param mode        1 for LTP, 2 for Quote, 3 for Depth
      * @return true if unsubscription sent successfully
      */
-    public boolean unsubscribeLtp(List<Map<String, String>> instruments) {
+    boolean unsubscribe(List<Map<String, String>> instruments, int mode) {
         if (!connected || !authenticated) {
             return false;
         }
 
         for (Map<String, String> instrument : instruments) {
-            String key = instrument.get("exchange") + ":" + instrument.get("symbol");
-            ltpData.remove(key);
+            int id = registry.find(instrument.get("exchange"), instrument.get("symbol"));
+            if (id >= 0) {
+                synchronized (cacheLock) {
+                    Tick[] cache = cache(mode);
+                    if (id < cache.length) {
+                        int[] counts = subscriptions[mode - 1];
+                        if (counts[id] > 1) {
+                            counts[id]--;
+                            continue;
+                        }
+                        counts[id] = 0;
+                        cache[id] = null;
+                    }
+                }
+            }
 
             JsonObject unsubMsg = new JsonObject();
             unsubMsg.addProperty("action", "unsubscribe");
             unsubMsg.addProperty("symbol", instrument.get("symbol"));
             unsubMsg.addProperty("exchange", instrument.get("exchange"));
-            unsubMsg.addProperty("mode", 1);
+            unsubMsg.addProperty("mode", mode);
             wsClient.send(gson.toJson(unsubMsg));
         }
 
@@ -290,30 +464,52 @@ public abstract class FeedApi extends UtilitiesApi {
     }
 
     /**
-     * Subscribe to Quote updates for instruments.
+     * Subscribe to LTP updates for instruments.
      *
      * @param instruments List of instrument maps with exchange, symbol keys
      * @param callback    Callback function for data updates (optional)
      * @return true if subscription sent successfully
      */
-    public boolean subscribeQuote(List<Map<String, String>> instruments, Consumer<Map<String, Object>> callback) {
+    public boolean subscribeLtp(List<Map<String, String>> instruments, Consumer<Map<String, Object>> callback) {
         if (!connected || !authenticated) {
             return false;
         }
 
-        this.quoteCallback = callback;
+        this.ltpCallback = callback;
+        return subscribe(instruments, 1);
+    }
 
-        for (Map<String, String> instrument : instruments) {
-            JsonObject subMsg = new JsonObject();
-            subMsg.addProperty("action", "subscribe");
-            subMsg.addProperty("symbol", instrument.get("symbol"));
-            subMsg.addProperty("exchange", instrument.get("exchange"));
-            subMsg.addProperty("mode", 2);
-            subMsg.addProperty("depth", 5);
-            wsClient.send(gson.toJson(subMsg));
+    /**
+     * Subscribe to LTP updates without callback.
+     */
+    public boolean subscribeLtp(List<Map<String, String>> instruments) {
+        return subscribeLtp(instruments, null);
+    }
+
+    /**
+     * Unsubscribe from LTP updates.
+     *
+     * @param instruments List of instrument maps with exchange, symbol keys
+     * @return true if unsubscription sent successfully
+     */
+    public boolean unsubscribeLtp(List<Map<String, String>> instruments) {
+        return unsubscribe(instruments, 1);
+    }
+
+    /**
+     * Subscribe to Quote updates for instruments.
+     *
+     * @param instruments List of instrument maps with exchange, symbol keys
+     * @param callback    Callback function for data updates (optional)
+     * @return true if subscription sent successfully
+     */
+    public boolean subscribeQuote(List<Map<String, String>> instruments, Consumer<Map<String, Object>> callback) {
+        if (!connected || !authenticated) {
+            return false;
         }
 
-        return true;
+        this.quoteCallback = callback;
+        return subscribe(instruments, 2);
     }
 
     /**
@@ -330,23 +526,7 @@ public abstract class FeedApi extends UtilitiesApi {
      * @return true if unsubscription sent successfully
      */
     public boolean unsubscribeQuote(List<Map<String, String>> instruments) {
-        if (!connected || !authenticated) {
-            return false;
-        }
-
-        for (Map<String, String> instrument : instruments) {
-            String key = instrument.get("exchange") + ":" + instrument.get("symbol");
-            quotesData.remove(key);
-
-            JsonObject unsubMsg = new JsonObject();
-            unsubMsg.addProperty("action", "unsubscribe");
-            unsubMsg.addProperty("symbol", instrument.get("symbol"));
-            unsubMsg.addProperty("exchange", instrument.get("exchange"));
-            unsubMsg.addProperty("mode", 2);
-            wsClient.send(gson.toJson(unsubMsg));
-        }
-
-        return true;
+        return unsubscribe(instruments, 2);
     }
 
     /**
@@ -362,18 +542,7 @@ public abstract class FeedApi extends UtilitiesApi {
         }
 
         this.depthCallback = callback;
-
-        for (Map<String, String> instrument : instruments) {
-            JsonObject subMsg = new JsonObject();
-            subMsg.addProperty("action", "subscribe");
-            subMsg.addProperty("symbol", instrument.get("symbol"));
-            subMsg.addProperty("exchange", instrument.get("exchange"));
-            subMsg.addProperty("mode", 3);
-            subMsg.addProperty("depth", 5);
-            wsClient.send(gson.toJson(subMsg));
-        }
-
-        return true;
+        return subscribe(instruments, 3);
     }
 
     /**
@@ -390,23 +559,7 @@ public abstract class FeedApi extends UtilitiesApi {
      * @return true if unsubscription sent successfully
      */
     public boolean unsubscribeDepth(List<Map<String, String>> instruments) {
-        if (!connected || !authenticated) {
-            return false;
-        }
-
-        for (Map<String, String> instrument : instruments) {
-            String key = instrument.get("exchange") + ":" + instrument.get("symbol");
-            depthData.remove(key);
-
-            JsonObject unsubMsg = new JsonObject();
-            unsubMsg.addProperty("action", "unsubscribe");
-            unsubMsg.addProperty("symbol", instrument.get("symbol"));
-            unsubMsg.addProperty("exchange", instrument.get("exchange"));
-            unsubMsg.addProperty("mode", 3);
-            wsClient.send(gson.toJson(unsubMsg));
-        }
-
-        return true;
+        return unsubscribe(instruments, 3);
     }
 
     /**
@@ -420,14 +573,18 @@ public abstract class FeedApi extends UtilitiesApi {
         Map<String, Object> result = new HashMap<>();
         Map<String, Map<String, Object>> ltpResult = new HashMap<>();
 
-        for (Map.Entry<String, Map<String, Object>> entry : ltpData.entrySet()) {
-            String[] parts = entry.getKey().split(":");
-            String exch = parts[0];
-            String sym = parts[1];
+        Tick[] cache = ltpData;
+        for (int id = 0; id < cache.length; id++) {
+            Tick tick = cache[id];
+            if (tick == null) {
+                continue;
+            }
+            String exch = registry.getExchange(id);
+            String sym = registry.getSymbol(id);
 
             if ((exchange == null || exchange.equals(exch)) && (symbol == null || symbol.equals(sym))) {
                 ltpResult.computeIfAbsent(exch, k -> new HashMap<>());
-                ((Map<String, Object>) ltpResult.get(exch)).put(sym, entry.getValue());
+                ((Map<String, Object>) ltpResult.get(exch)).put(sym, snapshot(tick));
             }
         }
 
@@ -453,14 +610,18 @@ public abstract class FeedApi extends UtilitiesApi {
         Map<String, Object> result = new HashMap<>();
         Map<String, Map<String, Object>> quoteResult = new HashMap<>();
 
-        for (Map.Entry<String, Map<String, Object>> entry : quotesData.entrySet()) {
-            String[] parts = entry.getKey().split(":");
-            String exch = parts[0];
-            String sym = parts[1];
+        Tick[] cache = quotesData;
+        for (int id = 0; id < cache.length; id++) {
+            Tick tick = cache[id];
+            if (tick == null) {
+                continue;
+            }
+            String exch = registry.getExchange(id);
+            String sym = registry.getSymbol(id);
 
             if ((exchange == null || exchange.equals(exch)) && (symbol == null || symbol.equals(sym))) {
                 quoteResult.computeIfAbsent(exch, k -> new HashMap<>());
-                ((Map<String, Object>) quoteResult.get(exch)).put(sym, entry.getValue());
+                ((Map<String, Object>) quoteResult.get(exch)).put(sym, snapshot(tick));
             }
         }
 
@@ -486,14 +647,18 @@ public abstract class FeedApi extends UtilitiesApi {
         Map<String, Object> result = new HashMap<>();
         Map<String, Map<String, Object>> depthResult = new HashMap<>();
 
-        for (Map.Entry<String, Map<String, Object>> entry : depthData.entrySet()) {
-            String[] parts = entry.getKey().split(":");
-            String exch = parts[0];
-            String sym = parts[1];
+        Tick[] cache = depthData;
+        for (int id = 0; id < cache.length; id++) {
+            Tick tick = cache[id];
+            if (tick == null) {
+                continue;
+            }
+            String exch = registry.getExchange(id);
+            String sym = registry.getSymbol(id);
 
             if ((exchange == null || exchange.equals(exch)) && (symbol == null || symbol.equals(sym))) {
                 depthResult.computeIfAbsent(exch, k -> new HashMap<>());
-                ((Map<String, Object>) depthResult.get(exch)).put(sym, entry.getValue());
+                ((Map<String, Object>) depthResult.get(exch)).put(sym, snapshot(tick));
             }
         }
 
@@ -508,6 +673,49 @@ public abstract class FeedApi extends UtilitiesApi {
         return getDepth(null, null);
     }
 
+    /**
+     * Get the cached last traded price of one instrument from LTP, Quote or Depth data.
+     *
+     * @param exchange Exchange code
+     * @param symbol   Trading symbol
+     * @return Last traded price, or NaN if no update has been received
+     */
+    public double getLastPrice(String exchange, String symbol) {
+        int id = registry.find(exchange, symbol);
+        if (id < 0 || id >= ltpData.length) {
+            return Double.NaN;
+        }
+        Tick tick = ltpData[id];
+        if (tick == null) {
+            tick = quotesData[id];
+        }
+        if (tick == null) {
+            tick = depthData[id];
+        }
+        if (tick == null) {
+            return Double.NaN;
+        }
+        synchronized (tick) {
+            return tick.ltp;
+        }
+    }
+
+    private static Map<String, Object> snapshot(Tick tick) {
+        synchronized (tick) {
+            return tick.toMap();
+        }
+    }
+
+    /**
+     * Get the registry of instrument ids used by the feed. Ids are assigned on subscribe and
+     * reported by {@link Tick#getInstrumentId()}.
+     *
+     * @return Instrument registry
+     */
+    public InstrumentRegistry getInstrumentRegistry() {
+        return registry;
+    }
+
     /**
      * Check if WebSocket is connected.
      *
@@ -0,0 +1,527 @@
+package in.openalgo;
+
+import java.util.Arrays;
+
+/**
+ * Single-pass decoder for WebSocket feed messages.
+ *
+ * Scans the message text once and writes the known fields (type, status, mode, exchange,
+ * symbol, ltp, ohlc, volume, oi, timestamp and depth levels) into reusable fields, skipping
+ * everything else. No JSON tree, boxed number or field-name String is created; exchange and
+ * symbol are decoded into reusable builders that can be looked up in an
+ * {@link InstrumentRegistry} directly. One decoder is used by one thread.
+ */
+final class FeedDecoder {
+
+    static final int OTHER = 0;
+    static final int AUTH = 1;
+    static final int MARKET_DATA = 2;
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Decoded message, valid until the next decode()
+    int type;
+    boolean success;
+    int mode;
+    final StringBuilder exchange = new StringBuilder(8);
+    final StringBuilder symbol = new StringBuilder(32);
+    double ltp;
+    double open;
+    double high;
+    double low;
+    double close;
+    long volume;
+    long oi;
+    long timestamp;
+    boolean hasDepth;
+    int buyLevels;
+    int sellLevels;
+    double[] buyPrice = new double[5];
+    long[] buyQuantity = new long[5];
+    int[] buyOrders = new int[5];
+    double[] sellPrice = new double[5];
+    long[] sellQuantity = new long[5];
+    int[] sellOrders = new int[5];
+
+    private String text;
+    private int pos;
+    private final StringBuilder scratch = new StringBuilder(16);
+
+    /**
+     * Decodes one message.
+     *
+     * @param message Message text
+     * @return MARKET_DATA, AUTH or OTHER
+     * @throws IllegalArgumentException if the message is not a JSON object
+     */
+    int decode(String message) {
+        text = message;
+        pos = 0;
+        type = OTHER;
+        success = false;
+        mode = 0;
+        exchange.setLength(0);
+        symbol.setLength(0);
+        ltp = 0;
+        open = 0;
+        high = 0;
+        low = 0;
+        close = 0;
+        volume = 0;
+        oi = -1;
+        timestamp = 0;
+        hasDepth = false;
+        buyLevels = 0;
+        sellLevels = 0;
+
+        skipWhitespace();
+        expect('{');
+        if (!endOfObject()) {
+            do {
+                int key = key();
+                switch (key) {
+                    case K_TYPE:
+                        readString(scratch);
+                        type = equals(scratch, "market_data") ? MARKET_DATA : equals(scratch, "auth") ? AUTH : OTHER;
+                        break;
+                    case K_STATUS:
+                        readString(scratch);
+                        success = equals(scratch, "success");
+                        break;
+                    case K_MODE:
+                        mode = (int) readNumber();
+                        break;
+                    case K_EXCHANGE:
+                        readString(exchange);
+                        break;
+                    case K_SYMBOL:
+                        readString(symbol);
+                        break;
+                    case K_DATA:
+                        readData();
+                        break;
+                    default:
+                        skipValue();
+                        break;
+                }
+            } while (nextMember());
+        }
+        return type;
+    }
+
+    private void readData() {
+        if (peek() != '{') {
+            skipValue();
+            return;
+        }
+        pos++;
+        if (endOfObject()) {
+            return;
+        }
+        do {
+            switch (key()) {
+                case K_LTP:
+                    ltp = readNumber();
+                    break;
+                case K_OPEN:
+                    open = readNumber();
+                    break;
+                case K_HIGH:
+                    high = readNumber();
+                    break;
+                case K_LOW:
+                    low = readNumber();
+                    break;
+                case K_CLOSE:
+                    close = readNumber();
+                    break;
+                case K_VOLUME:
+                    volume = (long) readNumber();
+                    break;
+                case K_OI:
+                    if (peek() == 'n') {
+                        skipLiteral();
+                    } else {
+                        oi = (long) readNumber();
+                    }
+                    break;
+                case K_TIMESTAMP:
+                    timestamp = (long) readNumber();
+                    break;
+                case K_DEPTH:
+                    readDepth();
+                    break;
+                default:
+                    skipValue();
+                    break;
+            }
+        } while (nextMember());
+    }
+
+    private void readDepth() {
+        if (peek() != '{') {
+            skipValue();
+            return;
+        }
+        pos++;
+        hasDepth = true;
+        if (endOfObject()) {
+            return;
+        }
+        do {
+            int key = key();
+            if (key == K_BUY) {
+                buyLevels = readLevels(true);
+            } else if (key == K_SELL) {
+                sellLevels = readLevels(false);
+            } else {
+                skipValue();
+            }
+        } while (nextMember());
+    }
+
+    private int readLevels(boolean buy) {
+        if (peek() != '[') {
+            skipValue();
+            return 0;
+        }
+        pos++;
+        skipWhitespace();
+        if (text.charAt(pos) == ']') {
+            pos++;
+            return 0;
+        }
+        int n = 0;
+        do {
+            ensureLevels(n + 1);
+            double price = 0;
+            long quantity = 0;
+            int orders = 0;
+            if (peek() == '{') {
+                pos++;
+                if (!endOfObject()) {
+                    do {
+                        switch (key()) {
+                            case K_PRICE:
+                                price = readNumber();
+                                break;
+                            case K_QUANTITY:
+                                quantity = (long) readNumber();
+                                break;
+                            case K_ORDERS:
+                                orders = (int) readNumber();
+                                break;
+                            default:
+                                skipValue();
+                                break;
+                        }
+                    } while (nextMember());
+                }
+            } else {
+                skipValue();
+            }
+            if (buy) {
+                buyPrice[n] = price;
+                buyQuantity[n] = quantity;
+                buyOrders[n] = orders;
+            } else {
+                sellPrice[n] = price;
+                sellQuantity[n] = quantity;
+                sellOrders[n] = orders;
+            }
+            n++;
+        } while (nextElement());
+        return n;
+    }
+
+    private void ensureLevels(int levels) {
+        if (levels > buyPrice.length) {
+            int capacity = Math.max(levels, buyPrice.length * 2);
+            buyPrice = Arrays.copyOf(buyPrice, capacity);
+            buyQuantity = Arrays.copyOf(buyQuantity, capacity);
+            buyOrders = Arrays.copyOf(buyOrders, capacity);
+            sellPrice = Arrays.copyOf(sellPrice, capacity);
+            sellQuantity = Arrays.copyOf(sellQuantity, capacity);
+            sellOrders = Arrays.copyOf(sellOrders, capacity);
+        }
+    }
+
+    // Field names the decoder knows
+    private static final int K_OTHER = 0;
+    private static final int K_TYPE = 1;
+    private static final int K_STATUS = 2;
+    private static final int K_MODE = 3;
+    private static final int K_EXCHANGE = 4;
+    private static final int K_SYMBOL = 5;
+    private static final int K_DATA = 6;
+    private static final int K_LTP = 7;
+    private static final int K_OPEN = 8;
+    private static final int K_HIGH = 9;
+    private static final int K_LOW = 10;
+    private static final int K_CLOSE = 11;
+    private static final int K_VOLUME = 12;
+    private static final int K_OI = 13;
+    private static final int K_TIMESTAMP = 14;
+    private static final int K_DEPTH = 15;
+    private static final int K_BUY = 16;
+    private static final int K_SELL = 17;
+    private static final int K_PRICE = 18;
+    private static final int K_QUANTITY = 19;
+    private static final int K_ORDERS = 20;
+
+    private static final String[] KEYS = {
+            null, "type", "status", "mode", "exchange", "symbol", "data", "ltp", "open", "high", "low",
+            "close", "volume", "oi", "timestamp", "depth", "buy", "sell", "price", "quantity", "orders"
+    };
+
+    // Reads a member name and the colon after it; names are compared in place
+    private int key() {
+        skipWhitespace();
+        expect('"');
+        int start = pos;
+        int end = start;
+        char c;
+        while ((c = text.charAt(end)) != '"' && c != '\\') {
+            end++;
+        }
+        int key = K_OTHER;
+        if (c == '"') {
+            int length = end - start;
+            for (int k = 1; k < KEYS.length; k++) {
+                String name = KEYS[k];
+                if (name.length() == length && text.regionMatches(start, name, 0, length)) {
+                    key = k;
+                    break;
+                }
+            }
+            pos = end + 1;
+        } else {
+            // Escaped names are never known fields
+            pos = start - 1;
+            readString(scratch);
+        }
+        skipWhitespace();
+        expect(':');
+        skipWhitespace();
+        return key;
+    }
+
+    private void readString(StringBuilder out) {
+        out.setLength(0);
+        skipWhitespace();
+        if (text.charAt(pos) == 'n') {
+            skipLiteral();
+            return;
+        }
+        if (text.charAt(pos) != '"') {
+            // Unquoted scalar read as text
+            int start = pos;
+            skipLiteral();
+            out.append(text, start, pos);
+            return;
+        }
+        pos++;
+        while (true) {
+            char c = text.charAt(pos++);
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                char e = text.charAt(pos++);
+                switch (e) {
+                    case 'n':
+                        out.append('\n');
+                        break;
+                    case 't':
+                        out.append('\t');
+                        break;
+                    case 'r':
+                        out.append('\r');
+                        break;
+                    case 'b':
+                        out.append('\b');
+                        break;
+                    case 'f':
+                        out.append('\f');
+                        break;
+                    case 'u':
+                        out.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default:
+                        out.append(e);
+                        break;
+                }
+            } else {
+                out.append(c);
+            }
+        }
+    }
+
+    // Reads a number, also when sent as a string; null reads as 0
+    private double readNumber() {
+        skipWhitespace();
+        char c = text.charAt(pos);
+        if (c == '"') {
+            readString(scratch);
+            return scratch.length() == 0 ? 0 : Double.parseDouble(scratch.toString());
+        }
+        if (c == 'n' || c == 't' || c == 'f') {
+            skipLiteral();
+            return 0;
+        }
+        int start = pos;
+        boolean negative = c == '-';
+        if (negative) {
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        int length = text.length();
+        while (pos < length && (c = text.charAt(pos)) >= '0' && c <= '9') {
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else {
+                scale++;
+            }
+            pos++;
+        }
+        if (pos < length && text.charAt(pos) == '.') {
+            pos++;
+            while (pos < length && (c = text.charAt(pos)) >= '0' && c <= '9') {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    scale--;
+                }
+                pos++;
+            }
+        }
+        boolean exponent = pos < length && (text.charAt(pos) == 'e' || text.charAt(pos) == 'E');
+        if (exponent || digits > 15 || scale < -22 || scale > 22) {
+            // Outside the exact fast path
+            if (exponent) {
+                pos++;
+                if (text.charAt(pos) == '+' || text.charAt(pos) == '-') {
+                    pos++;
+                }
+                while (pos < length && Character.isDigit(text.charAt(pos))) {
+                    pos++;
+                }
+            }
+            return Double.parseDouble(text.substring(start, pos));
+        }
+        // Mantissa below 2^53 and an exact power of ten: a single rounding, like parseDouble
+        double value = scale < 0 ? mantissa / POW10[-scale] : mantissa * POW10[scale];
+        return negative ? -value : value;
+    }
+
+    private void skipValue() {
+        skipWhitespace();
+        char c = text.charAt(pos);
+        if (c == '"') {
+            readString(scratch);
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            boolean inString = false;
+            while (true) {
+                c = text.charAt(pos++);
+                if (inString) {
+                    if (c == '\\') {
+                        pos++;
+                    } else if (c == '"') {
+                        inString = false;
+                    }
+                } else if (c == '"') {
+                    inString = true;
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    if (--depth == 0) {
+                        return;
+                    }
+                }
+            }
+        } else {
+            skipLiteral();
+        }
+    }
+
+    private void skipLiteral() {
+        int length = text.length();
+        while (pos < length) {
+            char c = text.charAt(pos);
+            if (c == ',' || c == '}' || c == ']' || c <= ' ') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    // After a member value: true if another member follows, false at the closing brace
+    private boolean nextMember() {
+        skipWhitespace();
+        char c = text.charAt(pos++);
+        if (c == ',') {
+            return true;
+        }
+        if (c == '}') {
+            return false;
+        }
+        throw new IllegalArgumentException("Expected ',' or '}' at " + (pos - 1));
+    }
+
+    // After an array element: true if another element follows, false at the closing bracket
+    private boolean nextElement() {
+        skipWhitespace();
+        char c = text.charAt(pos++);
+        if (c == ',') {
+            skipWhitespace();
+            return true;
+        }
+        if (c == ']') {
+            return false;
+        }
+        throw new IllegalArgumentException("Expected ',' or ']' at " + (pos - 1));
+    }
+
+    private boolean endOfObject() {
+        skipWhitespace();
+        if (text.charAt(pos) == '}') {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private char peek() {
+        skipWhitespace();
+        return text.charAt(pos);
+    }
+
+    private void expect(char c) {
+        if (text.charAt(pos) != c) {
+            throw new IllegalArgumentException("Expected '" + c + "' at " + pos);
+        }
+        pos++;
+    }
+
+    private void skipWhitespace() {
+        while (pos < text.length() && text.charAt(pos) <= ' ') {
+            pos++;
+        }
+    }
+
+    private static boolean equals(StringBuilder sb, String s) {
+        return s.contentEquals(sb);
+    }
+}
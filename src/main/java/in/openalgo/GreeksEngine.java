@@ -0,0 +1,290 @@
+package in.openalgo;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Local Black-Scholes greeks for whole option chains.
+ *
+ * A {@link Chain} holds one underlying's contracts in primitive arrays. {@link #compute(Chain)}
+ * fills price, delta, gamma, theta, vega and rho for every contract in a single branch-light
+ * loop, and {@link #computeAll(Collection)} spreads many chains across cores.
+ *
+ * Units follow the optiongreeks() response: volatility and interest rate in percent, theta
+ * per calendar day, vega and rho per 1% change. Expiry is at 15:30 IST. To price off a
+ * futures/forward price (Black-76), pass the forward as spot with a zero rate.
+ *
+ * Example usage:
+ * <pre>
+ * GreeksEngine.Chain chain = new GreeksEngine.Chain(100);
+ * chain.spot = 25966.05;
+ * double years = GreeksEngine.yearsToExpiry("30-DEC-25", System.currentTimeMillis());
+ * for (...) {
+ *     chain.add(strike, years, isCall, ivPercent);
+ * }
+ * GreeksEngine.compute(chain);
+ * double delta = chain.delta[0];
+ * </pre>
+ */
+public final class GreeksEngine {
+
+    /** Seconds in the 365-day year used for time to expiry. */
+    static final double YEAR_SECONDS = 365 * 86_400.0;
+
+    /** Expiry time of exchange-traded options. */
+    static final LocalTime EXPIRY_TIME = LocalTime.of(15, 30);
+
+    private static final double INV_SQRT_2PI = 0.3989422804014327;
+
+    private GreeksEngine() {
+    }
+
+    /**
+     * Inputs and outputs for one underlying's contracts, indexed by contract.
+     */
+    public static final class Chain {
+        /** Underlying (or forward) price. */
+        public double spot;
+        /** Risk-free rate in percent. */
+        public double rate;
+        /** Number of contracts in use. */
+        public int size;
+
+        // Inputs
+        public double[] strikes;
+        public double[] years;
+        public boolean[] calls;
+        /** Implied volatility in percent. */
+        public double[] vols;
+
+        // Outputs
+        public double[] price;
+        public double[] delta;
+        public double[] gamma;
+        public double[] theta;
+        public double[] vega;
+        public double[] rho;
+
+        /**
+         * Creates an empty chain.
+         *
+         * @param capacity Initial number of contracts
+         */
+        public Chain(int capacity) {
+            int cap = Math.max(capacity, 1);
+            strikes = new double[cap];
+            years = new double[cap];
+            calls = new boolean[cap];
+            vols = new double[cap];
+            price = new double[cap];
+            delta = new double[cap];
+            gamma = new double[cap];
+            theta = new double[cap];
+            vega = new double[cap];
+            rho = new double[cap];
+        }
+
+        /**
+         * Appends a contract.
+         *
+         * @param strike Strike price
+         * @param years  Time to expiry in years
+         * @param call   true for CE, false for PE
+         * @param vol    Implied volatility in percent
+         * @return Contract index
+         */
+        public int add(double strike, double years, boolean call, double vol) {
+            if (size == strikes.length) {
+                ensureCapacity(size * 2);
+            }
+            int i = size++;
+            strikes[i] = strike;
+            this.years[i] = years;
+            calls[i] = call;
+            vols[i] = vol;
+            return i;
+        }
+
+        /**
+         * Grows the arrays to hold at least the given number of contracts.
+         *
+         * @param capacity Required capacity
+         */
+        public void ensureCapacity(int capacity) {
+            if (capacity <= strikes.length) {
+                return;
+            }
+            strikes = Arrays.copyOf(strikes, capacity);
+            years = Arrays.copyOf(years, capacity);
+            calls = Arrays.copyOf(calls, capacity);
+            vols = Arrays.copyOf(vols, capacity);
+            price = Arrays.copyOf(price, capacity);
+            delta = Arrays.copyOf(delta, capacity);
+            gamma = Arrays.copyOf(gamma, capacity);
+            theta = Arrays.copyOf(theta, capacity);
+            vega = Arrays.copyOf(vega, capacity);
+            rho = Arrays.copyOf(rho, capacity);
+        }
+
+        /**
+         * Removes all contracts, keeping the arrays.
+         */
+        public void clear() {
+            size = 0;
+        }
+    }
+
+    /**
+     * Computes price and greeks for every contract of a chain.
+     * Contracts with a non-positive volatility or time to expiry get NaN outputs.
+     *
+     * @param chain Chain to compute
+     */
+    public static void compute(Chain chain) {
+        compute(chain, 0, chain.size);
+    }
+
+    /**
+     * Computes price and greeks for the contracts {@code from} (inclusive) to {@code to}
+     * (exclusive) of a chain, e.g. after one contract's volatility changed.
+     *
+     * @param chain Chain to compute
+     * @param from  First contract
+     * @param to    End of the range
+     */
+    public static void compute(Chain chain, int from, int to) {
+        final int n = Math.min(to, chain.size);
+        final double s = chain.spot;
+        final double r = chain.rate / 100;
+        final double[] k = chain.strikes;
+        final double[] t = chain.years;
+        final double[] v = chain.vols;
+        final boolean[] call = chain.calls;
+        for (int i = from; i < n; i++) {
+            double sigma = v[i] / 100;
+            double years = t[i];
+            if (!(sigma > 0 && years > 0 && s > 0 && k[i] > 0)) {
+                chain.price[i] = Double.NaN;
+                chain.delta[i] = Double.NaN;
+                chain.gamma[i] = Double.NaN;
+                chain.theta[i] = Double.NaN;
+                chain.vega[i] = Double.NaN;
+                chain.rho[i] = Double.NaN;
+                continue;
+            }
+            double sqrtT = Math.sqrt(years);
+            double sigmaSqrtT = sigma * sqrtT;
+            double d1 = (Math.log(s / k[i]) + (r + 0.5 * sigma * sigma) * years) / sigmaSqrtT;
+            double d2 = d1 - sigmaSqrtT;
+            double pdf = INV_SQRT_2PI * Math.exp(-0.5 * d1 * d1);
+            double discK = k[i] * Math.exp(-r * years);
+            double decay = -s * pdf * sigma / (2 * sqrtT);
+            double sign = call[i] ? 1 : -1;
+            double nd1 = cdf(sign * d1);
+            double nd2 = cdf(sign * d2);
+
+            chain.price[i] = sign * (s * nd1 - discK * nd2);
+            chain.delta[i] = sign * nd1;
+            chain.gamma[i] = pdf / (s * sigmaSqrtT);
+            chain.theta[i] = (decay - sign * r * discK * nd2) / 365;
+            chain.vega[i] = s * pdf * sqrtT / 100;
+            chain.rho[i] = sign * discK * years * nd2 / 100;
+        }
+    }
+
+    /**
+     * Computes many chains in parallel on the common fork-join pool.
+     *
+     * @param chains Chains to compute
+     */
+    public static void computeAll(Collection<Chain> chains) {
+        chains.parallelStream().forEach(GreeksEngine::compute);
+    }
+
+    /**
+     * Black-Scholes price of a single contract.
+     *
+     * @param spot   Underlying price
+     * @param strike Strike price
+     * @param years  Time to expiry in years
+     * @param rate   Risk-free rate in percent
+     * @param vol    Volatility in percent
+     * @param call   true for CE, false for PE
+     * @return Option price, or intrinsic value if vol or time is not positive
+     */
+    public static double price(double spot, double strike, double years, double rate, double vol, boolean call) {
+        double r = rate / 100;
+        double sign = call ? 1 : -1;
+        double discK = strike * Math.exp(-r * Math.max(years, 0));
+        if (!(vol > 0 && years > 0)) {
+            return Math.max(sign * (spot - discK), 0);
+        }
+        double sigma = vol / 100;
+        double sigmaSqrtT = sigma * Math.sqrt(years);
+        double d1 = (Math.log(spot / strike) + (r + 0.5 * sigma * sigma) * years) / sigmaSqrtT;
+        double d2 = d1 - sigmaSqrtT;
+        return sign * (spot * cdf(sign * d1) - discK * cdf(sign * d2));
+    }
+
+    /**
+     * Gets the time to expiry in years for an expiry date, with expiry at 15:30 IST.
+     *
+     * @param expiry    Expiry date in DD-MMM-YY or DDMMMYY format
+     * @param nowMillis Current time, epoch millis
+     * @return Years to expiry (negative once expired)
+     */
+    public static double yearsToExpiry(String expiry, long nowMillis) {
+        return (expiryMillis(expiry) - nowMillis) / 1000.0 / YEAR_SECONDS;
+    }
+
+    /**
+     * Gets the expiry instant (15:30 IST on the expiry date) in epoch millis.
+     */
+    static long expiryMillis(String expiry) {
+        int key = InstrumentMaster.expiryKey(expiry);
+        if (key <= 0) {
+            throw new IllegalArgumentException("Invalid expiry: " + expiry);
+        }
+        LocalDate date = LocalDate.of(key / 10000, key / 100 % 100, key % 100);
+        return date.atTime(EXPIRY_TIME).atZone(CandleStore.MARKET_ZONE).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Standard normal cumulative distribution, accurate to double precision (Hart / West).
+     */
+    static double cdf(double x) {
+        double z = Math.abs(x);
+        double c;
+        if (z > 37) {
+            c = 0;
+        } else {
+            double e = Math.exp(-z * z / 2);
+            if (z < 7.07106781186547) {
+                double n = 3.52624965998911e-02 * z + 0.700383064443688;
+                n = n * z + 6.37396220353165;
+                n = n * z + 33.912866078383;
+                n = n * z + 112.079291497871;
+                n = n * z + 221.213596169931;
+                n = n * z + 220.206867912376;
+                double d = 8.83883476483184e-02 * z + 1.75566716318264;
+                d = d * z + 16.064177579207;
+                d = d * z + 86.7807322029461;
+                d = d * z + 296.564248779674;
+                d = d * z + 637.333633378831;
+                d = d * z + 793.826512519948;
+                d = d * z + 440.413735824752;
+                c = e * n / d;
+            } else {
+                double b = z + 0.65;
+                b = z + 4 / b;
+                b = z + 3 / b;
+                b = z + 2 / b;
+                b = z + 1 / b;
+                c = e / b / 2.506628274631;
+            }
+        }
+        return x > 0 ? 1 - c : c;
+    }
+}
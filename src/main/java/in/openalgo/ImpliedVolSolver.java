@@ -0,0 +1,215 @@
+package in.openalgo;
+
+/**
+ * Batch implied volatility solver.
+ *
+ * Each contract is solved with Newton's method on the Black-Scholes price, falling back to
+ * bisection whenever a Newton step leaves the current bracket or vega is too small. The
+ * volatility array is used both as the starting point and as the output, so keeping it
+ * between ticks warm-starts every contract from its previous IV and a typical tick
+ * converges in one or two iterations. Contracts without a usable previous IV start from a
+ * Manaster-Koehler estimate.
+ *
+ * Units match {@link GreeksEngine}: volatility and rate in percent, time in years.
+ *
+ * Example usage:
+ * <pre>
+ * ImpliedVolSolver solver = new ImpliedVolSolver();
+ * // chain.vols keeps the previous tick's IVs
+ * ImpliedVolSolver.Stats stats = solver.solve(chain, lastPrices);
+ * GreeksEngine.compute(chain);
+ * System.out.println(stats);
+ * </pre>
+ */
+public class ImpliedVolSolver {
+
+    private static final double MIN_VOL = 1e-4;
+    private static final double MAX_VOL = 5.0;
+    private static final double INV_SQRT_2PI = 0.3989422804014327;
+
+    private final double tolerance;
+    private final int maxIterations;
+
+    /**
+     * Creates a solver with a price tolerance of 0.0001 and at most 50 iterations.
+     */
+    public ImpliedVolSolver() {
+        this(1e-4, 50);
+    }
+
+    /**
+     * Creates a solver.
+     *
+     * @param tolerance     Absolute price error at which a contract counts as solved
+     * @param maxIterations Maximum volatility updates per contract
+     */
+    public ImpliedVolSolver(double tolerance, int maxIterations) {
+        if (tolerance <= 0 || maxIterations < 1) {
+            throw new IllegalArgumentException("tolerance and maxIterations must be positive");
+        }
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Convergence statistics of one batch.
+     */
+    public static final class Stats {
+        private int solved;
+        private int failed;
+        private int skipped;
+        private long iterations;
+        private int maxIterations;
+        private int bisections;
+
+        /** @return Contracts solved within tolerance */
+        public int getSolved() {
+            return solved;
+        }
+
+        /** @return Contracts that did not converge (IV set to NaN) */
+        public int getFailed() {
+            return failed;
+        }
+
+        /** @return Contracts skipped because the price was outside no-arbitrage bounds or expired */
+        public int getSkipped() {
+            return skipped;
+        }
+
+        /** @return Total volatility updates (Newton or bisection steps) */
+        public long getIterations() {
+            return iterations;
+        }
+
+        /** @return Largest number of updates for a single contract */
+        public int getMaxIterations() {
+            return maxIterations;
+        }
+
+        /** @return Steps that fell back to bisection */
+        public int getBisections() {
+            return bisections;
+        }
+
+        /** @return Average updates per solved or failed contract */
+        public double getAverageIterations() {
+            int n = solved + failed;
+            return n == 0 ? 0 : (double) iterations / n;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("solved=%d failed=%d skipped=%d avgIterations=%.2f maxIterations=%d bisections=%d",
+                    solved, failed, skipped, getAverageIterations(), maxIterations, bisections);
+        }
+    }
+
+    /**
+     * Solves IVs for every contract of a chain into {@code chain.vols}.
+     *
+     * @param chain  Chain with spot, rate, strikes, years and option types set; vols hold
+     *               the previous IVs (or 0/NaN) and receive the result
+     * @param prices Market prices, indexed like the chain
+     * @return Convergence statistics
+     */
+    public Stats solve(GreeksEngine.Chain chain, double[] prices) {
+        return solve(chain.size, chain.spot, chain.rate, chain.strikes, chain.years, chain.calls, prices, chain.vols);
+    }
+
+    /**
+     * Solves IVs for a batch of contracts on one underlying.
+     *
+     * @param n       Number of contracts
+     * @param spot    Underlying price
+     * @param rate    Risk-free rate in percent
+     * @param strikes Strike prices
+     * @param years   Times to expiry in years
+     * @param calls   true for CE, false for PE
+     * @param prices  Market prices
+     * @param vols    Previous IVs in percent used as starting points (0 or NaN for none);
+     *                receives the solved IVs, NaN where no IV exists
+     * @return Convergence statistics
+     */
+    public Stats solve(int n, double spot, double rate, double[] strikes, double[] years,
+                       boolean[] calls, double[] prices, double[] vols) {
+        Stats stats = new Stats();
+        double r = rate / 100;
+        for (int i = 0; i < n; i++) {
+            vols[i] = solveOne(spot, strikes[i], years[i], r, prices[i], calls[i], vols[i] / 100, stats) * 100;
+        }
+        return stats;
+    }
+
+    /**
+     * Solves the IV of a single contract.
+     *
+     * @param spot   Underlying price
+     * @param strike Strike price
+     * @param years  Time to expiry in years
+     * @param rate   Risk-free rate in percent
+     * @param price  Market price
+     * @param call   true for CE, false for PE
+     * @param guess  Starting IV in percent (0 or NaN for none)
+     * @return IV in percent, or NaN if none exists
+     */
+    public double solve(double spot, double strike, double years, double rate, double price,
+                        boolean call, double guess) {
+        return solveOne(spot, strike, years, rate / 100, price, call, guess / 100, new Stats()) * 100;
+    }
+
+    private double solveOne(double s, double k, double t, double r, double target, boolean call,
+                            double guess, Stats stats) {
+        if (!(t > 0 && s > 0 && k > 0 && target > 0)) {
+            stats.skipped++;
+            return Double.NaN;
+        }
+        double sign = call ? 1 : -1;
+        double discK = k * Math.exp(-r * t);
+        double intrinsic = Math.max(sign * (s - discK), 0);
+        double upper = call ? s : discK;
+        if (target <= intrinsic || target >= upper) {
+            stats.skipped++;
+            return Double.NaN;
+        }
+
+        double sqrtT = Math.sqrt(t);
+        double logMoneyness = Math.log(s / k) + r * t;
+        double sigma = guess > MIN_VOL && guess < MAX_VOL
+                ? guess
+                : Math.min(Math.max(Math.sqrt(2 * Math.abs(logMoneyness) / t), 0.05), 1.0);
+        double lo = MIN_VOL;
+        double hi = MAX_VOL;
+
+        for (int iter = 1; iter <= maxIterations + 1; iter++) {
+            double sigmaSqrtT = sigma * sqrtT;
+            double d1 = (logMoneyness + 0.5 * sigma * sigma * t) / sigmaSqrtT;
+            double d2 = d1 - sigmaSqrtT;
+            double model = sign * (s * GreeksEngine.cdf(sign * d1) - discK * GreeksEngine.cdf(sign * d2));
+            double diff = model - target;
+            if (Math.abs(diff) < tolerance) {
+                stats.solved++;
+                stats.iterations += iter - 1;
+                stats.maxIterations = Math.max(stats.maxIterations, iter - 1);
+                return sigma;
+            }
+            // Price is increasing in volatility, so the sign of diff narrows the bracket
+            if (diff > 0) {
+                hi = sigma;
+            } else {
+                lo = sigma;
+            }
+            double vega = s * INV_SQRT_2PI * Math.exp(-0.5 * d1 * d1) * sqrtT;
+            double next = vega > 1e-12 ? sigma - diff / vega : Double.NaN;
+            if (!(next > lo && next < hi)) {
+                next = 0.5 * (lo + hi);
+                stats.bisections++;
+            }
+            sigma = next;
+        }
+        stats.failed++;
+        stats.iterations += maxIterations;
+        stats.maxIterations = maxIterations;
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,421 @@
+package in.openalgo;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Streaming indicator engine with O(1) incremental updates.
+ *
+ * Each registered (symbol, indicator) pair gets a handle. Indicator state is kept in
+ * primitive arrays indexed by handle, and each symbol keeps the list of its handles, so one
+ * update call advances every indicator of that symbol in a single pass. Results are
+ * published to an atomic array and can be read from any thread without locking.
+ *
+ * Supported indicators:
+ * - EMA: seeded with the simple average of the first {@code period} closes
+ * - VWAP: typical-price VWAP, reset at each session day
+ * - ATR: Wilder's average true range
+ * - RSI: Wilder's relative strength index
+ * Values are NaN until the indicator has seen enough data.
+ *
+ * The engine can be fed bars from a {@link BarBuilder}, raw ticks from a {@link FeedApi}
+ * (each tick treated as a bar with high = low = close), or candle series for warm-up.
+ *
+ * Example usage:
+ * <pre>
+ * IndicatorEngine engine = new IndicatorEngine();
+ * int ema = engine.register("NSE", "SBIN", IndicatorEngine.Type.EMA, 20);
+ * int rsi = engine.register("NSE", "SBIN", IndicatorEngine.Type.RSI, 14);
+ * engine.warmUp("NSE", "SBIN", CandleBuffer.fromHistory(response));
+ * bars.addListener(engine.barListener("5m"));
+ * double latest = engine.value(ema);
+ * </pre>
+ */
+public class IndicatorEngine {
+
+    /**
+     * Indicator types.
+     */
+    public enum Type { EMA, VWAP, ATR, RSI }
+
+    private static final long DAY_SECONDS = 86_400;
+    private static final long ZONE_OFFSET_SECONDS =
+            CandleStore.MARKET_ZONE.getRules().getOffset(Instant.now()).getTotalSeconds();
+
+    // Symbol index
+    private final Map<String, Integer> symbolIndex = new HashMap<>();
+    private int[][] handlesBySymbol = new int[16][];
+    private long[] lastCumVolume = new long[16];
+    private int symbolCount;
+    // Bumped when a symbol is added, so tick listeners re-check instruments they skipped
+    private volatile int symbolGeneration;
+
+    // Indicator state, indexed by handle
+    private int[] type = new int[64];
+    private int[] period = new int[64];
+    private int[] count = new int[64];
+    private double[] stateA = new double[64];
+    private double[] stateB = new double[64];
+    private double[] stateC = new double[64];
+    private volatile AtomicLongArray values = newValues(64, 0);
+    private int handleCount;
+
+    /**
+     * Registers an indicator for a symbol.
+     *
+     * @param exchange Exchange code
+     * @param symbol   Trading symbol
+     * @param type     Indicator type
+     * @param period   Lookback period (ignored for VWAP)
+     * @return Handle used to read the value
+     */
+    public synchronized int register(String exchange, String symbol, Type type, int period) {
+        if (type != Type.VWAP && period < 1) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+        int s = symbolId(exchange, symbol);
+        if (handleCount == this.type.length) {
+            int cap = handleCount * 2;
+            this.type = Arrays.copyOf(this.type, cap);
+            this.period = Arrays.copyOf(this.period, cap);
+            count = Arrays.copyOf(count, cap);
+            stateA = Arrays.copyOf(stateA, cap);
+            stateB = Arrays.copyOf(stateB, cap);
+            stateC = Arrays.copyOf(stateC, cap);
+            values = newValues(cap, handleCount);
+        }
+        int h = handleCount++;
+        this.type[h] = type.ordinal();
+        this.period[h] = period;
+        values.set(h, Double.doubleToRawLongBits(Double.NaN));
+
+        int[] handles = handlesBySymbol[s];
+        handles = handles == null ? new int[1] : Arrays.copyOf(handles, handles.length + 1);
+        handles[handles.length - 1] = h;
+        handlesBySymbol[s] = handles;
+        return h;
+    }
+
+    private AtomicLongArray newValues(int capacity, int copy) {
+        AtomicLongArray grown = new AtomicLongArray(capacity);
+        for (int i = 0; i < copy; i++) {
+            grown.set(i, values.get(i));
+        }
+        return grown;
+    }
+
+    /**
+     * Reads the latest value of an indicator. Safe to call from any thread without locking.
+     *
+     * @param handle Handle returned by register
+     * @return Latest value, or NaN if not yet available
+     */
+    public double value(int handle) {
+        return Double.longBitsToDouble(values.getAcquire(handle));
+    }
+
+    /**
+     * Gets the dense id of a symbol, registering it if needed.
+     *
+     * @param exchange Exchange code
+     * @param symbol   Trading symbol
+     * @return Symbol id
+     */
+    public synchronized int symbolId(String exchange, String symbol) {
+        String key = exchange + ":" + symbol;
+        Integer existing = symbolIndex.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (symbolCount == handlesBySymbol.length) {
+            handlesBySymbol = Arrays.copyOf(handlesBySymbol, symbolCount * 2);
+            lastCumVolume = Arrays.copyOf(lastCumVolume, symbolCount * 2);
+        }
+        int s = symbolCount++;
+        symbolIndex.put(key, s);
+        symbolGeneration++;
+        return s;
+    }
+
+    /**
+     * Applies a bar to every indicator of a symbol.
+     *
+     * @param exchange  Exchange code
+     * @param symbol    Trading symbol
+     * @param timestamp Bar time, epoch seconds
+     * @param high      Bar high
+     * @param low       Bar low
+     * @param close     Bar close
+     * @param volume    Bar volume
+     */
+    public synchronized void update(String exchange, String symbol, long timestamp,
+                                    double high, double low, double close, long volume) {
+        Integer s = symbolIndex.get(exchange + ":" + symbol);
+        if (s != null) {
+            update(s, timestamp, high, low, close, volume);
+        }
+    }
+
+    /**
+     * Applies one bar per symbol for many symbols in a single pass.
+     *
+     * @param n         Number of entries to apply
+     * @param symbolIds Symbol ids from symbolId()
+     * @param timestamp Bar times, epoch seconds
+     * @param high      Bar highs
+     * @param low       Bar lows
+     * @param close     Bar closes
+     * @param volume    Bar volumes
+     */
+    public synchronized void updateBatch(int n, int[] symbolIds, long[] timestamp, double[] high,
+                                         double[] low, double[] close, long[] volume) {
+        for (int i = 0; i < n; i++) {
+            update(symbolIds[i], timestamp[i], high[i], low[i], close[i], volume[i]);
+        }
+    }
+
+    /**
+     * Replays a candle series through every indicator of a symbol.
+     *
+     * @param exchange Exchange code
+     * @param symbol   Trading symbol
+     * @param candles  Candles in ascending time order
+     */
+    public synchronized void warmUp(String exchange, String symbol, CandleSeries candles) {
+        int s = symbolId(exchange, symbol);
+        for (int i = 0; i < candles.size(); i++) {
+            update(s, candles.timestamp(i), candles.high(i), candles.low(i), candles.close(i), candles.volume(i));
+        }
+    }
+
+    /**
+     * Creates a bar listener that feeds bars of one interval into the engine.
+     *
+     * @param interval Interval to accept, e.g. 5m
+     * @return BarListener to add to a BarBuilder
+     */
+    public BarBuilder.BarListener barListener(String interval) {
+        return (exchange, symbol, barInterval, ts, o, h, l, c, v) -> {
+            if (interval.equals(barInterval)) {
+                update(exchange, symbol, ts, h, l, c, v);
+            }
+        };
+    }
+
+    /**
+     * Creates a feed listener that applies every tick as a bar with high = low = close.
+     * Volume is the change in cumulative day volume between ticks.
+     *
+     * The listener resolves each instrument id of its feed to a symbol once, so later ticks,
+     * including those of symbols the engine does not track, need no string key or lock.
+     * Add it to a single feed.
+     *
+     * @return Listener to pass to FeedApi.addTickListener
+     */
+    public TickListener typedTickListener() {
+        return new TickListener() {
+            // By feed instrument id: symbol + 1, 0 if unresolved; and generation + 1 in which
+            // the instrument was found untracked. Touched only by the thread delivering ticks.
+            private int[] symbolOf = new int[64];
+            private int[] missedAt = new int[64];
+
+            @Override
+            public void onTick(Tick tick) {
+                int s = resolve(tick);
+                if (s < 0 || !(tick.getLtp() > 0)) {
+                    return;
+                }
+                long millis = tick.getTimestamp() > 0 ? tick.getTimestamp() : System.currentTimeMillis();
+                long cumVolume = tick instanceof QuoteTick ? ((QuoteTick) tick).getVolume() : -1;
+                IndicatorEngine.this.onTick(s, tick.getLtp(), cumVolume, millis);
+            }
+
+            private int resolve(Tick tick) {
+                int id = tick.getInstrumentId();
+                if (id >= symbolOf.length) {
+                    int capacity = Math.max(symbolOf.length * 2, id + 1);
+                    symbolOf = Arrays.copyOf(symbolOf, capacity);
+                    missedAt = Arrays.copyOf(missedAt, capacity);
+                }
+                int s = symbolOf[id] - 1;
+                if (s >= 0) {
+                    return s;
+                }
+                // Read before the lookup, so a symbol added meanwhile is found on the next tick
+                int generation = symbolGeneration;
+                if (missedAt[id] == generation + 1) {
+                    return -1;
+                }
+                s = find(tick.getExchange(), tick.getSymbol());
+                if (s >= 0) {
+                    symbolOf[id] = s + 1;
+                } else {
+                    missedAt[id] = generation + 1;
+                }
+                return s;
+            }
+        };
+    }
+
+    /**
+     * Creates a Map-based feed listener that applies every tick as a bar with high = low = close.
+     * Prefer {@link #typedTickListener()}, which avoids the per-tick Map.
+     *
+     * @return Listener to pass to FeedApi.addMarketDataListener
+     */
+    @SuppressWarnings("unchecked")
+    public Consumer<Map<String, Object>> tickListener() {
+        return message -> {
+            Object data = message.get("data");
+            if (!(data instanceof Map)) {
+                return;
+            }
+            Map<String, Object> tick = (Map<String, Object>) data;
+            Object ltp = tick.get("ltp");
+            if (!(ltp instanceof Number)) {
+                return;
+            }
+            Object ts = tick.get("timestamp");
+            long millis = ts instanceof Number && ((Number) ts).longValue() > 0
+                    ? ((Number) ts).longValue() : System.currentTimeMillis();
+            Object vol = tick.get("volume");
+            long cumVolume = vol instanceof Number ? ((Number) vol).longValue() : -1;
+            onTick((String) message.get("exchange"), (String) message.get("symbol"),
+                    ((Number) ltp).doubleValue(), cumVolume, millis);
+        };
+    }
+
+    private synchronized int find(String exchange, String symbol) {
+        Integer s = symbolIndex.get(exchange + ":" + symbol);
+        return s == null ? -1 : s;
+    }
+
+    private void onTick(String exchange, String symbol, double price, long cumVolume, long millis) {
+        int s = find(exchange, symbol);
+        if (s >= 0) {
+            onTick(s, price, cumVolume, millis);
+        }
+    }
+
+    private synchronized void onTick(int s, double price, long cumVolume, long millis) {
+        long traded = 0;
+        if (cumVolume >= 0) {
+            if (lastCumVolume[s] > 0 && cumVolume >= lastCumVolume[s]) {
+                traded = cumVolume - lastCumVolume[s];
+            }
+            lastCumVolume[s] = cumVolume;
+        }
+        update(s, millis / 1000, price, price, price, traded);
+    }
+
+    private void update(int s, long timestamp, double high, double low, double close, long volume) {
+        int[] handles = handlesBySymbol[s];
+        if (handles == null) {
+            return;
+        }
+        AtomicLongArray out = values;
+        for (int h : handles) {
+            double value;
+            switch (type[h]) {
+                case 0:
+                    value = ema(h, close);
+                    break;
+                case 1:
+                    value = vwap(h, timestamp, high, low, close, volume);
+                    break;
+                case 2:
+                    value = atr(h, high, low, close);
+                    break;
+                default:
+                    value = rsi(h, close);
+                    break;
+            }
+            out.setRelease(h, Double.doubleToRawLongBits(value));
+        }
+    }
+
+    // EMA state: A = running value (sum during seeding)
+    private double ema(int h, double close) {
+        int p = period[h];
+        int n = ++count[h];
+        if (n < p) {
+            stateA[h] += close;
+            return Double.NaN;
+        }
+        if (n == p) {
+            stateA[h] = (stateA[h] + close) / p;
+        } else {
+            double alpha = 2.0 / (p + 1);
+            stateA[h] += alpha * (close - stateA[h]);
+        }
+        return stateA[h];
+    }
+
+    // VWAP state: A = cumulative price * volume, B = cumulative volume, C = session day
+    private double vwap(int h, long timestamp, double high, double low, double close, long volume) {
+        double day = Math.floorDiv(timestamp + ZONE_OFFSET_SECONDS, DAY_SECONDS);
+        if (count[h] == 0 || stateC[h] != day) {
+            stateA[h] = 0;
+            stateB[h] = 0;
+            stateC[h] = day;
+        }
+        count[h]++;
+        stateA[h] += (high + low + close) / 3 * volume;
+        stateB[h] += volume;
+        return stateB[h] == 0 ? Double.NaN : stateA[h] / stateB[h];
+    }
+
+    // ATR state: A = previous close, B = running ATR (sum of true ranges during seeding)
+    private double atr(int h, double high, double low, double close) {
+        int p = period[h];
+        int n = ++count[h];
+        double tr = n == 1 ? high - low
+                : Math.max(high - low, Math.max(Math.abs(high - stateA[h]), Math.abs(low - stateA[h])));
+        stateA[h] = close;
+        if (n < p) {
+            stateB[h] += tr;
+            return Double.NaN;
+        }
+        if (n == p) {
+            stateB[h] = (stateB[h] + tr) / p;
+        } else {
+            stateB[h] = (stateB[h] * (p - 1) + tr) / p;
+        }
+        return stateB[h];
+    }
+
+    // RSI state: A = previous close, B = average gain, C = average loss
+    private double rsi(int h, double close) {
+        int p = period[h];
+        int n = ++count[h];
+        if (n == 1) {
+            stateA[h] = close;
+            return Double.NaN;
+        }
+        double change = close - stateA[h];
+        stateA[h] = close;
+        double gain = Math.max(change, 0);
+        double loss = Math.max(-change, 0);
+        int changes = n - 1;
+        if (changes <= p) {
+            stateB[h] += gain;
+            stateC[h] += loss;
+            if (changes < p) {
+                return Double.NaN;
+            }
+            stateB[h] /= p;
+            stateC[h] /= p;
+        } else {
+            stateB[h] = (stateB[h] * (p - 1) + gain) / p;
+            stateC[h] = (stateC[h] * (p - 1) + loss) / p;
+        }
+        if (stateC[h] == 0) {
+            return stateB[h] == 0 ? 50 : 100;
+        }
+        return 100 - 100 / (1 + stateB[h] / stateC[h]);
+    }
+}
@@ -0,0 +1,726 @@
+package in.openalgo;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-memory instrument master built from one {@code instruments()} download.
+ *
+ * Rows are stored column by column with repeated strings (names, expiries, instrument
+ * types, exchanges) interned. Lookups are served from local indexes:
+ * - open-addressing hash indexes by exchange + symbol and exchange + token
+ * - a symbol-sorted index for prefix search
+ * - secondary indexes by underlying, by expiry and by (exchange, underlying, expiry) with
+ *   rows ordered by strike
+ * so symbol(), search() and option strike lookups take microseconds and work offline.
+ *
+ * Example usage:
+ * <pre>
+ * InstrumentMaster master = InstrumentMaster.load(client, null);
+ * int row = master.find("NFO", "NIFTY30DEC2526000CE");
+ * int lot = master.lotSize(row);
+ * JsonObject hits = master.search("NIFTY 26000 DEC CE", "NFO");
+ * </pre>
+ */
+public class InstrumentMaster {
+
+    private static final String[] MONTHS = {
+        "JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"
+    };
+
+    // Columns
+    final int size;
+    final String[] symbols;
+    final String[] brsymbols;
+    final String[] names;
+    final String[] tokens;
+    final String[] expiries;
+    final String[] instrumentTypes;
+    final String[] brexchanges;
+    final String[] exchangeTable;
+    final byte[] exchangeCodes;
+    final double[] strikes;
+    final int[] lotSizes;
+    final double[] tickSizes;
+    final LocalDate loadedOn;
+
+    // Derived columns and indexes, persisted by InstrumentSnapshot
+    final int[] expiryKeys;
+    final int[] symbolTable;
+    final int[] tokenTable;
+    final int[] sortedBySymbol;
+    final Map<String, int[]> byUnderlying;
+    final Map<String, int[]> byExpiry;
+    final Map<String, int[]> chains;
+    final Map<String, Expiries> optionExpiries;
+    private final String[] sortedSymbolKeys;
+
+    // Option expiries of one (exchange, underlying), sorted by date
+    static final class Expiries {
+        final int[] keys;
+        final String[] values;
+
+        Expiries(int[] keys, String[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        Expiries(TreeMap<Integer, String> sorted) {
+            keys = new int[sorted.size()];
+            values = new String[sorted.size()];
+            int i = 0;
+            for (Map.Entry<Integer, String> entry : sorted.entrySet()) {
+                keys[i] = entry.getKey();
+                values[i++] = entry.getValue();
+            }
+        }
+    }
+
+    // Everything derived from the columns
+    static final class Indexes {
+        int[] expiryKeys;
+        int[] symbolTable;
+        int[] tokenTable;
+        int[] sortedBySymbol;
+        Map<String, int[]> byUnderlying;
+        Map<String, int[]> byExpiry;
+        Map<String, int[]> chains;
+        Map<String, Expiries> optionExpiries;
+    }
+
+    InstrumentMaster(int size, String[] symbols, String[] brsymbols, String[] names, String[] tokens,
+                     String[] expiries, String[] instrumentTypes, String[] brexchanges,
+                     String[] exchangeTable, byte[] exchangeCodes, double[] strikes, int[] lotSizes,
+                     double[] tickSizes, LocalDate loadedOn) {
+        this(size, symbols, brsymbols, names, tokens, expiries, instrumentTypes, brexchanges, exchangeTable,
+                exchangeCodes, strikes, lotSizes, tickSizes, loadedOn, null);
+    }
+
+    /**
+     * Creates a master from its columns.
+     *
+     * @param indexes Indexes read from a snapshot, or null to build them from the columns
+     */
+    InstrumentMaster(int size, String[] symbols, String[] brsymbols, String[] names, String[] tokens,
+                     String[] expiries, String[] instrumentTypes, String[] brexchanges,
+                     String[] exchangeTable, byte[] exchangeCodes, double[] strikes, int[] lotSizes,
+                     double[] tickSizes, LocalDate loadedOn, Indexes indexes) {
+        this.size = size;
+        this.symbols = symbols;
+        this.brsymbols = brsymbols;
+        this.names = names;
+        this.tokens = tokens;
+        this.expiries = expiries;
+        this.instrumentTypes = instrumentTypes;
+        this.brexchanges = brexchanges;
+        this.exchangeTable = exchangeTable;
+        this.exchangeCodes = exchangeCodes;
+        this.strikes = strikes;
+        this.lotSizes = lotSizes;
+        this.tickSizes = tickSizes;
+        this.loadedOn = loadedOn;
+
+        if (indexes == null) {
+            indexes = buildIndexes();
+        }
+        expiryKeys = indexes.expiryKeys;
+        symbolTable = indexes.symbolTable;
+        tokenTable = indexes.tokenTable;
+        sortedBySymbol = indexes.sortedBySymbol;
+        byUnderlying = indexes.byUnderlying;
+        byExpiry = indexes.byExpiry;
+        chains = indexes.chains;
+        optionExpiries = indexes.optionExpiries;
+
+        // O(n) and rarely allocating: symbols are almost always upper case already
+        sortedSymbolKeys = new String[size];
+        for (int i = 0; i < size; i++) {
+            sortedSymbolKeys[i] = symbols[sortedBySymbol[i]].toUpperCase(Locale.ROOT);
+        }
+    }
+
+    // Reads only the columns, which are assigned before this is called
+    private Indexes buildIndexes() {
+        Indexes x = new Indexes();
+        x.expiryKeys = new int[size];
+        for (int i = 0; i < size; i++) {
+            x.expiryKeys[i] = expiryKey(expiries[i]);
+        }
+
+        int tableSize = Integer.highestOneBit(Math.max(4, size * 2 - 1)) << 1;
+        x.symbolTable = new int[tableSize];
+        x.tokenTable = new int[tableSize];
+        Arrays.fill(x.symbolTable, -1);
+        Arrays.fill(x.tokenTable, -1);
+        for (int i = 0; i < size; i++) {
+            insert(x.symbolTable, hash(exchangeCodes[i], symbols[i]), i);
+            if (tokens[i] != null) {
+                insert(x.tokenTable, hash(exchangeCodes[i], tokens[i]), i);
+            }
+        }
+
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        String[] upper = new String[size];
+        for (int i = 0; i < size; i++) {
+            upper[i] = symbols[i].toUpperCase(Locale.ROOT);
+        }
+        Arrays.sort(order, Comparator.comparing((Integer r) -> upper[r]));
+        x.sortedBySymbol = new int[size];
+        for (int i = 0; i < size; i++) {
+            x.sortedBySymbol[i] = order[i];
+        }
+
+        Map<String, List<Integer>> underlying = new HashMap<>();
+        Map<String, List<Integer>> expiry = new HashMap<>();
+        Map<String, List<Integer>> chain = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            if (names[i] != null) {
+                underlying.computeIfAbsent(names[i], k -> new ArrayList<>()).add(i);
+            }
+            if (expiries[i] != null && !expiries[i].isEmpty()) {
+                expiry.computeIfAbsent(expiries[i], k -> new ArrayList<>()).add(i);
+                if (names[i] != null && isOption(i)) {
+                    chain.computeIfAbsent(chainKey(exchange(i), names[i], expiries[i]), k -> new ArrayList<>()).add(i);
+                }
+            }
+        }
+        x.byUnderlying = toArrays(underlying, null);
+        x.byExpiry = toArrays(expiry, null);
+        x.chains = toArrays(chain, Comparator.comparingDouble((Integer r) -> strikes[r])
+                .thenComparing(r -> symbols[r]));
+
+        Map<String, TreeMap<Integer, String>> sortedExpiries = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            if (names[i] != null && x.expiryKeys[i] != 0 && isOption(i)) {
+                sortedExpiries.computeIfAbsent(exchange(i) + ":" + names[i], k -> new TreeMap<>())
+                        .put(x.expiryKeys[i], expiries[i]);
+            }
+        }
+        x.optionExpiries = new HashMap<>();
+        for (Map.Entry<String, TreeMap<Integer, String>> entry : sortedExpiries.entrySet()) {
+            x.optionExpiries.put(entry.getKey(), new Expiries(entry.getValue()));
+        }
+        return x;
+    }
+
+    /**
+     * Downloads the instrument master once and indexes it.
+     *
+     * @param api      Client used for the instruments() call
+     * @param exchange Exchange code (optional, null for all exchanges)
+     * @return InstrumentMaster
+     * @throws IllegalStateException if instruments() returns an error
+     */
+    public static InstrumentMaster load(DataApi api, String exchange) {
+        JsonObject response = api.instruments(exchange);
+        if (!response.has("status") || !"success".equals(response.get("status").getAsString())) {
+            String message = response.has("message") ? response.get("message").getAsString() : "unknown error";
+            throw new IllegalStateException("instruments() failed: " + message);
+        }
+        return fromResponse(response);
+    }
+
+    /**
+     * Builds a master from an {@code instruments()} response.
+     *
+     * @param response JsonObject returned by instruments()
+     * @return InstrumentMaster
+     */
+    public static InstrumentMaster fromResponse(JsonObject response) {
+        JsonArray data = response != null && response.has("data") && response.get("data").isJsonArray()
+                ? response.getAsJsonArray("data") : new JsonArray();
+        int n = data.size();
+        Map<String, String> intern = new HashMap<>();
+        Map<String, Integer> exchangeIndex = new HashMap<>();
+        List<String> exchangeList = new ArrayList<>();
+
+        String[] symbols = new String[n];
+        String[] brsymbols = new String[n];
+        String[] names = new String[n];
+        String[] tokens = new String[n];
+        String[] expiries = new String[n];
+        String[] types = new String[n];
+        String[] brexchanges = new String[n];
+        byte[] exchangeCodes = new byte[n];
+        double[] strikes = new double[n];
+        int[] lotSizes = new int[n];
+        double[] tickSizes = new double[n];
+
+        int row = 0;
+        for (JsonElement element : data) {
+            JsonObject o = element.getAsJsonObject();
+            String symbol = JsonFields.text(o, "symbol");
+            String exchange = JsonFields.text(o, "exchange");
+            if (symbol == null || exchange == null) {
+                continue;
+            }
+            Integer code = exchangeIndex.get(exchange);
+            if (code == null) {
+                code = exchangeList.size();
+                if (code > Byte.MAX_VALUE) {
+                    throw new IllegalStateException("Too many exchanges in instrument master");
+                }
+                exchangeIndex.put(exchange, code);
+                exchangeList.add(exchange);
+            }
+            symbols[row] = symbol;
+            brsymbols[row] = JsonFields.text(o, "brsymbol");
+            names[row] = intern(intern, JsonFields.text(o, "name"));
+            tokens[row] = JsonFields.text(o, "token");
+            expiries[row] = intern(intern, JsonFields.text(o, "expiry"));
+            types[row] = intern(intern, JsonFields.text(o, "instrumenttype"));
+            brexchanges[row] = intern(intern, JsonFields.text(o, "brexchange"));
+            exchangeCodes[row] = (byte) (int) code;
+            strikes[row] = JsonFields.number(o, "strike");
+            lotSizes[row] = (int) JsonFields.number(o, "lotsize");
+            tickSizes[row] = JsonFields.number(o, "tick_size");
+            row++;
+        }
+
+        return new InstrumentMaster(row, Arrays.copyOf(symbols, row), Arrays.copyOf(brsymbols, row),
+                Arrays.copyOf(names, row), Arrays.copyOf(tokens, row), Arrays.copyOf(expiries, row),
+                Arrays.copyOf(types, row), Arrays.copyOf(brexchanges, row), exchangeList.toArray(new String[0]),
+                Arrays.copyOf(exchangeCodes, row), Arrays.copyOf(strikes, row), Arrays.copyOf(lotSizes, row),
+                Arrays.copyOf(tickSizes, row), LocalDate.now(CandleStore.MARKET_ZONE));
+    }
+
+    private static String intern(Map<String, String> pool, String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = pool.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    /**
+     * Converts an expiry such as {@code 30-DEC-25} or {@code 30DEC25} to a sortable yyyymmdd int.
+     *
+     * @param expiry Expiry string
+     * @return yyyymmdd, or 0 if the expiry is empty or not recognised
+     */
+    public static int expiryKey(String expiry) {
+        if (expiry == null) {
+            return 0;
+        }
+        String e = expiry.replace("-", "").toUpperCase(Locale.ROOT);
+        if (e.length() != 7 && e.length() != 9) {
+            return 0;
+        }
+        int month = Arrays.asList(MONTHS).indexOf(e.substring(2, 5)) + 1;
+        if (month == 0) {
+            return 0;
+        }
+        try {
+            int day = Integer.parseInt(e.substring(0, 2));
+            int year = Integer.parseInt(e.substring(5));
+            if (year < 100) {
+                year += 2000;
+            }
+            return year * 10000 + month * 100 + day;
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    private static int hash(int exchangeCode, String key) {
+        int h = key.hashCode() * 31 + exchangeCode;
+        return h ^ (h >>> 16);
+    }
+
+    private static void insert(int[] table, int hash, int row) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != -1) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = row;
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, List<Integer>> lists, Comparator<Integer> order) {
+        Map<String, int[]> result = new HashMap<>(lists.size() * 2);
+        for (Map.Entry<String, List<Integer>> entry : lists.entrySet()) {
+            List<Integer> rows = entry.getValue();
+            if (order != null) {
+                rows.sort(order);
+            }
+            int[] array = new int[rows.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = rows.get(i);
+            }
+            result.put(entry.getKey(), array);
+        }
+        return result;
+    }
+
+    private static String chainKey(String exchange, String name, String expiry) {
+        return exchange + ":" + name + ":" + expiry;
+    }
+
+    private int exchangeCode(String exchange) {
+        for (int i = 0; i < exchangeTable.length; i++) {
+            if (exchangeTable[i].equals(exchange)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds a row by exchange and symbol.
+     *
+     * @param exchange Exchange code
+     * @param symbol   Trading symbol
+     * @return row index, or -1 if not found
+     */
+    public int find(String exchange, String symbol) {
+        int code = exchangeCode(exchange);
+        if (code < 0 || symbol == null) {
+            return -1;
+        }
+        int mask = symbolTable.length - 1;
+        int slot = hash(code, symbol) & mask;
+        int row;
+        while ((row = symbolTable[slot]) != -1) {
+            if (exchangeCodes[row] == code && symbols[row].equals(symbol)) {
+                return row;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds a row by exchange and broker token.
+     *
+     * @param exchange Exchange code
+     * @param token    Instrument token
+     * @return row index, or -1 if not found
+     */
+    public int findByToken(String exchange, String token) {
+        int code = exchangeCode(exchange);
+        if (code < 0 || token == null) {
+            return -1;
+        }
+        int mask = tokenTable.length - 1;
+        int slot = hash(code, token) & mask;
+        int row;
+        while ((row = tokenTable[slot]) != -1) {
+            if (exchangeCodes[row] == code && token.equals(tokens[row])) {
+                return row;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds rows whose symbol starts with a prefix (case-insensitive).
+     *
+     * @param prefix   Symbol prefix
+     * @param exchange Exchange filter (optional)
+     * @param limit    Maximum number of rows
+     * @return matching rows in symbol order
+     */
+    public int[] findByPrefix(String prefix, String exchange, int limit) {
+        String key = prefix.toUpperCase(Locale.ROOT);
+        int code = exchange != null ? exchangeCode(exchange) : -1;
+        if (exchange != null && code < 0) {
+            return new int[0];
+        }
+        int from = lowerBound(key);
+        int to = prefixEnd(key, from);
+        int[] result = new int[Math.min(limit, to - from)];
+        int n = 0;
+        for (int i = from; i < to && n < result.length; i++) {
+            int row = sortedBySymbol[i];
+            if (code < 0 || exchangeCodes[row] == code) {
+                result[n++] = row;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    // First position from {@code from} whose key does not start with the prefix; the keys
+    // sharing a prefix are contiguous in sort order
+    private int prefixEnd(String prefix, int from) {
+        int lo = from;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sortedSymbolKeys[mid].startsWith(prefix)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int lowerBound(String key) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sortedSymbolKeys[mid].compareTo(key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Gets all rows of an underlying.
+     *
+     * @param name Underlying name, e.g. NIFTY
+     * @return rows, empty if none
+     */
+    public int[] findByUnderlying(String name) {
+        return byUnderlying.getOrDefault(name, new int[0]).clone();
+    }
+
+    /**
+     * Gets all rows with an expiry.
+     *
+     * @param expiry Expiry in DD-MMM-YY format
+     * @return rows, empty if none
+     */
+    public int[] findByExpiry(String expiry) {
+        return byExpiry.getOrDefault(expiry, new int[0]).clone();
+    }
+
+    /**
+     * Gets the option rows of an underlying and expiry ordered by strike.
+     * CE and PE rows of the same strike are adjacent.
+     *
+     * @param exchange Derivatives exchange, e.g. NFO
+     * @param name     Underlying name, e.g. NIFTY
+     * @param expiry   Expiry in DD-MMM-YY or DDMMMYY format
+     * @return rows ordered by strike, empty if none
+     */
+    public int[] optionChain(String exchange, String name, String expiry) {
+        int[] rows = chains.get(chainKey(exchange, name, normalizeExpiry(expiry)));
+        return rows == null ? new int[0] : rows.clone();
+    }
+
+    /**
+     * Gets the option expiries of an underlying in date order.
+     *
+     * @param exchange Derivatives exchange, e.g. NFO
+     * @param name     Underlying name, e.g. NIFTY
+     * @return expiries in DD-MMM-YY format
+     */
+    public List<String> optionExpiries(String exchange, String name) {
+        Expiries list = optionExpiries.get(exchange + ":" + name);
+        return list == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(list.values));
+    }
+
+    /**
+     * Gets the first option expiry of an underlying on or after a date.
+     *
+     * @param exchange Derivatives exchange, e.g. NFO
+     * @param name     Underlying name, e.g. NIFTY
+     * @param date     Earliest expiry date
+     * @return expiry in DD-MMM-YY format, or null if none
+     */
+    public String nearestOptionExpiry(String exchange, String name, LocalDate date) {
+        Expiries list = optionExpiries.get(exchange + ":" + name);
+        if (list == null) {
+            return null;
+        }
+        int key = date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+        int i = Arrays.binarySearch(list.keys, key);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return i < list.keys.length ? list.values[i] : null;
+    }
+
+    private String normalizeExpiry(String expiry) {
+        if (expiry == null || expiry.contains("-") || expiry.length() != 7) {
+            return expiry;
+        }
+        String e = expiry.toUpperCase(Locale.ROOT);
+        return e.substring(0, 2) + "-" + e.substring(2, 5) + "-" + e.substring(5);
+    }
+
+    /**
+     * Local equivalent of {@code symbol()}.
+     *
+     * @param symbol   Trading symbol
+     * @param exchange Exchange code
+     * @return JsonObject in the same shape as the symbol() response
+     */
+    public JsonObject symbol(String symbol, String exchange) {
+        int row = find(exchange, symbol);
+        JsonObject response = new JsonObject();
+        if (row < 0) {
+            response.addProperty("status", "error");
+            response.addProperty("message", "Symbol not found");
+            return response;
+        }
+        response.addProperty("status", "success");
+        response.add("data", toJson(row));
+        return response;
+    }
+
+    /**
+     * Local equivalent of {@code search()}. The first word of the query is matched as a symbol
+     * prefix and every other word must appear in the symbol.
+     *
+     * @param query    Search query, e.g. "NIFTY 26000 DEC CE"
+     * @param exchange Exchange filter (optional)
+     * @return JsonObject in the same shape as the search() response
+     */
+    public JsonObject search(String query, String exchange) {
+        String[] terms = query.trim().toUpperCase(Locale.ROOT).split("\\s+");
+        JsonArray data = new JsonArray();
+        int code = exchange != null ? exchangeCode(exchange) : -1;
+        int from = exchange != null && code < 0 ? 0 : lowerBound(terms[0]);
+        int to = exchange != null && code < 0 ? 0 : prefixEnd(terms[0], from);
+        for (int i = from; i < to; i++) {
+            int row = sortedBySymbol[i];
+            if (code >= 0 && exchangeCodes[row] != code) {
+                continue;
+            }
+            String upper = sortedSymbolKeys[i];
+            boolean match = true;
+            for (int t = 1; t < terms.length && match; t++) {
+                match = upper.contains(terms[t]);
+            }
+            if (match) {
+                data.add(toJson(row));
+            }
+        }
+        JsonObject response = new JsonObject();
+        response.addProperty("status", "success");
+        response.addProperty("message", "Found " + data.size() + " matching symbols");
+        response.add("data", data);
+        return response;
+    }
+
+    /**
+     * Converts a row to a JsonObject with the instruments() field names.
+     *
+     * @param row row index
+     * @return JsonObject
+     */
+    public JsonObject toJson(int row) {
+        JsonObject o = new JsonObject();
+        o.addProperty("symbol", symbols[row]);
+        o.addProperty("brsymbol", brsymbols[row]);
+        o.addProperty("name", names[row]);
+        o.addProperty("exchange", exchange(row));
+        o.addProperty("brexchange", brexchanges[row]);
+        o.addProperty("token", tokens[row]);
+        o.addProperty("expiry", expiries[row]);
+        o.addProperty("strike", strikes[row]);
+        o.addProperty("lotsize", lotSizes[row]);
+        o.addProperty("instrumenttype", instrumentTypes[row]);
+        o.addProperty("tick_size", tickSizes[row]);
+        return o;
+    }
+
+    /**
+     * Checks whether a row is a CE or PE option.
+     */
+    public boolean isOption(int row) {
+        String type = instrumentTypes[row];
+        String symbol = symbols[row];
+        return "CE".equals(type) || "PE".equals(type)
+                || (type != null && type.startsWith("OPT") && (symbol.endsWith("CE") || symbol.endsWith("PE")));
+    }
+
+    /**
+     * Checks whether an option row is a call. Uses the CE/PE suffix of the symbol.
+     */
+    public boolean isCall(int row) {
+        return symbols[row].endsWith("CE");
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String symbol(int row) {
+        return symbols[row];
+    }
+
+    public String brsymbol(int row) {
+        return brsymbols[row];
+    }
+
+    public String name(int row) {
+        return names[row];
+    }
+
+    public String exchange(int row) {
+        return exchangeTable[exchangeCodes[row]];
+    }
+
+    public String brexchange(int row) {
+        return brexchanges[row];
+    }
+
+    public String token(int row) {
+        return tokens[row];
+    }
+
+    public String expiry(int row) {
+        return expiries[row];
+    }
+
+    /** Expiry as a yyyymmdd int, 0 for instruments without expiry. */
+    public int expiryKey(int row) {
+        return expiryKeys[row];
+    }
+
+    public double strike(int row) {
+        return strikes[row];
+    }
+
+    public int lotSize(int row) {
+        return lotSizes[row];
+    }
+
+    public String instrumentType(int row) {
+        return instrumentTypes[row];
+    }
+
+    public double tickSize(int row) {
+        return tickSizes[row];
+    }
+
+    /**
+     * Gets the date this master was downloaded, in exchange time.
+     *
+     * @return download date
+     */
+    public LocalDate getLoadedOn() {
+        return loadedOn;
+    }
+
+    /**
+     * Checks whether the master was downloaded before today (exchange time).
+     *
+     * @return true if a new download is due
+     */
+    public boolean isStale() {
+        return loadedOn.isBefore(LocalDate.now(CandleStore.MARKET_ZONE));
+    }
+}
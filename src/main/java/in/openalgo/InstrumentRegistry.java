@@ -0,0 +1,176 @@
+package in.openalgo;
+
+import java.util.Arrays;
+
+/**
+ * Dense int ids for exchange + symbol pairs.
+ *
+ * Ids are assigned in order from 0 and never reused, so per-instrument state can live in
+ * plain arrays indexed by id. {@link #find(CharSequence, CharSequence)} resolves a pair
+ * with an open-addressing table without building a combined key, so looking up an incoming
+ * message allocates nothing. Lookups read a table published through a volatile field and
+ * never lock. Registering fills spare capacity and publishes the new size; the arrays are
+ * copied only when they double, so registering n instruments costs O(n) overall.
+ *
+ * Example usage:
+ * <pre>
+ * InstrumentRegistry registry = client.getInstrumentRegistry();
+ * int id = registry.find("NSE", "SBIN");   // -1 until subscribed
+ * String symbol = registry.getSymbol(id);
+ * </pre>
+ */
+public final class InstrumentRegistry {
+
+    // Lookup table. Entries below size never change; register writes beyond size, or into
+    // empty slots, before publishing a new Table, so readers only trust ids below their size.
+    private static final class Table {
+        final String[] exchangeNames;
+        final int[] exchangeOf;
+        final String[] symbols;
+        final int size;
+        // slot -> id + 1, 0 for empty
+        final int[] slots;
+
+        Table(String[] exchangeNames, int[] exchangeOf, String[] symbols, int size, int[] slots) {
+            this.exchangeNames = exchangeNames;
+            this.exchangeOf = exchangeOf;
+            this.symbols = symbols;
+            this.size = size;
+            this.slots = slots;
+        }
+    }
+
+    private volatile Table table = new Table(new String[0], new int[0], new String[0], 0, new int[16]);
+
+    /**
+     * Gets the id of an instrument, assigning the next id if it is new.
+     *
+     * @param exchange Exchange code
+     * @param symbol   Trading symbol
+     * @return Instrument id
+     */
+    public synchronized int register(String exchange, String symbol) {
+        int id = find(exchange, symbol);
+        if (id >= 0) {
+            return id;
+        }
+        Table t = table;
+        String[] exchangeNames = t.exchangeNames;
+        int exchangeIndex = exchangeIndex(exchangeNames, exchange);
+        if (exchangeIndex < 0) {
+            exchangeIndex = exchangeNames.length;
+            exchangeNames = Arrays.copyOf(exchangeNames, exchangeIndex + 1);
+            exchangeNames[exchangeIndex] = exchange;
+        }
+        id = t.size;
+        int size = id + 1;
+        int[] exchangeOf = t.exchangeOf;
+        String[] symbols = t.symbols;
+        if (size > symbols.length) {
+            int capacity = Math.max(16, symbols.length * 2);
+            exchangeOf = Arrays.copyOf(exchangeOf, capacity);
+            symbols = Arrays.copyOf(symbols, capacity);
+        }
+        exchangeOf[id] = exchangeIndex;
+        symbols[id] = symbol;
+
+        // Keep the table at most half full
+        int[] slots = t.slots;
+        if (size * 2 > slots.length) {
+            slots = new int[slots.length * 2];
+            for (int i = 0; i < id; i++) {
+                insert(slots, hash(exchangeOf[i], symbols[i]), i);
+            }
+        }
+        insert(slots, hash(exchangeIndex, symbol), id);
+        table = new Table(exchangeNames, exchangeOf, symbols, size, slots);
+        return id;
+    }
+
+    private static void insert(int[] slots, int hash, int id) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = id + 1;
+    }
+
+    /**
+     * Finds the id of an instrument without assigning one.
+     *
+     * @param exchange Exchange code
+     * @param symbol   Trading symbol
+     * @return Instrument id, or -1 if not registered
+     */
+    public int find(CharSequence exchange, CharSequence symbol) {
+        Table t = table;
+        int exchangeIndex = exchangeIndex(t.exchangeNames, exchange);
+        if (exchangeIndex < 0) {
+            return -1;
+        }
+        int mask = t.slots.length - 1;
+        int slot = hash(exchangeIndex, symbol) & mask;
+        while (true) {
+            int id = t.slots[slot] - 1;
+            if (id < 0 || id >= t.size) {
+                // Empty, or filled by a register after this table was published
+                return -1;
+            }
+            if (t.exchangeOf[id] == exchangeIndex && t.symbols[id].contentEquals(symbol)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Gets the exchange of an id.
+     *
+     * @param id Instrument id
+     * @return Exchange code
+     */
+    public String getExchange(int id) {
+        Table t = table;
+        return t.exchangeNames[t.exchangeOf[id]];
+    }
+
+    /**
+     * Gets the trading symbol of an id.
+     *
+     * @param id Instrument id
+     * @return Trading symbol
+     */
+    public String getSymbol(int id) {
+        return table.symbols[id];
+    }
+
+    /** @return Number of registered instruments; ids are 0 to size - 1 */
+    public int size() {
+        return table.size;
+    }
+
+    private static int exchangeIndex(String[] exchangeNames, CharSequence exchange) {
+        for (int i = 0; i < exchangeNames.length; i++) {
+            if (exchangeNames[i].contentEquals(exchange)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int hash(int exchangeIndex, CharSequence symbol) {
+        int h;
+        if (symbol instanceof String) {
+            h = symbol.hashCode();
+        } else {
+            // Same value as String.hashCode()
+            h = 0;
+            for (int i = 0; i < symbol.length(); i++) {
+                h = 31 * h + symbol.charAt(i);
+            }
+        }
+        h = h * 31 + exchangeIndex;
+        return h ^ (h >>> 16);
+    }
+}
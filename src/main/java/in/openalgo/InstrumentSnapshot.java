@@ -0,0 +1,353 @@
+package in.openalgo;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Versioned binary snapshot of an {@link InstrumentMaster}.
+ *
+ * The snapshot stores a de-duplicated string table, the master's columns as string
+ * references and primitives, and the master's lookup indexes: the hash tables, the symbol
+ * order and the underlying, expiry and option chain groups. Opening it maps the file
+ * read-only and bulk-reads the columns and indexes; each distinct string is decoded once and
+ * nothing is parsed, hashed or sorted again.
+ *
+ * The header records the download date, the exchange filter and an optional data version.
+ * {@link #load} reuses the snapshot while all three still match and downloads a fresh
+ * master otherwise.
+ *
+ * Example usage:
+ * <pre>
+ * // Reuses instruments.bin for the rest of the day, refreshes it on the first start of the next day
+ * InstrumentMaster master = InstrumentSnapshot.load(client, Paths.get("instruments.bin"), null);
+ * </pre>
+ */
+public final class InstrumentSnapshot {
+
+    private static final int MAGIC = 0x4F41_494D; // "OAIM"
+    private static final int FORMAT_VERSION = 2;
+
+    private InstrumentSnapshot() {
+    }
+
+    /**
+     * Opens the snapshot if it is current, otherwise downloads the master and rewrites it.
+     *
+     * @param api      Client used for the instruments() call
+     * @param file     Snapshot file
+     * @param exchange Exchange filter (optional, null for all exchanges)
+     * @return InstrumentMaster
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static InstrumentMaster load(DataApi api, Path file, String exchange) throws IOException {
+        return load(api, file, exchange, null);
+    }
+
+    /**
+     * Opens the snapshot if it is from today, for the same exchange filter and the same data
+     * version; otherwise downloads the master and rewrites the snapshot.
+     *
+     * @param api         Client used for the instruments() call
+     * @param file        Snapshot file
+     * @param exchange    Exchange filter (optional, null for all exchanges)
+     * @param dataVersion Version reported by the server for the master (optional)
+     * @return InstrumentMaster
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static InstrumentMaster load(DataApi api, Path file, String exchange, String dataVersion) throws IOException {
+        if (Files.exists(file)) {
+            try {
+                Header header = readHeader(file);
+                if (header.loadedOn.equals(LocalDate.now(CandleStore.MARKET_ZONE))
+                        && Objects.equals(header.exchange, exchange)
+                        && (dataVersion == null || dataVersion.equals(header.dataVersion))) {
+                    return open(file);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Unreadable or outdated format: fall through and rebuild
+            }
+        }
+        InstrumentMaster master = InstrumentMaster.load(api, exchange);
+        write(master, file, exchange, dataVersion);
+        return master;
+    }
+
+    /**
+     * Writes a snapshot, replacing the file atomically.
+     *
+     * @param master      Master to persist
+     * @param file        Snapshot file
+     * @param exchange    Exchange filter the master was downloaded with (optional)
+     * @param dataVersion Data version to record (optional)
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(InstrumentMaster master, Path file, String exchange, String dataVersion) throws IOException {
+        int n = master.size;
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> table = new ArrayList<>();
+        String[][] columns = {
+            master.symbols, master.brsymbols, master.names, master.tokens,
+            master.expiries, master.instrumentTypes, master.brexchanges
+        };
+        int[][] refs = new int[columns.length][n];
+        for (int c = 0; c < columns.length; c++) {
+            for (int i = 0; i < n; i++) {
+                refs[c][i] = ref(columns[c][i], ids, table);
+            }
+        }
+        int[] exchangeRefs = new int[master.exchangeTable.length];
+        for (int i = 0; i < exchangeRefs.length; i++) {
+            exchangeRefs[i] = ref(master.exchangeTable[i], ids, table);
+        }
+        // Group keys go into the string table too, so they are referenced like the columns
+        List<Map<String, int[]>> groups = List.of(master.byUnderlying, master.byExpiry, master.chains);
+        for (Map<String, int[]> group : groups) {
+            for (String key : group.keySet()) {
+                ref(key, ids, table);
+            }
+        }
+        for (Map.Entry<String, InstrumentMaster.Expiries> entry : master.optionExpiries.entrySet()) {
+            ref(entry.getKey(), ids, table);
+            for (String value : entry.getValue().values) {
+                ref(value, ids, table);
+            }
+        }
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(master.loadedOn.toEpochDay());
+            writeString(out, exchange);
+            writeString(out, dataVersion);
+            out.writeInt(n);
+            out.writeInt(table.size());
+            out.writeInt(exchangeRefs.length);
+
+            for (String s : table) {
+                writeString(out, s);
+            }
+            for (int ref : exchangeRefs) {
+                out.writeInt(ref);
+            }
+            for (int[] column : refs) {
+                for (int ref : column) {
+                    out.writeInt(ref);
+                }
+            }
+            out.write(master.exchangeCodes, 0, n);
+            for (int i = 0; i < n; i++) {
+                out.writeDouble(master.strikes[i]);
+            }
+            for (int i = 0; i < n; i++) {
+                out.writeInt(master.lotSizes[i]);
+            }
+            for (int i = 0; i < n; i++) {
+                out.writeDouble(master.tickSizes[i]);
+            }
+
+            writeInts(out, master.expiryKeys);
+            out.writeInt(master.symbolTable.length);
+            writeInts(out, master.symbolTable);
+            writeInts(out, master.tokenTable);
+            writeInts(out, master.sortedBySymbol);
+            for (Map<String, int[]> group : groups) {
+                out.writeInt(group.size());
+                for (Map.Entry<String, int[]> entry : group.entrySet()) {
+                    out.writeInt(ids.get(entry.getKey()));
+                    out.writeInt(entry.getValue().length);
+                    writeInts(out, entry.getValue());
+                }
+            }
+            out.writeInt(master.optionExpiries.size());
+            for (Map.Entry<String, InstrumentMaster.Expiries> entry : master.optionExpiries.entrySet()) {
+                InstrumentMaster.Expiries expiries = entry.getValue();
+                out.writeInt(ids.get(entry.getKey()));
+                out.writeInt(expiries.keys.length);
+                writeInts(out, expiries.keys);
+                for (String value : expiries.values) {
+                    out.writeInt(ids.get(value));
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Opens a snapshot through a read-only memory mapping.
+     *
+     * @param file Snapshot file
+     * @return InstrumentMaster
+     * @throws IOException if the file is missing or not a snapshot
+     */
+    public static InstrumentMaster open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Header header = readHeader(buffer, file);
+            int n = buffer.getInt();
+            int tableSize = buffer.getInt();
+            int exchangeCount = buffer.getInt();
+
+            String[] table = new String[tableSize];
+            for (int i = 0; i < tableSize; i++) {
+                table[i] = readString(buffer);
+            }
+            String[] exchangeTable = new String[exchangeCount];
+            for (int i = 0; i < exchangeCount; i++) {
+                exchangeTable[i] = deref(table, buffer.getInt());
+            }
+            String[][] columns = new String[7][n];
+            for (String[] column : columns) {
+                for (int i = 0; i < n; i++) {
+                    column[i] = deref(table, buffer.getInt());
+                }
+            }
+            byte[] exchangeCodes = new byte[n];
+            buffer.get(exchangeCodes);
+            double[] strikes = new double[n];
+            buffer.asDoubleBuffer().get(strikes);
+            buffer.position(buffer.position() + n * 8);
+            int[] lotSizes = new int[n];
+            buffer.asIntBuffer().get(lotSizes);
+            buffer.position(buffer.position() + n * 4);
+            double[] tickSizes = new double[n];
+            buffer.asDoubleBuffer().get(tickSizes);
+            buffer.position(buffer.position() + n * 8);
+
+            InstrumentMaster.Indexes indexes = new InstrumentMaster.Indexes();
+            indexes.expiryKeys = readInts(buffer, n);
+            int tableLength = buffer.getInt();
+            indexes.symbolTable = readInts(buffer, tableLength);
+            indexes.tokenTable = readInts(buffer, tableLength);
+            indexes.sortedBySymbol = readInts(buffer, n);
+            indexes.byUnderlying = readGroup(buffer, table);
+            indexes.byExpiry = readGroup(buffer, table);
+            indexes.chains = readGroup(buffer, table);
+            int count = buffer.getInt();
+            indexes.optionExpiries = new HashMap<>(count * 2);
+            for (int g = 0; g < count; g++) {
+                String key = deref(table, buffer.getInt());
+                int length = buffer.getInt();
+                int[] keys = readInts(buffer, length);
+                String[] values = new String[length];
+                for (int i = 0; i < length; i++) {
+                    values[i] = deref(table, buffer.getInt());
+                }
+                indexes.optionExpiries.put(key, new InstrumentMaster.Expiries(keys, values));
+            }
+
+            return new InstrumentMaster(n, columns[0], columns[1], columns[2], columns[3], columns[4],
+                    columns[5], columns[6], exchangeTable, exchangeCodes, strikes, lotSizes, tickSizes,
+                    header.loadedOn, indexes);
+        }
+    }
+
+    private static Map<String, int[]> readGroup(ByteBuffer buffer, String[] table) {
+        int count = buffer.getInt();
+        Map<String, int[]> group = new HashMap<>(count * 2);
+        for (int g = 0; g < count; g++) {
+            String key = deref(table, buffer.getInt());
+            group.put(key, readInts(buffer, buffer.getInt()));
+        }
+        return group;
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int length) {
+        int[] values = new int[length];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + length * 4);
+        return values;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int ref(String value, Map<String, Integer> ids, List<String> table) {
+        if (value == null) {
+            return -1;
+        }
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = table.size();
+            ids.put(value, id);
+            table.add(value);
+        }
+        return id;
+    }
+
+    private static String deref(String[] table, int ref) {
+        return ref < 0 ? null : table[ref];
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Header readHeader(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = Math.min(channel.size(), 4096);
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            channel.read(buffer, 0);
+            buffer.flip();
+            return readHeader(buffer, file);
+        }
+    }
+
+    private static Header readHeader(ByteBuffer buffer, Path file) throws IOException {
+        if (buffer.remaining() < 16 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not an instrument snapshot: " + file);
+        }
+        int version = buffer.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported instrument snapshot version " + version + ": " + file);
+        }
+        Header header = new Header();
+        header.loadedOn = LocalDate.ofEpochDay(buffer.getLong());
+        header.exchange = readString(buffer);
+        header.dataVersion = readString(buffer);
+        return header;
+    }
+
+    private static final class Header {
+        LocalDate loadedOn;
+        String exchange;
+        String dataVersion;
+    }
+}
@@ -0,0 +1,55 @@
+package in.openalgo;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Lenient field readers for API response rows.
+ *
+ * Brokers leave fields out, send null or send numbers as strings, so a missing, null or
+ * unparseable value reads as a default instead of throwing.
+ */
+final class JsonFields {
+
+    private JsonFields() {
+    }
+
+    /**
+     * Reads a field as text.
+     *
+     * @return Value, or null if the field is missing or null
+     */
+    static String text(JsonObject object, String key) {
+        JsonElement element = object == null ? null : object.get(key);
+        return element == null || element.isJsonNull() ? null : element.getAsString();
+    }
+
+    /**
+     * Reads a field as a number.
+     *
+     * @return Value, or 0 if the field is missing, null or not a number
+     */
+    static double number(JsonObject object, String key) {
+        return number(object, key, 0);
+    }
+
+    /**
+     * Reads a field as a number.
+     *
+     * @param object  Row, may be null
+     * @param key     Field name
+     * @param missing Value returned if the row or field is missing, null or not a number
+     * @return Value
+     */
+    static double number(JsonObject object, String key, double missing) {
+        JsonElement element = object == null ? null : object.get(key);
+        if (element == null || element.isJsonNull()) {
+            return missing;
+        }
+        try {
+            return element.getAsDouble();
+        } catch (RuntimeException e) {
+            return missing;
+        }
+    }
+}
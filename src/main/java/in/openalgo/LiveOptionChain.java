@@ -0,0 +1,514 @@
+package in.openalgo;
+
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Option chain kept current from the WebSocket feed.
+ *
+ * The strike ladder of one underlying and expiry is loaded from an {@link InstrumentMaster}.
+ * Strikes within {@code window} strikes of ATM are subscribed in Quote mode and their ticks
+ * are written into strike-indexed primitive arrays. When the underlying moves far enough for
+ * ATM to shift by {@code recenterThreshold} strikes, the window is re-centered: strikes that
+ * enter it are subscribed and strikes that leave it are unsubscribed. Apart from an optional
+ * quotes() call for the initial underlying price, no REST calls are made.
+ *
+ * {@link #snapshot()} returns a consistent copy of the window using an optimistic read, so
+ * readers never block the feed thread. Listeners are notified on every option tick and on
+ * every re-center.
+ *
+ * Example usage:
+ * <pre>
+ * client.connect();
+ * LiveOptionChain chain = new LiveOptionChain(client, master, "NIFTY", "NSE_INDEX", null, 10);
+ * chain.addListener((c, strike, optionType, ltp, volume) -&gt;
+ *     System.out.println(strike + optionType + " " + ltp));
+ * chain.start();
+ * OptionChainSnapshot snapshot = chain.snapshot();
+ * GreeksEngine.Chain greeks = chain.greeks(snapshot, 6.5);
+ * </pre>
+ */
+public class LiveOptionChain implements AutoCloseable {
+
+    /**
+     * Receives chain updates on the feed thread.
+     */
+    @FunctionalInterface
+    public interface ChainListener {
+        /**
+         * Called after an option tick was applied.
+         *
+         * @param chain      Source chain
+         * @param strike     Strike price
+         * @param optionType CE or PE
+         * @param ltp        Last traded price
+         * @param volume     Day volume, or -1 if unknown
+         */
+        void onChange(LiveOptionChain chain, double strike, String optionType, double ltp, long volume);
+
+        /**
+         * Called after the strike window moved to a new ATM strike.
+         *
+         * @param chain     Source chain
+         * @param atmStrike New ATM strike
+         */
+        default void onRecenter(LiveOptionChain chain, double atmStrike) {
+        }
+    }
+
+    private final FeedApi client;
+    private final String underlying;
+    private final String exchange;
+    private final String optionExchange;
+    private final String expiry;
+    private final int window;
+    private final int recenterThreshold;
+    private final OptionResolver.Ladder ladder;
+    private final String[] ceSymbols;
+    private final String[] peSymbols;
+    private final Map<String, Integer> contracts = new HashMap<>();
+    private final CopyOnWriteArrayList<ChainListener> listeners = new CopyOnWriteArrayList<>();
+    private final TickListener feedListener = new TickListener() {
+        @Override
+        public void onTick(Tick tick) {
+            onFeedTick(tick);
+        }
+    };
+
+    // Chain state, indexed by ladder position and guarded by lock
+    private final StampedLock lock = new StampedLock();
+    private final double[] ceLtp;
+    private final double[] peLtp;
+    private final long[] ceVolume;
+    private final long[] peVolume;
+    private final long[] ceOi;
+    private final long[] peOi;
+    private double spot = Double.NaN;
+    private int center = -1;
+    private int lo;
+    private int hi;
+    private long version;
+
+    // Subscription state, guarded by subscriptionLock
+    private final Object subscriptionLock = new Object();
+    private int subscribedLo;
+    private int subscribedHi;
+    private volatile boolean running;
+
+    // Warm-start IVs in percent, indexed by ladder position, guarded by this
+    private final double[] ceIv;
+    private final double[] peIv;
+    private ImpliedVolSolver solver = new ImpliedVolSolver();
+    private volatile ImpliedVolSolver.Stats lastSolveStats;
+
+    /**
+     * Creates a live chain that re-centers once ATM moves by a quarter of the window.
+     *
+     * @param client     Client providing the feed
+     * @param master     Instrument master holding the option contracts
+     * @param underlying Underlying symbol, e.g. NIFTY
+     * @param exchange   Underlying exchange, e.g. NSE_INDEX
+     * @param expiry     Expiry date in DDMMMYY or DD-MMM-YY format (null for the nearest expiry)
+     * @param window     Number of strikes subscribed on each side of ATM
+     */
+    public LiveOptionChain(FeedApi client, InstrumentMaster master, String underlying, String exchange,
+                           String expiry, int window) {
+        this(client, master, underlying, exchange, expiry, window, Math.max(1, window / 4));
+    }
+
+    /**
+     * Creates a live chain.
+     *
+     * @param client            Client providing the feed
+     * @param master            Instrument master holding the option contracts
+     * @param underlying        Underlying symbol, e.g. NIFTY
+     * @param exchange          Underlying exchange, e.g. NSE_INDEX
+     * @param expiry            Expiry date in DDMMMYY or DD-MMM-YY format (null for the nearest expiry)
+     * @param window            Number of strikes subscribed on each side of ATM
+     * @param recenterThreshold ATM move in strikes that triggers a re-center
+     */
+    public LiveOptionChain(FeedApi client, InstrumentMaster master, String underlying, String exchange,
+                           String expiry, int window, int recenterThreshold) {
+        if (window < 1 || recenterThreshold < 1) {
+            throw new IllegalArgumentException("window and recenterThreshold must be positive");
+        }
+        this.client = client;
+        this.underlying = underlying;
+        this.exchange = exchange;
+        this.optionExchange = OptionResolver.optionExchange(exchange);
+        this.expiry = expiry != null ? expiry : OptionResolver.nearestExpiry(master, optionExchange, underlying);
+        this.window = window;
+        this.recenterThreshold = recenterThreshold;
+        if (this.expiry == null) {
+            throw new IllegalArgumentException("No open expiry for " + underlying + " on " + optionExchange);
+        }
+        this.ladder = OptionResolver.Ladder.build(master, master.optionChain(optionExchange, underlying, this.expiry));
+        int n = ladder.strikes.length;
+        if (n == 0) {
+            throw new IllegalArgumentException("No contracts for " + underlying + " " + this.expiry);
+        }
+
+        ceSymbols = new String[n];
+        peSymbols = new String[n];
+        for (int i = 0; i < n; i++) {
+            if (ladder.calls[i] >= 0) {
+                ceSymbols[i] = master.symbol(ladder.calls[i]);
+                contracts.put(ceSymbols[i], i << 1);
+            }
+            if (ladder.puts[i] >= 0) {
+                peSymbols[i] = master.symbol(ladder.puts[i]);
+                contracts.put(peSymbols[i], i << 1 | 1);
+            }
+        }
+        ceLtp = filled(n, Double.NaN);
+        peLtp = filled(n, Double.NaN);
+        ceVolume = filled(n, -1L);
+        peVolume = filled(n, -1L);
+        ceOi = filled(n, -1L);
+        peOi = filled(n, -1L);
+        ceIv = new double[n];
+        peIv = new double[n];
+    }
+
+    private static double[] filled(int n, double value) {
+        double[] array = new double[n];
+        Arrays.fill(array, value);
+        return array;
+    }
+
+    private static long[] filled(int n, long value) {
+        long[] array = new long[n];
+        Arrays.fill(array, value);
+        return array;
+    }
+
+    /**
+     * Add a chain listener.
+     *
+     * @param listener Listener called on the feed thread
+     */
+    public void addListener(ChainListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a chain listener.
+     *
+     * @param listener Listener to remove
+     */
+    public void removeListener(ChainListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Replaces the solver used by {@link #greeks}.
+     *
+     * @param solver Solver with the desired tolerance
+     */
+    public synchronized void setSolver(ImpliedVolSolver solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * Attaches to the feed, subscribes the underlying and the strike window around ATM.
+     * If the underlying price is neither cached nor available from quotes(), the window is
+     * subscribed on the first underlying tick.
+     *
+     * @return true if the subscriptions were sent
+     */
+    public boolean start() {
+        synchronized (subscriptionLock) {
+            if (running) {
+                return true;
+            }
+            running = true;
+        }
+        client.addTickListener(feedListener);
+        boolean sent = client.subscribe(List.of(Map.of("exchange", exchange, "symbol", underlying)), 1);
+
+        double price = client.getLastPrice(exchange, underlying);
+        if (Double.isNaN(price)) {
+            JsonObject quote = client.quotes(underlying, exchange);
+            if (quote.has("data") && quote.get("data").isJsonObject()
+                    && quote.getAsJsonObject("data").has("ltp")) {
+                price = quote.getAsJsonObject("data").get("ltp").getAsDouble();
+            }
+        }
+        if (!Double.isNaN(price)) {
+            onSpot(price);
+        }
+        return sent;
+    }
+
+    /**
+     * Unsubscribes the strike window and the underlying and detaches from the feed.
+     */
+    @Override
+    public void close() {
+        synchronized (subscriptionLock) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            client.removeTickListener(feedListener);
+            client.unsubscribe(instruments(subscribedLo, subscribedHi, -1, -1), 2);
+            client.unsubscribe(List.of(Map.of("exchange", exchange, "symbol", underlying)), 1);
+            subscribedLo = 0;
+            subscribedHi = 0;
+        }
+    }
+
+    private void onFeedTick(Tick tick) {
+        QuoteTick quote = tick instanceof QuoteTick ? (QuoteTick) tick : null;
+        onTick(tick.getExchange(), tick.getSymbol(), tick.getLtp(),
+                quote != null ? quote.getVolume() : -1,
+                quote != null ? quote.getOi() : -1);
+    }
+
+    /**
+     * Applies a tick. Called from the feed; also usable to replay ticks offline. Option ticks
+     * for strikes outside the current window are ignored.
+     *
+     * @param exchange Exchange code
+     * @param symbol   Trading symbol of the underlying or of an option in this chain
+     * @param ltp      Last traded price
+     * @param volume   Day volume, or -1 if unknown
+     * @param oi       Open interest, or -1 if unknown
+     */
+    public void onTick(String exchange, String symbol, double ltp, long volume, long oi) {
+        if (underlying.equals(symbol) && this.exchange.equals(exchange)) {
+            onSpot(ltp);
+            return;
+        }
+        if (!optionExchange.equals(exchange)) {
+            return;
+        }
+        Integer code = contracts.get(symbol);
+        if (code == null) {
+            return;
+        }
+        int i = code >> 1;
+        boolean call = (code & 1) == 0;
+        long stamp = lock.writeLock();
+        try {
+            if (i < lo || i >= hi) {
+                // Strike outside the window, e.g. a tick still in flight after unsubscribing
+                return;
+            }
+            if (call) {
+                ceLtp[i] = ltp;
+                if (volume >= 0) {
+                    ceVolume[i] = volume;
+                }
+                if (oi >= 0) {
+                    ceOi[i] = oi;
+                }
+            } else {
+                peLtp[i] = ltp;
+                if (volume >= 0) {
+                    peVolume[i] = volume;
+                }
+                if (oi >= 0) {
+                    peOi[i] = oi;
+                }
+            }
+            version++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        String optionType = call ? "CE" : "PE";
+        for (ChainListener listener : listeners) {
+            listener.onChange(this, ladder.strikes[i], optionType, ltp, volume);
+        }
+    }
+
+    private void onSpot(double price) {
+        int atm = ladder.atm(price);
+        int newLo = Math.max(0, atm - window);
+        int newHi = Math.min(ladder.strikes.length, atm + window + 1);
+        boolean recentered = false;
+        long stamp = lock.writeLock();
+        try {
+            spot = price;
+            version++;
+            if (center < 0 || Math.abs(atm - center) >= recenterThreshold) {
+                clear(lo, hi, newLo, newHi);
+                center = atm;
+                lo = newLo;
+                hi = newHi;
+                recentered = true;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (recentered) {
+            resubscribe(newLo, newHi);
+            for (ChainListener listener : listeners) {
+                listener.onRecenter(this, ladder.strikes[atm]);
+            }
+        }
+    }
+
+    // Forgets the prices of strikes in [from, to) that are not in [keepFrom, keepTo), so a strike
+    // re-entering the window shows no stale values until its first tick
+    private void clear(int from, int to, int keepFrom, int keepTo) {
+        for (int i = from; i < to; i++) {
+            if (i >= keepFrom && i < keepTo) {
+                continue;
+            }
+            ceLtp[i] = Double.NaN;
+            peLtp[i] = Double.NaN;
+            ceVolume[i] = -1;
+            peVolume[i] = -1;
+            ceOi[i] = -1;
+            peOi[i] = -1;
+        }
+    }
+
+    private void resubscribe(int newLo, int newHi) {
+        synchronized (subscriptionLock) {
+            if (!running) {
+                return;
+            }
+            List<Map<String, String>> added = instruments(newLo, newHi, subscribedLo, subscribedHi);
+            List<Map<String, String>> removed = instruments(subscribedLo, subscribedHi, newLo, newHi);
+            if (!removed.isEmpty()) {
+                client.unsubscribe(removed, 2);
+            }
+            if (!added.isEmpty()) {
+                client.subscribe(added, 2);
+            }
+            subscribedLo = newLo;
+            subscribedHi = newHi;
+        }
+    }
+
+    // Contracts of strikes in [from, to) that are not in [skipFrom, skipTo)
+    private List<Map<String, String>> instruments(int from, int to, int skipFrom, int skipTo) {
+        List<Map<String, String>> list = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            if (i >= skipFrom && i < skipTo) {
+                continue;
+            }
+            if (ceSymbols[i] != null) {
+                list.add(Map.of("exchange", optionExchange, "symbol", ceSymbols[i]));
+            }
+            if (peSymbols[i] != null) {
+                list.add(Map.of("exchange", optionExchange, "symbol", peSymbols[i]));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Takes a consistent copy of the current strike window without blocking the feed.
+     *
+     * @return Snapshot of the window; empty until the underlying price is known
+     */
+    public OptionChainSnapshot snapshot() {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            OptionChainSnapshot snapshot = copy();
+            if (lock.validate(stamp)) {
+                return snapshot;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return copy();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Reads fields into locals first so a torn optimistic read cannot produce invalid ranges
+    private OptionChainSnapshot copy() {
+        int from = lo;
+        int to = hi;
+        int atm = center;
+        if (from > to || atm < 0) {
+            from = 0;
+            to = 0;
+        }
+        return new OptionChainSnapshot(underlying, expiry, spot,
+                atm < 0 ? Double.NaN : ladder.strikes[atm], version, from,
+                Arrays.copyOfRange(ladder.strikes, from, to),
+                Arrays.copyOfRange(ceSymbols, from, to), Arrays.copyOfRange(peSymbols, from, to),
+                Arrays.copyOfRange(ceLtp, from, to), Arrays.copyOfRange(peLtp, from, to),
+                Arrays.copyOfRange(ceVolume, from, to), Arrays.copyOfRange(peVolume, from, to),
+                Arrays.copyOfRange(ceOi, from, to), Arrays.copyOfRange(peOi, from, to));
+    }
+
+    /**
+     * Solves IVs and computes greeks for every contract of a snapshot. Each contract's IV is
+     * kept between calls and used as the next starting point.
+     *
+     * @param snapshot Snapshot taken from this chain
+     * @param rate     Risk-free rate in percent
+     * @return Chain with the CE of strike i at index 2i and the PE at 2i+1
+     */
+    public synchronized GreeksEngine.Chain greeks(OptionChainSnapshot snapshot, double rate) {
+        int n = snapshot.size();
+        int first = snapshot.firstIndex;
+        double years = GreeksEngine.yearsToExpiry(expiry, System.currentTimeMillis());
+        GreeksEngine.Chain chain = new GreeksEngine.Chain(n * 2);
+        chain.spot = snapshot.getSpot();
+        chain.rate = rate;
+        double[] prices = new double[n * 2];
+        for (int i = 0; i < n; i++) {
+            chain.add(snapshot.strikes[i], years, true, ceIv[first + i]);
+            chain.add(snapshot.strikes[i], years, false, peIv[first + i]);
+            prices[2 * i] = snapshot.ceLtp[i];
+            prices[2 * i + 1] = snapshot.peLtp[i];
+        }
+        lastSolveStats = solver.solve(chain, prices);
+        for (int i = 0; i < n; i++) {
+            // Keep the last good IV as the starting point when a contract fails to solve
+            if (!Double.isNaN(chain.vols[2 * i])) {
+                ceIv[first + i] = chain.vols[2 * i];
+            }
+            if (!Double.isNaN(chain.vols[2 * i + 1])) {
+                peIv[first + i] = chain.vols[2 * i + 1];
+            }
+        }
+        GreeksEngine.compute(chain);
+        return chain;
+    }
+
+    /** @return Convergence statistics of the last {@link #greeks} call, or null */
+    public ImpliedVolSolver.Stats getLastSolveStats() {
+        return lastSolveStats;
+    }
+
+    /** @return Underlying symbol */
+    public String getUnderlying() {
+        return underlying;
+    }
+
+    /** @return Expiry date in instrument master format */
+    public String getExpiry() {
+        return expiry;
+    }
+
+    /** @return Latest underlying price, or NaN if unknown */
+    public double getSpot() {
+        long stamp = lock.tryOptimisticRead();
+        double value = spot;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = spot;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+}
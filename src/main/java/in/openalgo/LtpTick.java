@@ -0,0 +1,47 @@
+package in.openalgo;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * LTP mode (1) update.
+ */
+public final class LtpTick extends Tick {
+
+    @Override
+    public int getMode() {
+        return 1;
+    }
+
+    void set(int id, String exchange, String symbol, double ltp, long timestamp) {
+        this.id = id;
+        this.exchange = exchange;
+        this.symbol = symbol;
+        this.ltp = ltp;
+        this.timestamp = timestamp;
+    }
+
+    void copyFrom(LtpTick tick) {
+        set(tick.id, tick.exchange, tick.symbol, tick.ltp, tick.timestamp);
+    }
+
+    @Override
+    public LtpTick copy() {
+        LtpTick tick = new LtpTick();
+        tick.copyFrom(this);
+        return tick;
+    }
+
+    @Override
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("ltp", ltp);
+        map.put("timestamp", timestamp);
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "LtpTick{" + exchange + ":" + symbol + " ltp=" + ltp + " ts=" + timestamp + "}";
+    }
+}
@@ -0,0 +1,342 @@
+package in.openalgo;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * margin() for baskets of any size, with a result cache.
+ *
+ * Positions are grouped by underlying (the name part of the trading symbol) and the
+ * groups are packed into chunks of at most 50 positions, so hedged legs of one underlying
+ * stay in the same request whenever the group fits. Chunks are evaluated concurrently on a
+ * small worker pool, each call taking a permit from a shared {@link RateLimiter}, and the
+ * numeric fields of the responses' data are summed. Margin offsets between legs that end
+ * up in different chunks are not applied, so results for very large single-underlying
+ * groups are conservative.
+ *
+ * Results are cached by the canonical leg set (order-independent) for a configurable time,
+ * so repeated what-if checks of the same basket do not call the server.
+ *
+ * Example usage:
+ * <pre>
+ * try (MarginService margins = new MarginService(client)) {
+ *     JsonObject response = margins.margin(legs);   // 300 legs: 6+ concurrent margin() calls
+ *     System.out.println(response.getAsJsonObject("data"));
+ * }
+ * </pre>
+ */
+public class MarginService implements AutoCloseable {
+
+    /** Maximum positions per margin() call. */
+    public static final int CHUNK_SIZE = 50;
+
+    private final AccountApi api;
+    private final ExecutorService pool;
+    private final RateLimiter rateLimiter;
+    private final long cacheTtlMillis;
+    private final int cacheSize;
+    private final LinkedHashMap<String, CacheEntry> cache;
+
+    /**
+     * Creates a service with 4 workers, 10 requests per second and a 30 second cache.
+     *
+     * @param api Client used for margin() calls
+     */
+    public MarginService(AccountApi api) {
+        this(api, 4, 10, 30_000, 256);
+    }
+
+    /**
+     * Creates a service.
+     *
+     * @param api               Client used for margin() calls
+     * @param workers           Concurrent margin() calls
+     * @param requestsPerSecond Rate limit shared by all calls
+     * @param cacheTtlMillis    How long a result is reused (0 disables the cache)
+     * @param cacheSize         Maximum number of cached baskets
+     */
+    public MarginService(AccountApi api, int workers, double requestsPerSecond, long cacheTtlMillis, int cacheSize) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        this.api = api;
+        this.rateLimiter = new RateLimiter(requestsPerSecond);
+        this.cacheTtlMillis = cacheTtlMillis;
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true);
+        this.pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "openalgo-margin");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static final class CacheEntry {
+        final JsonObject response;
+        final long expiresAt;
+
+        CacheEntry(JsonObject response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Calculates the margin of a basket of any size.
+     *
+     * @param positions List of position maps in the margin() format
+     * @return Response shaped like margin(), with data fields summed over chunks and a
+     *         "chunks" count; the first chunk error if any chunk failed
+     */
+    public JsonObject margin(List<Map<String, Object>> positions) {
+        if (positions == null || positions.isEmpty()) {
+            return api.margin(positions);
+        }
+        String key = cacheKey(positions);
+        JsonObject cached = cached(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            return submit(positions, key).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return error("Interrupted while calculating margin");
+        } catch (ExecutionException e) {
+            return error(String.valueOf(e.getCause()));
+        }
+    }
+
+    /**
+     * Calculates the margin of a basket without blocking the caller. The chunk calls run on
+     * the worker pool and the result is combined when the last one completes.
+     *
+     * @param positions List of position maps in the margin() format
+     * @return Future completing with the margin() response
+     */
+    public CompletableFuture<JsonObject> marginAsync(List<Map<String, Object>> positions) {
+        if (positions == null || positions.isEmpty()) {
+            return CompletableFuture.supplyAsync(() -> api.margin(positions), pool);
+        }
+        String key = cacheKey(positions);
+        JsonObject cached = cached(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return submit(positions, key);
+    }
+
+    private CompletableFuture<JsonObject> submit(List<Map<String, Object>> positions, String key) {
+        List<List<Map<String, Object>>> chunks = chunk(positions);
+        List<CompletableFuture<JsonObject>> futures = new ArrayList<>(chunks.size());
+        for (List<Map<String, Object>> chunk : chunks) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    rateLimiter.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return error("Interrupted while calculating margin");
+                }
+                return api.margin(chunk);
+            }, pool));
+        }
+        for (CompletableFuture<JsonObject> future : futures) {
+            // The first failed chunk decides the result; chunks not started yet are skipped
+            future.whenComplete((response, e) -> {
+                if (e != null || !success(response)) {
+                    futures.forEach(f -> f.cancel(false));
+                }
+            });
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .handle((ignored, e) -> combine(futures, chunks.size(), key));
+    }
+
+    // Sums the chunk responses, or returns the first chunk error in chunk order
+    private JsonObject combine(List<CompletableFuture<JsonObject>> futures, int chunks, String key) {
+        JsonObject data = new JsonObject();
+        for (CompletableFuture<JsonObject> future : futures) {
+            if (future.isCancelled()) {
+                continue;
+            }
+            JsonObject response;
+            try {
+                response = future.join();
+            } catch (CompletionException e) {
+                return error(String.valueOf(e.getCause()));
+            }
+            if (!success(response)) {
+                return response;
+            }
+            if (response.has("data") && response.get("data").isJsonObject()) {
+                add(data, response.getAsJsonObject("data"));
+            }
+        }
+
+        JsonObject result = new JsonObject();
+        result.addProperty("status", "success");
+        result.add("data", data);
+        result.addProperty("chunks", chunks);
+        if (cacheTtlMillis > 0) {
+            synchronized (cache) {
+                cache.put(key, new CacheEntry(result, System.currentTimeMillis() + cacheTtlMillis));
+                if (cache.size() > cacheSize) {
+                    cache.remove(cache.keySet().iterator().next());
+                }
+            }
+        }
+        return result.deepCopy();
+    }
+
+    private static boolean success(JsonObject response) {
+        return response != null && response.has("status") && "success".equals(response.get("status").getAsString());
+    }
+
+    /**
+     * Drops all cached results, e.g. after a large market move.
+     */
+    public void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Stops the worker pool.
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private JsonObject cached(String key) {
+        if (cacheTtlMillis <= 0) {
+            return null;
+        }
+        synchronized (cache) {
+            CacheEntry entry = cache.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt < System.currentTimeMillis()) {
+                cache.remove(key);
+                return null;
+            }
+            return entry.response.deepCopy();
+        }
+    }
+
+    /**
+     * Splits positions into chunks of at most {@link #CHUNK_SIZE}, keeping each underlying's
+     * positions together where possible (largest groups first, first fit).
+     */
+    static List<List<Map<String, Object>>> chunk(List<Map<String, Object>> positions) {
+        Map<String, List<Map<String, Object>>> groups = new LinkedHashMap<>();
+        for (Map<String, Object> position : positions) {
+            groups.computeIfAbsent(underlying(String.valueOf(position.get("symbol"))), k -> new ArrayList<>())
+                    .add(position);
+        }
+        List<List<Map<String, Object>>> sorted = new ArrayList<>(groups.values());
+        sorted.sort(Comparator.comparingInt(g -> -g.size()));
+
+        List<List<Map<String, Object>>> chunks = new ArrayList<>();
+        for (List<Map<String, Object>> group : sorted) {
+            int from = 0;
+            // Groups larger than a chunk fill whole chunks first
+            while (group.size() - from > CHUNK_SIZE) {
+                chunks.add(new ArrayList<>(group.subList(from, from + CHUNK_SIZE)));
+                from += CHUNK_SIZE;
+            }
+            List<Map<String, Object>> rest = group.subList(from, group.size());
+            List<Map<String, Object>> target = null;
+            for (List<Map<String, Object>> chunk : chunks) {
+                if (chunk.size() + rest.size() <= CHUNK_SIZE) {
+                    target = chunk;
+                    break;
+                }
+            }
+            if (target == null) {
+                target = new ArrayList<>();
+                chunks.add(target);
+            }
+            target.addAll(rest);
+        }
+        return chunks;
+    }
+
+    // Leading letters of a trading symbol, after any leading digits that are part of the
+    // name: NIFTY30DEC2526000CE -> NIFTY, 360ONE25DECFUT -> 360ONE, 3MINDIA -> 3MINDIA
+    static String underlying(String symbol) {
+        int end = 0;
+        while (end < symbol.length() && Character.isDigit(symbol.charAt(end))) {
+            end++;
+        }
+        while (end < symbol.length() && !Character.isDigit(symbol.charAt(end))) {
+            end++;
+        }
+        return end == 0 ? symbol : symbol.substring(0, end);
+    }
+
+    private static String cacheKey(List<Map<String, Object>> positions) {
+        List<String> legs = new ArrayList<>(positions.size());
+        for (Map<String, Object> p : positions) {
+            legs.add(p.get("exchange") + "|" + p.get("symbol") + "|" + p.get("action") + "|" + p.get("product")
+                    + "|" + p.get("pricetype") + "|" + p.get("quantity") + "|" + p.getOrDefault("price", "0")
+                    + "|" + p.getOrDefault("trigger_price", "0"));
+        }
+        legs.sort(null);
+        return String.join(";", legs);
+    }
+
+    private static void add(JsonObject total, JsonObject data) {
+        for (Map.Entry<String, JsonElement> entry : data.entrySet()) {
+            JsonElement value = entry.getValue();
+            JsonElement existing = total.get(entry.getKey());
+            Double number = number(value);
+            if (number != null && (existing == null || number(existing) != null)) {
+                double sum = existing == null ? number : number(existing) + number;
+                total.addProperty(entry.getKey(), sum);
+            } else if (existing == null) {
+                total.add(entry.getKey(), value);
+            }
+        }
+    }
+
+    private static Double number(JsonElement element) {
+        if (!element.isJsonPrimitive()) {
+            return null;
+        }
+        JsonPrimitive primitive = element.getAsJsonPrimitive();
+        if (primitive.isNumber()) {
+            return primitive.getAsDouble();
+        }
+        if (primitive.isString()) {
+            try {
+                return Double.parseDouble(primitive.getAsString());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static JsonObject error(String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("status", "error");
+        error.addProperty("message", message);
+        return error;
+    }
+}
@@ -0,0 +1,434 @@
+package in.openalgo;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Trading sessions per exchange, precomputed from holidays() and timings().
+ *
+ * For each loaded year the calendar takes the regular session times of every exchange from
+ * timings() on one normal trading day and lays them on every weekday, minus the holidays that
+ * close the exchange, plus any special sessions listed with a holiday (for example Muhurat
+ * trading). Sessions are stored as sorted epoch millis arrays, so {@link #isOpen},
+ * {@link #nextOpen} and {@link #nextClose} are binary searches and trading-day arithmetic is
+ * index arithmetic. No network calls are made after loading.
+ *
+ * {@link #load(UtilitiesApi, Path, int...)} keeps the server responses of each year in a
+ * cache directory and uses them instead of the server when present, so the calendar also
+ * works offline. Delete the cache file of a year to reload it. NSE_INDEX and BSE_INDEX follow
+ * NSE and BSE.
+ *
+ * Example usage:
+ * <pre>
+ * MarketCalendar calendar = MarketCalendar.load(client, Paths.get("cache"), 2025, 2026);
+ * if (calendar.isOpen("NSE", System.currentTimeMillis())) {
+ *     ...
+ * }
+ * long close = calendar.nextClose("NSE", System.currentTimeMillis());
+ * LocalDate settlement = calendar.addTradingDays("NSE", LocalDate.now(), 1);
+ * </pre>
+ */
+public class MarketCalendar {
+
+    private static final Map<String, LocalTime[]> DEFAULT_SESSIONS = new LinkedHashMap<>();
+
+    static {
+        LocalTime[] equity = {LocalTime.of(9, 15), LocalTime.of(15, 30)};
+        LocalTime[] currency = {LocalTime.of(9, 0), LocalTime.of(17, 0)};
+        DEFAULT_SESSIONS.put("NSE", equity);
+        DEFAULT_SESSIONS.put("BSE", equity);
+        DEFAULT_SESSIONS.put("NFO", equity);
+        DEFAULT_SESSIONS.put("BFO", equity);
+        DEFAULT_SESSIONS.put("CDS", currency);
+        DEFAULT_SESSIONS.put("BCD", currency);
+        DEFAULT_SESSIONS.put("MCX", new LocalTime[]{LocalTime.of(9, 0), LocalTime.of(23, 30)});
+    }
+
+    // Sessions of one exchange in time order; days[i] is the epoch day of session i
+    private static final class Sessions {
+        final long[] opens;
+        final long[] closes;
+        final long[] days;
+
+        Sessions(long[] opens, long[] closes, long[] days) {
+            this.opens = opens;
+            this.closes = closes;
+            this.days = days;
+        }
+    }
+
+    private final Map<String, Sessions> sessions;
+    private final LocalDate firstDate;
+    private final LocalDate lastDate;
+
+    private MarketCalendar(Map<String, Sessions> sessions, LocalDate firstDate, LocalDate lastDate) {
+        this.sessions = sessions;
+        this.firstDate = firstDate;
+        this.lastDate = lastDate;
+    }
+
+    /**
+     * Loads the calendar of one or more years, from the cache directory when possible.
+     *
+     * @param client   Client used for holidays() and timings() on a cache miss
+     * @param cacheDir Directory for calendar-YYYY.json files, or null for no cache
+     * @param years    Years to load
+     * @return Calendar covering the years
+     * @throws IOException if a year is neither cached nor available from the server
+     */
+    public static MarketCalendar load(UtilitiesApi client, Path cacheDir, int... years) throws IOException {
+        if (years.length == 0) {
+            throw new IllegalArgumentException("At least one year is required");
+        }
+        List<JsonObject> data = new ArrayList<>();
+        for (int year : years) {
+            Path file = cacheDir == null ? null : cacheDir.resolve("calendar-" + year + ".json");
+            if (file != null && Files.exists(file)) {
+                data.add(JsonParser.parseString(Files.readString(file, StandardCharsets.UTF_8)).getAsJsonObject());
+                continue;
+            }
+            JsonObject holidays = client.holidays(year);
+            if (!isSuccess(holidays)) {
+                throw new IOException("holidays(" + year + ") failed: " + message(holidays));
+            }
+            String timingsDate = referenceDay(year, holidays).toString();
+            JsonObject timings = client.timings(timingsDate);
+            if (!isSuccess(timings)) {
+                throw new IOException("timings(" + timingsDate + ") failed: " + message(timings));
+            }
+            JsonObject entry = new JsonObject();
+            entry.addProperty("year", year);
+            entry.add("holidays", holidays);
+            entry.addProperty("timings_date", timingsDate);
+            entry.add("timings", timings);
+            if (file != null) {
+                Files.createDirectories(cacheDir);
+                Files.writeString(file, entry.toString(), StandardCharsets.UTF_8);
+            }
+            data.add(entry);
+        }
+        return build(data);
+    }
+
+    /**
+     * Builds the calendar of one year from server responses, without network or cache.
+     *
+     * @param year        Year covered
+     * @param holidays    holidays(year) response
+     * @param timings     timings() response for a normal trading day, or null for default times
+     * @param timingsDate Date of the timings() response in YYYY-MM-DD format
+     * @return Calendar covering the year
+     */
+    public static MarketCalendar fromResponses(int year, JsonObject holidays, JsonObject timings, String timingsDate) {
+        JsonObject entry = new JsonObject();
+        entry.addProperty("year", year);
+        entry.add("holidays", holidays);
+        if (timings != null) {
+            entry.addProperty("timings_date", timingsDate);
+            entry.add("timings", timings);
+        }
+        return build(Collections.singletonList(entry));
+    }
+
+    private static MarketCalendar build(List<JsonObject> years) {
+        // exchange -> sorted map of epoch day -> {open, close}
+        Map<String, TreeMap<Long, long[]>> byExchange = new HashMap<>();
+        LocalDate first = null;
+        LocalDate last = null;
+        for (JsonObject entry : years) {
+            int year = entry.get("year").getAsInt();
+            LocalDate start = LocalDate.of(year, 1, 1);
+            LocalDate end = LocalDate.of(year, 12, 31);
+            first = first == null || start.isBefore(first) ? start : first;
+            last = last == null || end.isAfter(last) ? end : last;
+
+            Map<String, LocalTime[]> regular = new LinkedHashMap<>(DEFAULT_SESSIONS);
+            JsonObject timings = entry.has("timings") ? entry.getAsJsonObject("timings") : null;
+            if (timings != null && timings.has("data") && timings.get("data").isJsonArray()) {
+                for (JsonElement element : timings.getAsJsonArray("data")) {
+                    JsonObject row = element.getAsJsonObject();
+                    if (row.has("exchange") && row.has("start_time") && row.has("end_time")) {
+                        regular.put(row.get("exchange").getAsString(), new LocalTime[]{
+                                timeOfDay(row.get("start_time").getAsLong()),
+                                timeOfDay(row.get("end_time").getAsLong())});
+                    }
+                }
+            }
+
+            // date -> exchanges closed that day; date -> exchange -> special session
+            Map<LocalDate, Set<String>> closed = new HashMap<>();
+            Map<LocalDate, Map<String, long[]>> special = new HashMap<>();
+            JsonObject holidays = entry.getAsJsonObject("holidays");
+            if (holidays.has("data") && holidays.get("data").isJsonArray()) {
+                for (JsonElement element : holidays.getAsJsonArray("data")) {
+                    JsonObject row = element.getAsJsonObject();
+                    LocalDate date = LocalDate.parse(row.get("date").getAsString());
+                    Set<String> exchanges = closed.computeIfAbsent(date, d -> new HashSet<>());
+                    if (row.has("closed_exchanges") && row.get("closed_exchanges").isJsonArray()) {
+                        for (JsonElement exchange : row.getAsJsonArray("closed_exchanges")) {
+                            exchanges.add(exchange.getAsString());
+                        }
+                    } else {
+                        exchanges.addAll(regular.keySet());
+                    }
+                    if (row.has("open_exchanges") && row.get("open_exchanges").isJsonArray()) {
+                        for (JsonElement open : row.getAsJsonArray("open_exchanges")) {
+                            JsonObject session = open.getAsJsonObject();
+                            special.computeIfAbsent(date, d -> new HashMap<>()).put(
+                                    session.get("exchange").getAsString(),
+                                    new long[]{session.get("start_time").getAsLong(), session.get("end_time").getAsLong()});
+                        }
+                    }
+                }
+            }
+
+            for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+                boolean weekend = date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY;
+                Set<String> closedToday = closed.getOrDefault(date, Collections.emptySet());
+                for (Map.Entry<String, LocalTime[]> times : regular.entrySet()) {
+                    String exchange = times.getKey();
+                    TreeMap<Long, long[]> days = byExchange.computeIfAbsent(exchange, e -> new TreeMap<>());
+                    if (!weekend && !closedToday.contains(exchange)) {
+                        days.put(date.toEpochDay(), new long[]{millis(date, times.getValue()[0]), millis(date, times.getValue()[1])});
+                    }
+                }
+                Map<String, long[]> specialToday = special.get(date);
+                if (specialToday != null) {
+                    for (Map.Entry<String, long[]> session : specialToday.entrySet()) {
+                        byExchange.computeIfAbsent(session.getKey(), e -> new TreeMap<>())
+                                .put(date.toEpochDay(), session.getValue());
+                    }
+                }
+            }
+        }
+
+        Map<String, Sessions> sessions = new HashMap<>();
+        for (Map.Entry<String, TreeMap<Long, long[]>> entry : byExchange.entrySet()) {
+            int n = entry.getValue().size();
+            long[] opens = new long[n];
+            long[] closes = new long[n];
+            long[] days = new long[n];
+            int i = 0;
+            for (Map.Entry<Long, long[]> day : entry.getValue().entrySet()) {
+                days[i] = day.getKey();
+                opens[i] = day.getValue()[0];
+                closes[i] = day.getValue()[1];
+                i++;
+            }
+            sessions.put(entry.getKey(), new Sessions(opens, closes, days));
+        }
+        return new MarketCalendar(sessions, first, last);
+    }
+
+    /**
+     * Checks whether an exchange is in session.
+     *
+     * @param exchange    Exchange code
+     * @param epochMillis Instant to check
+     * @return true between a session's open (inclusive) and close (exclusive)
+     */
+    public boolean isOpen(String exchange, long epochMillis) {
+        Sessions s = sessions(exchange);
+        int i = Arrays.binarySearch(s.opens, epochMillis);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        return i >= 0 && epochMillis < s.closes[i];
+    }
+
+    /**
+     * Gets the next session open after an instant.
+     *
+     * @param exchange    Exchange code
+     * @param epochMillis Instant to search from
+     * @return Open time in epoch millis, or -1 beyond the loaded years
+     */
+    public long nextOpen(String exchange, long epochMillis) {
+        Sessions s = sessions(exchange);
+        int i = Arrays.binarySearch(s.opens, epochMillis);
+        i = i < 0 ? -i - 1 : i + 1;
+        return i < s.opens.length ? s.opens[i] : -1;
+    }
+
+    /**
+     * Gets the close of the current session, or of the next one when the exchange is closed.
+     *
+     * @param exchange    Exchange code
+     * @param epochMillis Instant to search from
+     * @return Close time in epoch millis, or -1 beyond the loaded years
+     */
+    public long nextClose(String exchange, long epochMillis) {
+        Sessions s = sessions(exchange);
+        int i = Arrays.binarySearch(s.closes, epochMillis);
+        i = i < 0 ? -i - 1 : i + 1;
+        return i < s.closes.length ? s.closes[i] : -1;
+    }
+
+    /**
+     * Gets the session of a day.
+     *
+     * @param exchange Exchange code
+     * @param date     Date
+     * @return {open, close} in epoch millis, or null if the exchange does not trade that day
+     */
+    public long[] session(String exchange, LocalDate date) {
+        Sessions s = sessions(exchange);
+        int i = Arrays.binarySearch(s.days, date.toEpochDay());
+        return i < 0 ? null : new long[]{s.opens[i], s.closes[i]};
+    }
+
+    /**
+     * Checks whether an exchange has a session on a date.
+     *
+     * @param exchange Exchange code
+     * @param date     Date
+     * @return true for a trading day
+     */
+    public boolean isTradingDay(String exchange, LocalDate date) {
+        return Arrays.binarySearch(sessions(exchange).days, date.toEpochDay()) >= 0;
+    }
+
+    /**
+     * Moves a number of trading days from a date. From a non-trading day, the first step
+     * forward lands on the next trading day and the first step back on the previous one.
+     *
+     * @param exchange Exchange code
+     * @param date     Start date
+     * @param days     Trading days to move, negative to move back
+     * @return Resulting trading day (the date itself for 0 if it is a trading day), or null
+     *         beyond the loaded years
+     */
+    public LocalDate addTradingDays(String exchange, LocalDate date, int days) {
+        long[] tradingDays = sessions(exchange).days;
+        int i = Arrays.binarySearch(tradingDays, date.toEpochDay());
+        int target;
+        if (i >= 0) {
+            target = i + days;
+        } else {
+            int next = -i - 1;
+            target = days >= 0 ? next + Math.max(days - 1, 0) : next + days;
+        }
+        return target >= 0 && target < tradingDays.length ? LocalDate.ofEpochDay(tradingDays[target]) : null;
+    }
+
+    /**
+     * Gets the first trading day after a date.
+     *
+     * @param exchange Exchange code
+     * @param date     Date
+     * @return Next trading day, or null beyond the loaded years
+     */
+    public LocalDate nextTradingDay(String exchange, LocalDate date) {
+        return addTradingDays(exchange, date, 1);
+    }
+
+    /**
+     * Gets the last trading day before a date.
+     *
+     * @param exchange Exchange code
+     * @param date     Date
+     * @return Previous trading day, or null before the loaded years
+     */
+    public LocalDate previousTradingDay(String exchange, LocalDate date) {
+        return addTradingDays(exchange, date, -1);
+    }
+
+    /**
+     * Counts trading days in [from, to).
+     *
+     * @param exchange Exchange code
+     * @param from     First date, inclusive
+     * @param to       Last date, exclusive
+     * @return Number of trading days, negative if to is before from
+     */
+    public int tradingDaysBetween(String exchange, LocalDate from, LocalDate to) {
+        long[] tradingDays = sessions(exchange).days;
+        return insertionPoint(tradingDays, to.toEpochDay()) - insertionPoint(tradingDays, from.toEpochDay());
+    }
+
+    /** @return Exchanges with sessions */
+    public Set<String> getExchanges() {
+        return Collections.unmodifiableSet(sessions.keySet());
+    }
+
+    /** @return First date covered */
+    public LocalDate getFirstDate() {
+        return firstDate;
+    }
+
+    /** @return Last date covered */
+    public LocalDate getLastDate() {
+        return lastDate;
+    }
+
+    private Sessions sessions(String exchange) {
+        Sessions s = sessions.get(exchange);
+        if (s == null && exchange.endsWith("_INDEX")) {
+            s = sessions.get(exchange.substring(0, exchange.length() - "_INDEX".length()));
+        }
+        if (s == null) {
+            throw new IllegalArgumentException("Unknown exchange: " + exchange);
+        }
+        return s;
+    }
+
+    // Index of the first element >= key
+    private static int insertionPoint(long[] sorted, long key) {
+        int i = Arrays.binarySearch(sorted, key);
+        return i < 0 ? -i - 1 : i;
+    }
+
+    // First weekday of the year that is not in the holiday list, or today's nearest one for the current year
+    private static LocalDate referenceDay(int year, JsonObject holidays) {
+        Set<String> dates = new HashSet<>();
+        JsonArray rows = holidays.has("data") && holidays.get("data").isJsonArray()
+                ? holidays.getAsJsonArray("data") : new JsonArray();
+        for (JsonElement row : rows) {
+            dates.add(row.getAsJsonObject().get("date").getAsString());
+        }
+        LocalDate today = LocalDate.now(CandleStore.MARKET_ZONE);
+        LocalDate date = today.getYear() == year ? today : LocalDate.of(year, 1, 1);
+        while (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY
+                || dates.contains(date.toString())) {
+            date = date.plusDays(1);
+        }
+        return date;
+    }
+
+    private static LocalTime timeOfDay(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(CandleStore.MARKET_ZONE).toLocalTime();
+    }
+
+    private static long millis(LocalDate date, LocalTime time) {
+        return date.atTime(time).atZone(CandleStore.MARKET_ZONE).toInstant().toEpochMilli();
+    }
+
+    private static boolean isSuccess(JsonObject response) {
+        return response != null && response.has("status") && "success".equals(response.get("status").getAsString());
+    }
+
+    private static String message(JsonObject response) {
+        return response != null && response.has("message") ? response.get("message").getAsString() : "no response";
+    }
+}
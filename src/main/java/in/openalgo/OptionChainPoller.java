@@ -0,0 +1,314 @@
+package in.openalgo;
+
+import com.google.gson.JsonObject;
+
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls optionchain() and reports only the strikes that changed.
+ *
+ * Each response is decoded into an {@link OptionChainSnapshot} and merged against the
+ * previous snapshot strike by strike. Legs whose LTP, OI or volume changed, and legs of
+ * strikes that entered the window, are collected into a {@link Delta} of primitive arrays;
+ * listeners are only called when the delta is not empty.
+ *
+ * Example usage:
+ * <pre>
+ * OptionChainPoller poller = new OptionChainPoller(client, "NIFTY", "NSE_INDEX", "30DEC25", 10);
+ * poller.addListener((snapshot, delta) -&gt; {
+ *     for (int i = 0; i &lt; delta.size(); i++) {
+ *         System.out.println(delta.strike(i) + delta.optionType(i) + " ltp " + delta.ltp(i));
+ *     }
+ * });
+ * poller.start(2000);
+ * </pre>
+ */
+public class OptionChainPoller implements AutoCloseable {
+
+    /** Change flag: LTP changed. */
+    public static final int LTP = 1;
+    /** Change flag: open interest changed. */
+    public static final int OI = 2;
+    /** Change flag: volume changed. */
+    public static final int VOLUME = 4;
+
+    /**
+     * Receives non-empty deltas on the polling thread.
+     */
+    @FunctionalInterface
+    public interface DiffListener {
+        /**
+         * Called after a poll produced changes.
+         *
+         * @param snapshot Decoded chain of this poll
+         * @param delta    Changed legs relative to the previous poll
+         */
+        void onDiff(OptionChainSnapshot snapshot, Delta delta);
+
+        /**
+         * Called when a poll returned an error response.
+         *
+         * @param response optionchain() response
+         */
+        default void onError(JsonObject response) {
+        }
+    }
+
+    /**
+     * Changed legs of one poll, in strike order. Previous values are NaN or -1 for legs
+     * that were not in the previous snapshot.
+     */
+    public static final class Delta {
+        private int size;
+        private double[] strikes = new double[16];
+        private boolean[] calls = new boolean[16];
+        private int[] changes = new int[16];
+        private double[] ltp = new double[16];
+        private double[] previousLtp = new double[16];
+        private long[] oi = new long[16];
+        private long[] previousOi = new long[16];
+        private long[] volume = new long[16];
+        private long[] previousVolume = new long[16];
+
+        void add(double strike, boolean call, int change, double ltp, double previousLtp,
+                 long oi, long previousOi, long volume, long previousVolume) {
+            if (size == strikes.length) {
+                int cap = size * 2;
+                strikes = Arrays.copyOf(strikes, cap);
+                calls = Arrays.copyOf(calls, cap);
+                changes = Arrays.copyOf(changes, cap);
+                this.ltp = Arrays.copyOf(this.ltp, cap);
+                this.previousLtp = Arrays.copyOf(this.previousLtp, cap);
+                this.oi = Arrays.copyOf(this.oi, cap);
+                this.previousOi = Arrays.copyOf(this.previousOi, cap);
+                this.volume = Arrays.copyOf(this.volume, cap);
+                this.previousVolume = Arrays.copyOf(this.previousVolume, cap);
+            }
+            int i = size++;
+            strikes[i] = strike;
+            calls[i] = call;
+            changes[i] = change;
+            this.ltp[i] = ltp;
+            this.previousLtp[i] = previousLtp;
+            this.oi[i] = oi;
+            this.previousOi[i] = previousOi;
+            this.volume[i] = volume;
+            this.previousVolume[i] = previousVolume;
+        }
+
+        /** @return Number of changed legs */
+        public int size() {
+            return size;
+        }
+
+        public double strike(int i) {
+            return strikes[i];
+        }
+
+        /** @return CE or PE */
+        public String optionType(int i) {
+            return calls[i] ? "CE" : "PE";
+        }
+
+        public boolean isCall(int i) {
+            return calls[i];
+        }
+
+        /** @return Combination of {@link #LTP}, {@link #OI} and {@link #VOLUME} */
+        public int changes(int i) {
+            return changes[i];
+        }
+
+        public double ltp(int i) {
+            return ltp[i];
+        }
+
+        public double previousLtp(int i) {
+            return previousLtp[i];
+        }
+
+        public long oi(int i) {
+            return oi[i];
+        }
+
+        public long previousOi(int i) {
+            return previousOi[i];
+        }
+
+        public long volume(int i) {
+            return volume[i];
+        }
+
+        public long previousVolume(int i) {
+            return previousVolume[i];
+        }
+    }
+
+    private final OptionsApi api;
+    private final String underlying;
+    private final String exchange;
+    private final String expiryDate;
+    private final Integer strikeCount;
+    private final CopyOnWriteArrayList<DiffListener> listeners = new CopyOnWriteArrayList<>();
+
+    private OptionChainSnapshot previous;
+    private long polls;
+    private ScheduledExecutorService timer;
+
+    /**
+     * Creates a poller.
+     *
+     * @param api         Client used for optionchain() calls
+     * @param underlying  Underlying symbol (required)
+     * @param exchange    Exchange code (required)
+     * @param expiryDate  Expiry date in DDMMMYY format (required)
+     * @param strikeCount Number of strikes above/below ATM, 1-100 (optional)
+     */
+    public OptionChainPoller(OptionsApi api, String underlying, String exchange, String expiryDate, Integer strikeCount) {
+        this.api = api;
+        this.underlying = underlying;
+        this.exchange = exchange;
+        this.expiryDate = expiryDate;
+        this.strikeCount = strikeCount;
+    }
+
+    /**
+     * Adds a diff listener.
+     *
+     * @param listener Listener called on the polling thread
+     */
+    public void addListener(DiffListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a diff listener.
+     *
+     * @param listener Listener to remove
+     */
+    public void removeListener(DiffListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Polls once and notifies listeners. The first successful poll reports every leg.
+     *
+     * @return Changes since the previous poll, or null if the call failed
+     */
+    public Delta poll() {
+        JsonObject response = api.optionchain(underlying, exchange, expiryDate, strikeCount);
+        Delta delta;
+        OptionChainSnapshot current;
+        synchronized (this) {
+            current = OptionChainSnapshot.fromResponse(response, polls + 1);
+            if (current == null) {
+                delta = null;
+            } else {
+                polls++;
+                delta = diff(previous, current);
+                previous = current;
+            }
+        }
+        if (delta == null) {
+            for (DiffListener listener : listeners) {
+                listener.onError(response);
+            }
+        } else if (delta.size() > 0) {
+            for (DiffListener listener : listeners) {
+                listener.onDiff(current, delta);
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Starts polling on a background thread.
+     *
+     * @param intervalMillis Delay between the end of one poll and the start of the next
+     */
+    public synchronized void start(long intervalMillis) {
+        if (timer != null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "openalgo-optionchain-poller");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                // Keep polling; the next response may succeed
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops background polling.
+     */
+    @Override
+    public synchronized void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+    }
+
+    /** @return Snapshot of the last successful poll, or null */
+    public synchronized OptionChainSnapshot getSnapshot() {
+        return previous;
+    }
+
+    /**
+     * Computes the changed legs between two snapshots sorted by strike.
+     *
+     * @param before Previous snapshot (null to report every leg of after)
+     * @param after  Current snapshot
+     * @return Delta in strike order
+     */
+    public static Delta diff(OptionChainSnapshot before, OptionChainSnapshot after) {
+        Delta delta = new Delta();
+        int j = 0;
+        int m = before == null ? 0 : before.size();
+        for (int i = 0; i < after.size(); i++) {
+            double strike = after.strikes[i];
+            while (j < m && before.strikes[j] < strike) {
+                j++;
+            }
+            int p = j < m && before.strikes[j] == strike ? j : -1;
+            if (after.ceSymbols[i] != null) {
+                leg(delta, strike, true, after.ceLtp[i], after.ceOi[i], after.ceVolume[i],
+                        p < 0 ? Double.NaN : before.ceLtp[p], p < 0 ? -1 : before.ceOi[p],
+                        p < 0 ? -1 : before.ceVolume[p], p < 0 || before.ceSymbols[p] == null);
+            }
+            if (after.peSymbols[i] != null) {
+                leg(delta, strike, false, after.peLtp[i], after.peOi[i], after.peVolume[i],
+                        p < 0 ? Double.NaN : before.peLtp[p], p < 0 ? -1 : before.peOi[p],
+                        p < 0 ? -1 : before.peVolume[p], p < 0 || before.peSymbols[p] == null);
+            }
+        }
+        return delta;
+    }
+
+    private static void leg(Delta delta, double strike, boolean call, double ltp, long oi, long volume,
+                            double previousLtp, long previousOi, long previousVolume, boolean added) {
+        int change = added ? LTP | OI | VOLUME : 0;
+        if (Double.compare(ltp, previousLtp) != 0) {
+            change |= LTP;
+        }
+        if (oi != previousOi) {
+            change |= OI;
+        }
+        if (volume != previousVolume) {
+            change |= VOLUME;
+        }
+        if (change != 0) {
+            delta.add(strike, call, change, ltp, previousLtp, oi, previousOi, volume, previousVolume);
+        }
+    }
+}
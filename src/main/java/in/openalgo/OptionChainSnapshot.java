@@ -0,0 +1,186 @@
+package in.openalgo;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.Arrays;
+
+/**
+ * Immutable point-in-time view of an option chain, one entry per strike in ascending order.
+ *
+ * Missing contracts have a null symbol and NaN price; unknown volume and OI are -1.
+ * Snapshots come from a {@link LiveOptionChain} or are decoded from an optionchain() response.
+ *
+ * Example usage:
+ * <pre>
+ * OptionChainSnapshot snapshot = chain.snapshot();
+ * int atm = snapshot.indexOf(snapshot.getAtmStrike());
+ * System.out.println(snapshot.ceSymbol(atm) + " " + snapshot.ceLtp(atm));
+ * </pre>
+ */
+public final class OptionChainSnapshot {
+
+    private final String underlying;
+    private final String expiry;
+    private final double spot;
+    private final double atmStrike;
+    private final long version;
+    final int firstIndex;
+    final double[] strikes;
+    final String[] ceSymbols;
+    final String[] peSymbols;
+    final double[] ceLtp;
+    final double[] peLtp;
+    final long[] ceVolume;
+    final long[] peVolume;
+    final long[] ceOi;
+    final long[] peOi;
+
+    OptionChainSnapshot(String underlying, String expiry, double spot, double atmStrike, long version,
+                        int firstIndex, double[] strikes, String[] ceSymbols, String[] peSymbols,
+                        double[] ceLtp, double[] peLtp, long[] ceVolume, long[] peVolume,
+                        long[] ceOi, long[] peOi) {
+        this.underlying = underlying;
+        this.expiry = expiry;
+        this.spot = spot;
+        this.atmStrike = atmStrike;
+        this.version = version;
+        this.firstIndex = firstIndex;
+        this.strikes = strikes;
+        this.ceSymbols = ceSymbols;
+        this.peSymbols = peSymbols;
+        this.ceLtp = ceLtp;
+        this.peLtp = peLtp;
+        this.ceVolume = ceVolume;
+        this.peVolume = peVolume;
+        this.ceOi = ceOi;
+        this.peOi = peOi;
+    }
+
+    /**
+     * Decodes an optionchain() response. Rows are kept in server order (ascending strike).
+     *
+     * @param response optionchain() response
+     * @param version  Version to record, e.g. a poll counter
+     * @return Snapshot, or null if the response is not a success
+     */
+    public static OptionChainSnapshot fromResponse(JsonObject response, long version) {
+        if (!response.has("status") || !"success".equals(response.get("status").getAsString())
+                || !response.has("chain") || !response.get("chain").isJsonArray()) {
+            return null;
+        }
+        JsonArray chain = response.getAsJsonArray("chain");
+        int n = chain.size();
+        double[] strikes = new double[n];
+        String[] ceSymbols = new String[n];
+        String[] peSymbols = new String[n];
+        double[] ceLtp = new double[n];
+        double[] peLtp = new double[n];
+        long[] ceVolume = new long[n];
+        long[] peVolume = new long[n];
+        long[] ceOi = new long[n];
+        long[] peOi = new long[n];
+        for (int i = 0; i < n; i++) {
+            JsonObject row = chain.get(i).getAsJsonObject();
+            strikes[i] = JsonFields.number(row, "strike", Double.NaN);
+            JsonObject ce = leg(row, "ce");
+            JsonObject pe = leg(row, "pe");
+            ceSymbols[i] = ce != null && ce.has("symbol") ? ce.get("symbol").getAsString() : null;
+            peSymbols[i] = pe != null && pe.has("symbol") ? pe.get("symbol").getAsString() : null;
+            ceLtp[i] = JsonFields.number(ce, "ltp", Double.NaN);
+            peLtp[i] = JsonFields.number(pe, "ltp", Double.NaN);
+            ceVolume[i] = (long) JsonFields.number(ce, "volume", -1);
+            peVolume[i] = (long) JsonFields.number(pe, "volume", -1);
+            ceOi[i] = (long) JsonFields.number(ce, "oi", -1);
+            peOi[i] = (long) JsonFields.number(pe, "oi", -1);
+        }
+        return new OptionChainSnapshot(JsonFields.text(response, "underlying"),
+                JsonFields.text(response, "expiry_date"),
+                JsonFields.number(response, "underlying_ltp", Double.NaN),
+                JsonFields.number(response, "atm_strike", Double.NaN),
+                version, 0, strikes, ceSymbols, peSymbols, ceLtp, peLtp, ceVolume, peVolume, ceOi, peOi);
+    }
+
+    private static JsonObject leg(JsonObject row, String key) {
+        JsonElement element = row.get(key);
+        return element != null && element.isJsonObject() ? element.getAsJsonObject() : null;
+    }
+
+    /** @return Underlying symbol */
+    public String getUnderlying() {
+        return underlying;
+    }
+
+    /** @return Expiry date */
+    public String getExpiry() {
+        return expiry;
+    }
+
+    /** @return Underlying price */
+    public double getSpot() {
+        return spot;
+    }
+
+    /** @return Strike nearest to the underlying price */
+    public double getAtmStrike() {
+        return atmStrike;
+    }
+
+    /** @return Update counter of the source at the time of the snapshot */
+    public long getVersion() {
+        return version;
+    }
+
+    /** @return Number of strikes */
+    public int size() {
+        return strikes.length;
+    }
+
+    /**
+     * Finds a strike.
+     *
+     * @param strike Strike price
+     * @return Index, or -1 if the strike is not in the snapshot
+     */
+    public int indexOf(double strike) {
+        int i = Arrays.binarySearch(strikes, strike);
+        return i >= 0 ? i : -1;
+    }
+
+    public double strike(int i) {
+        return strikes[i];
+    }
+
+    public String ceSymbol(int i) {
+        return ceSymbols[i];
+    }
+
+    public String peSymbol(int i) {
+        return peSymbols[i];
+    }
+
+    public double ceLtp(int i) {
+        return ceLtp[i];
+    }
+
+    public double peLtp(int i) {
+        return peLtp[i];
+    }
+
+    public long ceVolume(int i) {
+        return ceVolume[i];
+    }
+
+    public long peVolume(int i) {
+        return peVolume[i];
+    }
+
+    public long ceOi(int i) {
+        return ceOi[i];
+    }
+
+    public long peOi(int i) {
+        return peOi[i];
+    }
+}
@@ -0,0 +1,308 @@
+package in.openalgo;
+
+import com.google.gson.JsonObject;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves option offsets (ATM, ITM1-ITM50, OTM1-OTM50) to tradable symbols in-process.
+ *
+ * Strikes come from an {@link InstrumentMaster} and the underlying price from the feed's
+ * cached LTP, so {@link #optionsymbol} needs no network round trip once the underlying is
+ * subscribed. The strike ladder of each expiry is built once and cached. {@link #optionsorder}
+ * resolves the contract locally and submits a plain placeorder() for it.
+ *
+ * Example usage:
+ * <pre>
+ * OptionResolver resolver = new OptionResolver(client, master);
+ * client.subscribeLtp(List.of(Map.of("symbol", "NIFTY", "exchange", "NSE_INDEX")));
+ * JsonObject contract = resolver.optionsymbol("NIFTY", "NSE_INDEX", "OTM2", "CE", null);
+ * JsonObject order = resolver.optionsorder("NIFTY", "NSE_INDEX", "ATM", "CE", "BUY", 75);
+ * </pre>
+ */
+public class OptionResolver {
+
+    private final FeedApi client;
+    private final InstrumentMaster master;
+    private final ConcurrentHashMap<String, Ladder> ladders = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a resolver.
+     *
+     * @param client Client providing the feed LTP cache and order placement
+     * @param master Instrument master holding the option contracts
+     */
+    public OptionResolver(FeedApi client, InstrumentMaster master) {
+        this.client = client;
+        this.master = master;
+    }
+
+    /**
+     * Gets the derivatives exchange for an underlying exchange.
+     *
+     * @param exchange Underlying exchange, e.g. NSE_INDEX
+     * @return Options exchange, e.g. NFO
+     */
+    public static String optionExchange(String exchange) {
+        switch (exchange) {
+            case "NSE":
+            case "NSE_INDEX":
+                return "NFO";
+            case "BSE":
+            case "BSE_INDEX":
+                return "BFO";
+            default:
+                return exchange;
+        }
+    }
+
+    /**
+     * Local equivalent of {@code optionsymbol()}.
+     *
+     * @param underlying Underlying symbol (required)
+     * @param exchange   Underlying exchange code (required)
+     * @param offset     Strike offset: ATM, ITM1-ITM50, OTM1-OTM50 (required)
+     * @param optionType CE or PE (required)
+     * @param expiryDate Expiry date in DDMMMYY format (optional, nearest expiry if null)
+     * @return JsonObject in the same shape as the optionsymbol() response
+     */
+    public JsonObject optionsymbol(String underlying, String exchange, String offset,
+                                   String optionType, String expiryDate) {
+        double ltp = underlyingLtp(underlying, exchange);
+        if (Double.isNaN(ltp)) {
+            return error("Underlying LTP not available for " + underlying);
+        }
+        int row = resolve(underlying, exchange, offset, optionType, expiryDate, ltp);
+        if (row < 0) {
+            return error("No " + optionType + " contract for " + underlying + " " + offset);
+        }
+        JsonObject response = new JsonObject();
+        response.addProperty("status", "success");
+        response.addProperty("symbol", master.symbol(row));
+        response.addProperty("exchange", master.exchange(row));
+        response.addProperty("lotsize", master.lotSize(row));
+        response.addProperty("tick_size", master.tickSize(row));
+        response.addProperty("strike", master.strike(row));
+        response.addProperty("expiry", master.expiry(row));
+        response.addProperty("underlying_ltp", ltp);
+        return response;
+    }
+
+    /**
+     * Local optionsymbol() with minimal parameters.
+     */
+    public JsonObject optionsymbol(String underlying, String exchange, String offset, String optionType) {
+        return optionsymbol(underlying, exchange, offset, optionType, null);
+    }
+
+    /**
+     * Resolves an offset to an instrument master row.
+     *
+     * @param underlying    Underlying symbol
+     * @param exchange      Underlying exchange code
+     * @param offset        Strike offset: ATM, ITM1-ITM50, OTM1-OTM50
+     * @param optionType    CE or PE
+     * @param expiryDate    Expiry date in DDMMMYY format (optional, nearest expiry if null)
+     * @param underlyingLtp Underlying price used to find the ATM strike
+     * @return row index, or -1 if no contract matches
+     */
+    public int resolve(String underlying, String exchange, String offset, String optionType,
+                       String expiryDate, double underlyingLtp) {
+        Ladder ladder = ladder(underlying, optionExchange(exchange), expiryDate);
+        if (ladder == null || ladder.strikes.length == 0) {
+            return -1;
+        }
+        boolean call = "CE".equalsIgnoreCase(optionType);
+        int shift = parseOffset(offset);
+        if (shift == Integer.MIN_VALUE) {
+            return -1;
+        }
+        // ITM calls are below spot, ITM puts above
+        int index = ladder.atm(underlyingLtp) + (call ? -shift : shift);
+        if (index < 0 || index >= ladder.strikes.length) {
+            return -1;
+        }
+        return call ? ladder.calls[index] : ladder.puts[index];
+    }
+
+    /**
+     * Resolves the contract locally and places a regular order for it.
+     *
+     * @param underlying        Underlying symbol (required)
+     * @param exchange          Underlying exchange code (required)
+     * @param offset            Strike offset: ATM, ITM1-ITM50, OTM1-OTM50 (required)
+     * @param optionType        CE or PE (required)
+     * @param action            BUY or SELL (required)
+     * @param quantity          Quantity (required)
+     * @param strategy          Strategy name (default: Java)
+     * @param expiryDate        Expiry date in DDMMMYY format (optional)
+     * @param priceType         Price type (default: MARKET)
+     * @param product           Product type (default: MIS)
+     * @param price             Price for LIMIT orders (optional)
+     * @param triggerPrice      Trigger price for SL orders (optional)
+     * @param disclosedQuantity Disclosed quantity (optional)
+     * @return placeorder() response with symbol, exchange, underlying and underlying_ltp added
+     */
+    public JsonObject optionsorder(String underlying, String exchange, String offset,
+                                   String optionType, String action, int quantity,
+                                   String strategy, String expiryDate, String priceType,
+                                   String product, String price, String triggerPrice,
+                                   String disclosedQuantity) {
+        JsonObject contract = optionsymbol(underlying, exchange, offset, optionType, expiryDate);
+        if (!"success".equals(contract.get("status").getAsString())) {
+            return contract;
+        }
+        String symbol = contract.get("symbol").getAsString();
+        String optionExchange = contract.get("exchange").getAsString();
+        JsonObject response = client.placeorder(symbol, action, optionExchange, priceType, product, quantity,
+                strategy, price, triggerPrice, disclosedQuantity, null, null, null);
+        response.addProperty("symbol", symbol);
+        response.addProperty("exchange", optionExchange);
+        response.addProperty("underlying", underlying);
+        response.add("underlying_ltp", contract.get("underlying_ltp"));
+        return response;
+    }
+
+    /**
+     * Local optionsorder() with minimal parameters.
+     */
+    public JsonObject optionsorder(String underlying, String exchange, String offset,
+                                   String optionType, String action, int quantity) {
+        return optionsorder(underlying, exchange, offset, optionType, action, quantity,
+                null, null, null, null, null, null, null);
+    }
+
+    /**
+     * Drops cached strike ladders, e.g. after loading a new instrument master.
+     */
+    public void clearCache() {
+        ladders.clear();
+    }
+
+    private double underlyingLtp(String underlying, String exchange) {
+        double ltp = client.getLastPrice(exchange, underlying);
+        if (Double.isNaN(ltp) && ("NFO".equals(exchange) || "BFO".equals(exchange))) {
+            String spot = "NFO".equals(exchange) ? "NSE" : "BSE";
+            ltp = client.getLastPrice(spot + "_INDEX", underlying);
+            if (Double.isNaN(ltp)) {
+                ltp = client.getLastPrice(spot, underlying);
+            }
+        }
+        if (Double.isNaN(ltp)) {
+            // Not streamed: fall back to a single quote
+            JsonObject quote = client.quotes(underlying, exchange);
+            if (quote.has("data") && quote.get("data").isJsonObject()
+                    && quote.getAsJsonObject("data").has("ltp")) {
+                ltp = quote.getAsJsonObject("data").get("ltp").getAsDouble();
+            }
+        }
+        return ltp;
+    }
+
+    private Ladder ladder(String underlying, String optionExchange, String expiryDate) {
+        String expiry = expiryDate;
+        if (expiry == null) {
+            expiry = nearestExpiry(master, optionExchange, underlying);
+            if (expiry == null) {
+                return null;
+            }
+        }
+        String key = optionExchange + ":" + underlying + ":" + expiry.replace("-", "").toUpperCase(Locale.ROOT);
+        String resolvedExpiry = expiry;
+        return ladders.computeIfAbsent(key, k -> Ladder.build(master,
+                master.optionChain(optionExchange, underlying, resolvedExpiry)));
+    }
+
+    /**
+     * Gets the nearest option expiry of an underlying that has not passed yet.
+     *
+     * @return Expiry in master format, or null if none
+     */
+    static String nearestExpiry(InstrumentMaster master, String optionExchange, String underlying) {
+        return master.nearestOptionExpiry(optionExchange, underlying, LocalDate.now(CandleStore.MARKET_ZONE));
+    }
+
+    /**
+     * Parses an offset into a strike shift towards ITM.
+     *
+     * @return shift (positive for ITM, negative for OTM), or Integer.MIN_VALUE if invalid
+     */
+    private static int parseOffset(String offset) {
+        String o = offset.toUpperCase(Locale.ROOT);
+        try {
+            if ("ATM".equals(o)) {
+                return 0;
+            }
+            if (o.startsWith("ITM")) {
+                return Integer.parseInt(o.substring(3));
+            }
+            if (o.startsWith("OTM")) {
+                return -Integer.parseInt(o.substring(3));
+            }
+        } catch (NumberFormatException e) {
+            return Integer.MIN_VALUE;
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    private static JsonObject error(String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("status", "error");
+        error.addProperty("message", message);
+        return error;
+    }
+
+    /**
+     * Unique strikes of one expiry with the CE and PE row of each strike (-1 if missing).
+     */
+    static final class Ladder {
+        final double[] strikes;
+        final int[] calls;
+        final int[] puts;
+
+        Ladder(double[] strikes, int[] calls, int[] puts) {
+            this.strikes = strikes;
+            this.calls = calls;
+            this.puts = puts;
+        }
+
+        static Ladder build(InstrumentMaster master, int[] rows) {
+            double[] strikes = new double[rows.length];
+            int[] calls = new int[rows.length];
+            int[] puts = new int[rows.length];
+            Arrays.fill(calls, -1);
+            Arrays.fill(puts, -1);
+            int n = 0;
+            for (int row : rows) {
+                double strike = master.strike(row);
+                if (n == 0 || strikes[n - 1] != strike) {
+                    strikes[n++] = strike;
+                }
+                if (master.isCall(row)) {
+                    calls[n - 1] = row;
+                } else {
+                    puts[n - 1] = row;
+                }
+            }
+            return new Ladder(Arrays.copyOf(strikes, n), Arrays.copyOf(calls, n), Arrays.copyOf(puts, n));
+        }
+
+        int atm(double price) {
+            int i = Arrays.binarySearch(strikes, price);
+            if (i >= 0) {
+                return i;
+            }
+            int above = -i - 1;
+            if (above == 0) {
+                return 0;
+            }
+            if (above == strikes.length) {
+                return strikes.length - 1;
+            }
+            return price - strikes[above - 1] <= strikes[above] - price ? above - 1 : above;
+        }
+    }
+}
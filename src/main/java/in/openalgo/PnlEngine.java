@@ -0,0 +1,632 @@
+package in.openalgo;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Mark-to-market P&amp;L on the LTP stream, per strategy and for the whole portfolio.
+ *
+ * Positions are held per (strategy, exchange, symbol) in primitive arrays: quantity, average
+ * price, realized P&amp;L and last price. They are loaded from positionbook() or built from
+ * fills (for example {@link TradeJournal} trades) using average cost. Every LTP tick updates
+ * the affected positions and the running totals in O(1) per position, without calling the
+ * server. Totals are read with an optimistic {@link StampedLock} read, so readers never block
+ * the feed thread.
+ *
+ * Stop-loss and target callbacks fire once when the total P&amp;L crosses their level.
+ *
+ * Example usage:
+ * <pre>
+ * client.connect();
+ * PnlEngine pnl = new PnlEngine(client);
+ * pnl.loadPositionbook("manual");
+ * journal.addListener(trade -&gt; pnl.onFill("momentum", trade));
+ * pnl.addStopLoss(5000, total -&gt; client.closeposition("momentum"));
+ * pnl.start();
+ * System.out.println("P&amp;L " + pnl.getTotalPnl() + " momentum " + pnl.getStrategyPnl("momentum"));
+ * </pre>
+ */
+public class PnlEngine implements AutoCloseable {
+
+    /**
+     * One position as seen by the engine.
+     */
+    public static final class Position {
+        private final String strategy;
+        private final String exchange;
+        private final String symbol;
+        private final long quantity;
+        private final double averagePrice;
+        private final double ltp;
+        private final double realizedPnl;
+        private final double unrealizedPnl;
+
+        Position(String strategy, String exchange, String symbol, long quantity, double averagePrice,
+                 double ltp, double realizedPnl, double unrealizedPnl) {
+            this.strategy = strategy;
+            this.exchange = exchange;
+            this.symbol = symbol;
+            this.quantity = quantity;
+            this.averagePrice = averagePrice;
+            this.ltp = ltp;
+            this.realizedPnl = realizedPnl;
+            this.unrealizedPnl = unrealizedPnl;
+        }
+
+        public String getStrategy() {
+            return strategy;
+        }
+
+        public String getExchange() {
+            return exchange;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        /** @return Net quantity, negative for short */
+        public long getQuantity() {
+            return quantity;
+        }
+
+        public double getAveragePrice() {
+            return averagePrice;
+        }
+
+        /** @return Last price, NaN before the first tick */
+        public double getLtp() {
+            return ltp;
+        }
+
+        public double getRealizedPnl() {
+            return realizedPnl;
+        }
+
+        public double getUnrealizedPnl() {
+            return unrealizedPnl;
+        }
+
+        @Override
+        public String toString() {
+            return strategy + " " + exchange + ":" + symbol + " qty=" + quantity + " avg=" + averagePrice
+                    + " ltp=" + ltp + " realized=" + realizedPnl + " unrealized=" + unrealizedPnl;
+        }
+    }
+
+    private static final class Threshold {
+        final double level;
+        final boolean below;
+        final DoubleConsumer listener;
+        final AtomicBoolean fired = new AtomicBoolean();
+
+        Threshold(double level, boolean below, DoubleConsumer listener) {
+            this.level = level;
+            this.below = below;
+            this.listener = listener;
+        }
+    }
+
+    private final FeedApi client;
+    private final TickListener feedListener = new TickListener() {
+        @Override
+        public void onTick(Tick tick) {
+            onFeedTick(tick);
+        }
+    };
+    private final CopyOnWriteArrayList<Threshold> thresholds = new CopyOnWriteArrayList<>();
+    private final StampedLock lock = new StampedLock();
+
+    // Positions, written under the write lock
+    private int size;
+    private int[] strategyOf = new int[16];
+    private String[] exchanges = new String[16];
+    private String[] symbols = new String[16];
+    private long[] quantity = new long[16];
+    private double[] averagePrice = new double[16];
+    private double[] realized = new double[16];
+    private double[] ltp = new double[16];
+    private final Map<String, Integer> slotIndex = new HashMap<>();
+    private final Map<String, int[]> priceIndex = new HashMap<>();
+    // Same slots by feed instrument id, so a feed tick needs no key and no lock to be skipped.
+    // Rows are replaced, never changed, and the array is republished after every change.
+    private volatile int[][] slotsById = new int[64][];
+
+    // Totals per strategy and for the portfolio
+    private final List<String> strategies = new ArrayList<>();
+    private double[] strategyRealized = new double[4];
+    private double[] strategyUnrealized = new double[4];
+    private double totalRealized;
+    private double totalUnrealized;
+
+    // Feed subscription, guarded by this
+    private boolean running;
+    private final List<Map<String, String>> subscribed = new ArrayList<>();
+
+    /**
+     * Creates an engine. Call {@link #start()} to mark positions on the feed.
+     *
+     * @param client Connected client
+     */
+    public PnlEngine(FeedApi client) {
+        this.client = client;
+    }
+
+    /**
+     * Attaches to the feed and subscribes LTP for all positions. Instruments whose
+     * subscription could not be sent are retried on the next start or position change.
+     *
+     * @return true if every subscription was sent
+     */
+    public boolean start() {
+        synchronized (this) {
+            running = true;
+        }
+        client.addTickListener(feedListener);
+        return subscribeNew();
+    }
+
+    /**
+     * Unsubscribes and detaches from the feed. Positions and totals stay readable.
+     */
+    @Override
+    public synchronized void close() {
+        running = false;
+        client.removeTickListener(feedListener);
+        if (!subscribed.isEmpty()) {
+            client.unsubscribe(new ArrayList<>(subscribed), 1);
+            subscribed.clear();
+        }
+    }
+
+    /**
+     * Replaces the positions of a strategy with the open positions from positionbook().
+     * Rows of one instrument under different products (MIS, NRML, ...) are netted into one
+     * position. The positionbook() P&amp;L not explained by the open quantity is kept as
+     * realized P&amp;L.
+     *
+     * @param strategy Strategy the positions are booked under
+     * @return positionbook() response
+     */
+    public JsonObject loadPositionbook(String strategy) {
+        JsonObject response = client.positionbook();
+        if (!"success".equals(response.has("status") ? response.get("status").getAsString() : null)
+                || !response.has("data") || !response.get("data").isJsonArray()) {
+            return response;
+        }
+        long stamp = lock.writeLock();
+        try {
+            int s = strategyId(strategy);
+            for (int i = 0; i < size; i++) {
+                if (strategyOf[i] == s) {
+                    setSlot(i, 0, 0, 0);
+                }
+            }
+            // Per slot: quantity, quantity * average price, P&L and last price over its rows
+            Map<Integer, double[]> rows = new LinkedHashMap<>();
+            for (JsonElement element : response.getAsJsonArray("data")) {
+                JsonObject row = element.getAsJsonObject();
+                int i = slot(s, JsonFields.text(row, "exchange"), JsonFields.text(row, "symbol"));
+                long qty = (long) JsonFields.number(row, "quantity");
+                double price = JsonFields.number(row, "ltp");
+                double[] total = rows.computeIfAbsent(i, k -> new double[4]);
+                total[0] += qty;
+                total[1] += qty * JsonFields.number(row, "average_price");
+                total[2] += JsonFields.number(row, "pnl");
+                if (price > 0) {
+                    total[3] = price;
+                }
+            }
+            for (Map.Entry<Integer, double[]> entry : rows.entrySet()) {
+                int i = entry.getKey();
+                double[] total = entry.getValue();
+                long qty = (long) total[0];
+                double price = total[3];
+                if (price > 0) {
+                    setPrice(i, price);
+                }
+                double avg = qty == 0 ? 0 : total[1] / qty;
+                double open = price > 0 && qty != 0 ? qty * price - total[1] : 0;
+                setSlot(i, qty, avg, total[2] - open);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        subscribeNew();
+        checkThresholds();
+        return response;
+    }
+
+    /**
+     * Sets a position directly.
+     *
+     * @param strategy     Strategy name
+     * @param exchange     Exchange code
+     * @param symbol       Trading symbol
+     * @param quantity     Net quantity, negative for short
+     * @param averagePrice Average price of the open quantity
+     * @param realizedPnl  Realized P&amp;L already booked
+     */
+    public void setPosition(String strategy, String exchange, String symbol, long quantity,
+                            double averagePrice, double realizedPnl) {
+        long stamp = lock.writeLock();
+        try {
+            setSlot(slot(strategyId(strategy), exchange, symbol), quantity, averagePrice, realizedPnl);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        subscribeNew();
+        checkThresholds();
+    }
+
+    /**
+     * Applies a fill using average cost.
+     *
+     * @param strategy       Strategy name
+     * @param exchange       Exchange code
+     * @param symbol         Trading symbol
+     * @param signedQuantity Filled quantity, positive for BUY and negative for SELL
+     * @param price          Fill price
+     */
+    public void onFill(String strategy, String exchange, String symbol, long signedQuantity, double price) {
+        long stamp = lock.writeLock();
+        try {
+            int i = slot(strategyId(strategy), exchange, symbol);
+            long qty = quantity[i];
+            double avg = averagePrice[i];
+            double booked = realized[i];
+            if (qty == 0 || Long.signum(qty) == Long.signum(signedQuantity)) {
+                avg = (avg * Math.abs(qty) + price * Math.abs(signedQuantity)) / (Math.abs(qty) + Math.abs(signedQuantity));
+            } else {
+                long closing = Math.min(Math.abs(signedQuantity), Math.abs(qty));
+                booked += closing * (price - avg) * Long.signum(qty);
+                long remaining = qty + signedQuantity;
+                if (remaining == 0) {
+                    avg = 0;
+                } else if (Long.signum(remaining) != Long.signum(qty)) {
+                    avg = price;
+                }
+            }
+            if (Double.isNaN(ltp[i])) {
+                setPrice(i, price);
+            }
+            setSlot(i, qty + signedQuantity, avg, booked);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        subscribeNew();
+        checkThresholds();
+    }
+
+    /**
+     * Applies a journaled fill.
+     *
+     * @param strategy Strategy name
+     * @param trade    Fill from a {@link TradeJournal}
+     */
+    public void onFill(String strategy, TradeJournal.Trade trade) {
+        onFill(strategy, trade.getExchange(), trade.getSymbol(), trade.getSignedQuantity(), trade.getPrice());
+    }
+
+    /**
+     * Applies a price to every position in the symbol. Called from the feed; also usable
+     * to replay prices offline. Prices of 0 or less are ignored.
+     *
+     * @param exchange Exchange code
+     * @param symbol   Trading symbol
+     * @param price    Last traded price
+     */
+    public void onTick(String exchange, String symbol, double price) {
+        if (!(price > 0)) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            int[] slots = priceIndex.get(exchange + ":" + symbol);
+            if (slots == null) {
+                return;
+            }
+            for (int i : slots) {
+                setPrice(i, price);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        checkThresholds();
+    }
+
+    /**
+     * Adds a one-shot callback for when the total P&amp;L falls to a loss.
+     *
+     * @param maxLoss  Loss that triggers the callback, as a positive amount
+     * @param listener Called once with the total P&amp;L, on the thread that applied the update
+     */
+    public void addStopLoss(double maxLoss, DoubleConsumer listener) {
+        thresholds.add(new Threshold(-Math.abs(maxLoss), true, listener));
+        checkThresholds();
+    }
+
+    /**
+     * Adds a one-shot callback for when the total P&amp;L reaches a profit.
+     *
+     * @param profit   Profit that triggers the callback
+     * @param listener Called once with the total P&amp;L, on the thread that applied the update
+     */
+    public void addTarget(double profit, DoubleConsumer listener) {
+        thresholds.add(new Threshold(profit, false, listener));
+        checkThresholds();
+    }
+
+    /**
+     * Removes all stop-loss and target callbacks.
+     */
+    public void clearThresholds() {
+        thresholds.clear();
+    }
+
+    /** @return Realized P&amp;L over all strategies */
+    public double getRealizedPnl() {
+        long stamp = lock.tryOptimisticRead();
+        double value = totalRealized;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = totalRealized;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    /** @return Unrealized P&amp;L over all strategies */
+    public double getUnrealizedPnl() {
+        long stamp = lock.tryOptimisticRead();
+        double value = totalUnrealized;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = totalUnrealized;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    /** @return Realized plus unrealized P&amp;L over all strategies */
+    public double getTotalPnl() {
+        long stamp = lock.tryOptimisticRead();
+        double value = totalRealized + totalUnrealized;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = totalRealized + totalUnrealized;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Gets the realized plus unrealized P&amp;L of one strategy.
+     *
+     * @param strategy Strategy name
+     * @return P&amp;L, 0 for an unknown strategy
+     */
+    public double getStrategyPnl(String strategy) {
+        long stamp = lock.readLock();
+        try {
+            int s = strategies.indexOf(strategy);
+            return s < 0 ? 0 : strategyRealized[s] + strategyUnrealized[s];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Gets realized and unrealized P&amp;L of every strategy.
+     *
+     * @return Map of strategy to {realized, unrealized}
+     */
+    public Map<String, double[]> getStrategyBreakdown() {
+        long stamp = lock.readLock();
+        try {
+            Map<String, double[]> result = new HashMap<>();
+            for (int s = 0; s < strategies.size(); s++) {
+                result.put(strategies.get(s), new double[]{strategyRealized[s], strategyUnrealized[s]});
+            }
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Gets a copy of all positions, including closed ones with realized P&amp;L.
+     *
+     * @return Positions in the order they were first seen
+     */
+    public List<Position> getPositions() {
+        long stamp = lock.readLock();
+        try {
+            List<Position> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(new Position(strategies.get(strategyOf[i]), exchanges[i], symbols[i], quantity[i],
+                        averagePrice[i], ltp[i], realized[i], unrealized(i)));
+            }
+            return Collections.unmodifiableList(result);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void onFeedTick(Tick tick) {
+        int[][] byId = slotsById;
+        int id = tick.getInstrumentId();
+        int[] slots = id < byId.length ? byId[id] : null;
+        if (slots == null) {
+            // Not a held instrument, e.g. another component's subscription
+            return;
+        }
+        double price = tick.getLtp();
+        if (!(price > 0)) {
+            // Missing in the message, e.g. a depth frame without ltp
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            for (int i : slots) {
+                setPrice(i, price);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        checkThresholds();
+    }
+
+    // Must hold the write lock
+    private int strategyId(String strategy) {
+        int s = strategies.indexOf(strategy);
+        if (s >= 0) {
+            return s;
+        }
+        strategies.add(strategy);
+        if (strategies.size() > strategyRealized.length) {
+            strategyRealized = Arrays.copyOf(strategyRealized, strategyRealized.length * 2);
+            strategyUnrealized = Arrays.copyOf(strategyUnrealized, strategyUnrealized.length * 2);
+        }
+        return strategies.size() - 1;
+    }
+
+    // Must hold the write lock
+    private int slot(int strategy, String exchange, String symbol) {
+        String instrument = exchange + ":" + symbol;
+        Integer existing = slotIndex.get(strategy + "|" + instrument);
+        if (existing != null) {
+            return existing;
+        }
+        if (size == quantity.length) {
+            int capacity = size * 2;
+            strategyOf = Arrays.copyOf(strategyOf, capacity);
+            exchanges = Arrays.copyOf(exchanges, capacity);
+            symbols = Arrays.copyOf(symbols, capacity);
+            quantity = Arrays.copyOf(quantity, capacity);
+            averagePrice = Arrays.copyOf(averagePrice, capacity);
+            realized = Arrays.copyOf(realized, capacity);
+            ltp = Arrays.copyOf(ltp, capacity);
+        }
+        int i = size++;
+        strategyOf[i] = strategy;
+        exchanges[i] = exchange;
+        symbols[i] = symbol;
+        slotIndex.put(strategy + "|" + instrument, i);
+
+        int[] slots = priceIndex.get(instrument);
+        int[] updated;
+        if (slots == null) {
+            ltp[i] = Double.NaN;
+            updated = new int[]{i};
+        } else {
+            // Share the last price of the instrument with the other strategies
+            ltp[i] = ltp[slots[0]];
+            updated = Arrays.copyOf(slots, slots.length + 1);
+            updated[slots.length] = i;
+        }
+        priceIndex.put(instrument, updated);
+
+        int id = client.getInstrumentRegistry().register(exchange, symbol);
+        int[][] byId = slotsById;
+        if (id >= byId.length) {
+            byId = Arrays.copyOf(byId, Math.max(byId.length * 2, id + 1));
+        }
+        byId[id] = updated;
+        slotsById = byId;
+        return i;
+    }
+
+    // Must hold the write lock
+    private void setSlot(int i, long qty, double avg, double booked) {
+        int s = strategyOf[i];
+        double before = unrealized(i);
+        strategyRealized[s] += booked - realized[i];
+        totalRealized += booked - realized[i];
+        quantity[i] = qty;
+        averagePrice[i] = avg;
+        realized[i] = booked;
+        double change = unrealized(i) - before;
+        strategyUnrealized[s] += change;
+        totalUnrealized += change;
+    }
+
+    // Must hold the write lock
+    private void setPrice(int i, double price) {
+        double before = unrealized(i);
+        ltp[i] = price;
+        double change = unrealized(i) - before;
+        strategyUnrealized[strategyOf[i]] += change;
+        totalUnrealized += change;
+    }
+
+    private double unrealized(int i) {
+        return quantity[i] == 0 || Double.isNaN(ltp[i]) ? 0 : quantity[i] * (ltp[i] - averagePrice[i]);
+    }
+
+    private void checkThresholds() {
+        if (thresholds.isEmpty()) {
+            return;
+        }
+        double pnl = getTotalPnl();
+        for (Threshold threshold : thresholds) {
+            boolean crossed = threshold.below ? pnl <= threshold.level : pnl >= threshold.level;
+            if (crossed && threshold.fired.compareAndSet(false, true)) {
+                thresholds.remove(threshold);
+                threshold.listener.accept(pnl);
+            }
+        }
+    }
+
+    // Subscribes instruments not subscribed yet; failed ones stay unrecorded so they are retried
+    private boolean subscribeNew() {
+        List<Map<String, String>> toSubscribe = new ArrayList<>();
+        synchronized (this) {
+            if (!running) {
+                return false;
+            }
+            long stamp = lock.readLock();
+            try {
+                for (String instrument : priceIndex.keySet()) {
+                    int colon = instrument.indexOf(':');
+                    Map<String, String> entry = Map.of("exchange", instrument.substring(0, colon),
+                            "symbol", instrument.substring(colon + 1));
+                    if (!subscribed.contains(entry)) {
+                        subscribed.add(entry);
+                        toSubscribe.add(entry);
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        if (toSubscribe.isEmpty() || client.subscribe(toSubscribe, 1)) {
+            return true;
+        }
+        synchronized (this) {
+            subscribed.removeAll(toSubscribe);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,597 @@
+package in.openalgo;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Live greeks and P&L of the open positions, grouped by underlying.
+ *
+ * {@link #refresh()} loads positionbook() and classifies each position with the
+ * {@link InstrumentMaster}: options are grouped into one {@link GreeksEngine.Chain} per
+ * underlying, futures (instrumenttype FUT*) and equity count as delta one. An equity leg is
+ * its own underlying, so a stock and its derivatives share one group. Leg and underlying
+ * prices then come from the feed. An option tick re-solves only that contract's IV from its
+ * previous value ({@link ImpliedVolSolver}) and recomputes its greeks; a spot tick
+ * recomputes the greeks of the underlying's options with their cached IVs. After every
+ * update an immutable {@link Snapshot} is published through a volatile reference, so
+ * {@link #snapshot()} never blocks.
+ *
+ * Position greeks are in underlying units: delta and gamma are quantity-weighted, theta is
+ * per day and vega per 1% IV, in rupees. P&L is the positionbook() P&L marked to the live LTP.
+ *
+ * Example usage:
+ * <pre>
+ * client.connect();
+ * PortfolioRisk risk = new PortfolioRisk(client, master, 6.5);
+ * risk.start();
+ * PortfolioRisk.Snapshot s = risk.snapshot();
+ * System.out.println("Net delta " + s.getDelta() + " P&amp;L " + s.getPnl());
+ * </pre>
+ */
+public class PortfolioRisk implements AutoCloseable {
+
+    private static final int EQUITY = 0;
+    private static final int FUTURE = 1;
+    private static final int OPTION = 2;
+
+    private final FeedApi client;
+    private final InstrumentMaster master;
+    private final double rate;
+    private final ImpliedVolSolver solver = new ImpliedVolSolver();
+    private final TickListener feedListener = new TickListener() {
+        @Override
+        public void onTick(Tick tick) {
+            onFeedTick(tick);
+        }
+    };
+    private volatile Snapshot snapshot = new Snapshot();
+
+    // Legs, guarded by this
+    private int legCount;
+    private String[] legSymbols = new String[0];
+    private String[] legExchanges = new String[0];
+    private int[] kind = new int[0];
+    private long[] quantity = new long[0];
+    private double[] basePnl = new double[0];
+    private double[] baseLtp = new double[0];
+    private double[] ltp = new double[0];
+    private int[] bookOf = new int[0];
+    private int[] chainIndex = new int[0];
+    private final Map<String, Integer> legIndex = new HashMap<>();
+
+    // Underlyings, guarded by this
+    private final List<Book> books = new ArrayList<>();
+    private final Map<String, Integer> bookIndex = new HashMap<>();
+    private List<Map<String, String>> subscribed = new ArrayList<>();
+    private boolean running;
+
+    /**
+     * Creates an aggregator with a zero interest rate (the optiongreeks() default).
+     *
+     * @param client Client providing positionbook() and the feed
+     * @param master Instrument master used to classify positions
+     */
+    public PortfolioRisk(FeedApi client, InstrumentMaster master) {
+        this(client, master, 0);
+    }
+
+    /**
+     * Creates an aggregator.
+     *
+     * @param client Client providing positionbook() and the feed
+     * @param master Instrument master used to classify positions
+     * @param rate   Risk-free rate in percent used for greeks
+     */
+    public PortfolioRisk(FeedApi client, InstrumentMaster master, double rate) {
+        this.client = client;
+        this.master = master;
+        this.rate = rate;
+    }
+
+    /**
+     * Immutable risk view. Index i refers to one underlying.
+     */
+    public static final class Snapshot {
+        private final long timestamp;
+        private final String[] underlyings;
+        private final double[] spot;
+        private final double[] delta;
+        private final double[] gamma;
+        private final double[] theta;
+        private final double[] vega;
+        private final double[] pnl;
+        private final double totalDelta;
+        private final double totalGamma;
+        private final double totalTheta;
+        private final double totalVega;
+        private final double totalPnl;
+
+        Snapshot() {
+            this(0, new String[0], new double[0], new double[0], new double[0], new double[0],
+                    new double[0], new double[0]);
+        }
+
+        Snapshot(long timestamp, String[] underlyings, double[] spot, double[] delta, double[] gamma,
+                 double[] theta, double[] vega, double[] pnl) {
+            this.timestamp = timestamp;
+            this.underlyings = underlyings;
+            this.spot = spot;
+            this.delta = delta;
+            this.gamma = gamma;
+            this.theta = theta;
+            this.vega = vega;
+            this.pnl = pnl;
+            this.totalDelta = sum(delta);
+            this.totalGamma = sum(gamma);
+            this.totalTheta = sum(theta);
+            this.totalVega = sum(vega);
+            this.totalPnl = sum(pnl);
+        }
+
+        private static double sum(double[] values) {
+            double total = 0;
+            for (double value : values) {
+                total += value;
+            }
+            return total;
+        }
+
+        /** @return Time of the update that produced this snapshot, epoch millis */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /** @return Number of underlyings */
+        public int size() {
+            return underlyings.length;
+        }
+
+        /**
+         * Finds an underlying.
+         *
+         * @param name Underlying name, e.g. NIFTY
+         * @return Index, or -1 if there is no position on it
+         */
+        public int indexOf(String name) {
+            for (int i = 0; i < underlyings.length; i++) {
+                if (underlyings[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public String underlying(int i) {
+            return underlyings[i];
+        }
+
+        public double spot(int i) {
+            return spot[i];
+        }
+
+        public double delta(int i) {
+            return delta[i];
+        }
+
+        public double gamma(int i) {
+            return gamma[i];
+        }
+
+        public double theta(int i) {
+            return theta[i];
+        }
+
+        public double vega(int i) {
+            return vega[i];
+        }
+
+        public double pnl(int i) {
+            return pnl[i];
+        }
+
+        /** @return Net delta over all underlyings */
+        public double getDelta() {
+            return totalDelta;
+        }
+
+        /** @return Net gamma over all underlyings */
+        public double getGamma() {
+            return totalGamma;
+        }
+
+        /** @return Net theta per day over all underlyings */
+        public double getTheta() {
+            return totalTheta;
+        }
+
+        /** @return Net vega per 1% IV over all underlyings */
+        public double getVega() {
+            return totalVega;
+        }
+
+        /** @return Total P&amp;L */
+        public double getPnl() {
+            return totalPnl;
+        }
+    }
+
+    // Positions on one underlying; option legs live in chain/prices at chainIndex
+    private static final class Book {
+        final String name;
+        final String exchange;
+        double spot = Double.NaN;
+        int[] legs = new int[0];
+        final GreeksEngine.Chain chain = new GreeksEngine.Chain(4);
+        long[] expiryMillis = new long[4];
+        double[] prices = new double[4];
+        int[] chainLegs = new int[4];
+        double delta;
+        double gamma;
+        double theta;
+        double vega;
+        double pnl;
+
+        Book(String name, String exchange) {
+            this.name = name;
+            this.exchange = exchange;
+        }
+    }
+
+    /**
+     * Attaches to the feed, loads the positions and subscribes their prices.
+     *
+     * @return positionbook() response
+     */
+    public JsonObject start() {
+        synchronized (this) {
+            running = true;
+        }
+        client.addTickListener(feedListener);
+        return refresh();
+    }
+
+    /**
+     * Unsubscribes and detaches from the feed. The last snapshot stays readable.
+     */
+    @Override
+    public synchronized void close() {
+        running = false;
+        client.removeTickListener(feedListener);
+        if (!subscribed.isEmpty()) {
+            client.unsubscribe(subscribed, 1);
+            subscribed = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Reloads positionbook() and rebuilds the legs, e.g. after an order fills.
+     * On an error response the current legs are kept. Instruments whose subscription could
+     * not be sent are retried on the next refresh.
+     *
+     * @return positionbook() response
+     */
+    public JsonObject refresh() {
+        JsonObject response = client.positionbook();
+        if (!"success".equals(response.has("status") ? response.get("status").getAsString() : null)
+                || !response.has("data") || !response.get("data").isJsonArray()) {
+            return response;
+        }
+        List<Map<String, String>> toSubscribe;
+        List<Map<String, String>> toUnsubscribe;
+        synchronized (this) {
+            load(response.getAsJsonArray("data"));
+            List<Map<String, String>> instruments = new ArrayList<>();
+            for (int i = 0; i < legCount; i++) {
+                instruments.add(Map.of("exchange", legExchanges[i], "symbol", legSymbols[i]));
+            }
+            for (Book book : books) {
+                Map<String, String> instrument = Map.of("exchange", book.exchange, "symbol", book.name);
+                if (!instruments.contains(instrument)) {
+                    instruments.add(instrument);
+                }
+            }
+            toSubscribe = new ArrayList<>(instruments);
+            toSubscribe.removeAll(subscribed);
+            toUnsubscribe = new ArrayList<>(subscribed);
+            toUnsubscribe.removeAll(instruments);
+            if (running) {
+                subscribed = instruments;
+            }
+            for (int b = 0; b < books.size(); b++) {
+                recompute(b, -1);
+            }
+            publish();
+        }
+        if (running) {
+            if (!toUnsubscribe.isEmpty()) {
+                client.unsubscribe(toUnsubscribe, 1);
+            }
+            if (!toSubscribe.isEmpty() && !client.subscribe(toSubscribe, 1)) {
+                synchronized (this) {
+                    subscribed.removeAll(toSubscribe);
+                }
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Gets the latest risk view without locking.
+     *
+     * @return Snapshot
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    private void load(JsonArray rows) {
+        Map<String, Double> previousSpots = new HashMap<>();
+        for (Book book : books) {
+            previousSpots.put(book.exchange + ":" + book.name, book.spot);
+        }
+        books.clear();
+        bookIndex.clear();
+        legIndex.clear();
+        int n = rows.size();
+        legSymbols = new String[n];
+        legExchanges = new String[n];
+        kind = new int[n];
+        quantity = new long[n];
+        basePnl = new double[n];
+        baseLtp = new double[n];
+        ltp = new double[n];
+        bookOf = new int[n];
+        chainIndex = new int[n];
+        legCount = 0;
+
+        // One leg per instrument: rows of the same symbol under different products are netted
+        for (JsonElement element : rows) {
+            JsonObject row = element.getAsJsonObject();
+            String symbol = JsonFields.text(row, "symbol");
+            String exchange = JsonFields.text(row, "exchange");
+            if (symbol == null || exchange == null) {
+                continue;
+            }
+            long qty = (long) JsonFields.number(row, "quantity", 0);
+            double pnl = JsonFields.number(row, "pnl", 0);
+            double price = JsonFields.number(row, "ltp", Double.NaN);
+            Integer leg = legIndex.get(exchange + ":" + symbol);
+            if (leg != null) {
+                quantity[leg] += qty;
+                basePnl[leg] += pnl;
+                if (Double.isNaN(baseLtp[leg])) {
+                    baseLtp[leg] = price;
+                    ltp[leg] = price;
+                }
+                continue;
+            }
+            int i = legCount++;
+            legSymbols[i] = symbol;
+            legExchanges[i] = exchange;
+            quantity[i] = qty;
+            basePnl[i] = pnl;
+            baseLtp[i] = price;
+            ltp[i] = price;
+            chainIndex[i] = -1;
+            legIndex.put(exchange + ":" + symbol, i);
+        }
+
+        for (int i = 0; i < legCount; i++) {
+            String symbol = legSymbols[i];
+            String exchange = legExchanges[i];
+            int r = master.find(exchange, symbol);
+            kind[i] = classify(r);
+            // Equity is its own underlying: its master name is the company name, not a symbol
+            String name = kind[i] != EQUITY && master.name(r) != null && !master.name(r).isEmpty()
+                    ? master.name(r) : symbol;
+            String underlyingExchange = kind[i] == EQUITY ? exchange : underlyingExchange(exchange, name);
+            Book book = book(name, underlyingExchange, previousSpots);
+            bookOf[i] = bookIndex.get(underlyingExchange + ":" + name);
+            book.legs = Arrays.copyOf(book.legs, book.legs.length + 1);
+            book.legs[book.legs.length - 1] = i;
+            if (kind[i] == EQUITY && !Double.isNaN(ltp[i])) {
+                book.spot = ltp[i];
+            }
+            if (kind[i] == OPTION && quantity[i] != 0) {
+                int c = book.chain.add(master.strike(r), 0, master.isCall(r), Double.NaN);
+                if (c == book.prices.length) {
+                    book.prices = Arrays.copyOf(book.prices, c * 2);
+                    book.expiryMillis = Arrays.copyOf(book.expiryMillis, c * 2);
+                    book.chainLegs = Arrays.copyOf(book.chainLegs, c * 2);
+                }
+                book.prices[c] = ltp[i];
+                book.expiryMillis[c] = GreeksEngine.expiryMillis(master.expiry(r));
+                book.chainLegs[c] = i;
+                chainIndex[i] = c;
+            }
+        }
+    }
+
+    // Options by type, futures by an instrumenttype of FUT*, anything else is delta one on its own
+    private int classify(int row) {
+        if (row < 0) {
+            return EQUITY;
+        }
+        if (master.isOption(row)) {
+            return OPTION;
+        }
+        String type = master.instrumentType(row);
+        return type != null && type.toUpperCase(Locale.ROOT).startsWith("FUT") ? FUTURE : EQUITY;
+    }
+
+    private Book book(String name, String exchange, Map<String, Double> previousSpots) {
+        String key = exchange + ":" + name;
+        Integer b = bookIndex.get(key);
+        if (b != null) {
+            return books.get(b);
+        }
+        Book book = new Book(name, exchange);
+        book.chain.rate = rate;
+        Double spot = previousSpots.get(key);
+        if (spot != null) {
+            book.spot = spot;
+        }
+        bookIndex.put(key, books.size());
+        books.add(book);
+        return book;
+    }
+
+    // Derivatives are marked against the index if the master lists one, else the stock
+    private String underlyingExchange(String exchange, String name) {
+        String spot = exchange.startsWith("B") ? "BSE" : exchange.startsWith("N") ? "NSE" : exchange;
+        if (spot.equals(exchange)) {
+            return exchange;
+        }
+        if (master.find(spot + "_INDEX", name) >= 0 || master.find(spot, name) < 0 && isIndex(name)) {
+            return spot + "_INDEX";
+        }
+        return spot;
+    }
+
+    private static boolean isIndex(String name) {
+        return name.contains("NIFTY") || name.equals("SENSEX") || name.equals("BANKEX") || name.equals("SENSEX50");
+    }
+
+    private void onFeedTick(Tick tick) {
+        onTick(tick.getExchange(), tick.getSymbol(), tick.getLtp());
+    }
+
+    /**
+     * Applies a price. Called from the feed; also usable to replay prices offline.
+     * Prices of 0 or less are ignored.
+     *
+     * @param exchange Exchange code
+     * @param symbol   Trading symbol of a leg or an underlying
+     * @param price    Last traded price
+     */
+    public synchronized void onTick(String exchange, String symbol, double price) {
+        if (!(price > 0)) {
+            // Missing in the message, e.g. a depth frame without ltp
+            return;
+        }
+        String key = exchange + ":" + symbol;
+        int changed = -1;
+        int contract = -1;
+        Integer leg = legIndex.get(key);
+        if (leg != null) {
+            int i = leg;
+            ltp[i] = price;
+            Book book = books.get(bookOf[i]);
+            if (chainIndex[i] >= 0) {
+                book.prices[chainIndex[i]] = price;
+                contract = chainIndex[i];
+            } else if (kind[i] == EQUITY) {
+                book.spot = price;
+            }
+            changed = bookOf[i];
+        }
+        Integer b = bookIndex.get(key);
+        if (b != null) {
+            books.get(b).spot = price;
+            changed = b;
+            contract = -1;
+        }
+        if (changed >= 0) {
+            recompute(changed, contract);
+            publish();
+        }
+    }
+
+    /**
+     * Recomputes the greeks and P&amp;L of an underlying.
+     *
+     * @param contract Chain index of the option whose price changed, or -1 when the spot
+     *                 moved or the legs were reloaded
+     */
+    private void recompute(int b, int contract) {
+        Book book = books.get(b);
+        GreeksEngine.Chain chain = book.chain;
+        if (chain.size > 0 && !Double.isNaN(book.spot)) {
+            long now = System.currentTimeMillis();
+            chain.spot = book.spot;
+            if (contract >= 0) {
+                // Only this contract's IV moved; the other contracts keep their greeks
+                solve(book, contract, now);
+                GreeksEngine.compute(chain, contract, contract + 1);
+            } else {
+                // A spot move keeps the IVs; only contracts without one yet are solved
+                for (int c = 0; c < chain.size; c++) {
+                    if (chain.vols[c] > 0) {
+                        chain.years[c] = years(book, c, now);
+                    } else {
+                        solve(book, c, now);
+                    }
+                }
+                GreeksEngine.compute(chain);
+            }
+        }
+        double delta = 0;
+        double gamma = 0;
+        double theta = 0;
+        double vega = 0;
+        double pnl = 0;
+        for (int i : book.legs) {
+            long qty = quantity[i];
+            if (!Double.isNaN(ltp[i]) && !Double.isNaN(baseLtp[i])) {
+                pnl += basePnl[i] + qty * (ltp[i] - baseLtp[i]);
+            } else {
+                pnl += basePnl[i];
+            }
+            int c = chainIndex[i];
+            if (c < 0) {
+                delta += qty;
+            } else if (!Double.isNaN(chain.delta[c])) {
+                delta += qty * chain.delta[c];
+                gamma += qty * chain.gamma[c];
+                theta += qty * chain.theta[c];
+                vega += qty * chain.vega[c];
+            }
+        }
+        book.delta = delta;
+        book.gamma = gamma;
+        book.theta = theta;
+        book.vega = vega;
+        book.pnl = pnl;
+    }
+
+    private void solve(Book book, int c, long now) {
+        GreeksEngine.Chain chain = book.chain;
+        chain.years[c] = years(book, c, now);
+        chain.vols[c] = solver.solve(chain.spot, chain.strikes[c], chain.years[c], chain.rate,
+                book.prices[c], chain.calls[c], chain.vols[c]);
+    }
+
+    private static double years(Book book, int c, long now) {
+        return (book.expiryMillis[c] - now) / 1000.0 / GreeksEngine.YEAR_SECONDS;
+    }
+
+    private void publish() {
+        int n = books.size();
+        String[] names = new String[n];
+        double[] spot = new double[n];
+        double[] delta = new double[n];
+        double[] gamma = new double[n];
+        double[] theta = new double[n];
+        double[] vega = new double[n];
+        double[] pnl = new double[n];
+        for (int b = 0; b < n; b++) {
+            Book book = books.get(b);
+            names[b] = book.name;
+            spot[b] = book.spot;
+            delta[b] = book.delta;
+            gamma[b] = book.gamma;
+            theta[b] = book.theta;
+            vega[b] = book.vega;
+            pnl[b] = book.pnl;
+        }
+        snapshot = new Snapshot(System.currentTimeMillis(), names, spot, delta, gamma, theta, vega, pnl);
+    }
+}
@@ -0,0 +1,92 @@
+package in.openalgo;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Quote mode (2) update: day OHLC, LTP, volume and open interest.
+ */
+public final class QuoteTick extends Tick {
+
+    double open;
+    double high;
+    double low;
+    double close;
+    long volume;
+    long oi = -1;
+
+    @Override
+    public int getMode() {
+        return 2;
+    }
+
+    public double getOpen() {
+        return open;
+    }
+
+    public double getHigh() {
+        return high;
+    }
+
+    public double getLow() {
+        return low;
+    }
+
+    /** @return Previous close */
+    public double getClose() {
+        return close;
+    }
+
+    /** @return Cumulative day volume */
+    public long getVolume() {
+        return volume;
+    }
+
+    /** @return Open interest, or -1 if not sent */
+    public long getOi() {
+        return oi;
+    }
+
+    void copyFrom(QuoteTick tick) {
+        id = tick.id;
+        exchange = tick.exchange;
+        symbol = tick.symbol;
+        ltp = tick.ltp;
+        timestamp = tick.timestamp;
+        open = tick.open;
+        high = tick.high;
+        low = tick.low;
+        close = tick.close;
+        volume = tick.volume;
+        oi = tick.oi;
+    }
+
+    @Override
+    public QuoteTick copy() {
+        QuoteTick tick = new QuoteTick();
+        tick.copyFrom(this);
+        return tick;
+    }
+
+    @Override
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("open", open);
+        map.put("high", high);
+        map.put("low", low);
+        map.put("close", close);
+        map.put("ltp", ltp);
+        map.put("volume", volume);
+        if (oi >= 0) {
+            map.put("oi", oi);
+        }
+        map.put("timestamp", timestamp);
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "QuoteTick{" + exchange + ":" + symbol + " ltp=" + ltp + " o=" + open + " h=" + high + " l=" + low
+                + " c=" + close + " v=" + volume + (oi >= 0 ? " oi=" + oi : "") + " ts=" + timestamp + "}";
+    }
+}
@@ -0,0 +1,77 @@
+package in.openalgo;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket rate limiter for budgeting API calls across threads.
+ */
+public class RateLimiter {
+
+    private final double permitsPerNano;
+    private final double maxPermits;
+    private double permits;
+    private long lastRefill;
+
+    /**
+     * Creates a rate limiter.
+     *
+     * @param permitsPerSecond Sustained rate
+     * @param burst            Maximum permits that can accumulate while idle
+     */
+    public RateLimiter(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.maxPermits = Math.max(1, burst);
+        this.permits = this.maxPermits;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Creates a rate limiter with a burst of one second's worth of permits.
+     */
+    public RateLimiter(double permitsPerSecond) {
+        this(permitsPerSecond, (int) Math.ceil(permitsPerSecond));
+    }
+
+    /**
+     * Blocks until a permit is available.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (permits >= 1) {
+                    permits -= 1;
+                    return;
+                }
+                waitNanos = (long) Math.ceil((1 - permits) / permitsPerNano);
+            }
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Takes a permit if one is available now.
+     *
+     * @return true if a permit was taken
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (permits >= 1) {
+            permits -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        permits = Math.min(maxPermits, permits + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+    }
+}
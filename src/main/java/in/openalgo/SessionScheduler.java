@@ -0,0 +1,360 @@
+package in.openalgo;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs feed connections and pollers only around an exchange's trading sessions.
+ *
+ * Each day goes through three phases, taken from a {@link MarketCalendar}:
+ * <ul>
+ *   <li>WARM from {@code prewarmMillis} before the open: participants' {@code prewarm()} runs,
+ *   e.g. to connect the feed or load the instrument master,</li>
+ *   <li>ACTIVE from {@code leadMillis} before the open until {@code graceMillis} after the
+ *   close: participants are resumed,</li>
+ *   <li>IDLE otherwise, including weekends and holidays: participants are paused.</li>
+ * </ul>
+ * Participants are resumed in the order they were added and paused in reverse order, so a
+ * feed added first is connected before the components that subscribe on it. A participant
+ * whose prewarm() or resume() throws is retried every 30 seconds; the participants
+ * after a failed resume() are not resumed, and the session stays WARM until all of them are.
+ * The scheduler sleeps until the next phase change (re-checking at least hourly) and makes
+ * no calls in between.
+ *
+ * Example usage:
+ * <pre>
+ * SessionScheduler scheduler = new SessionScheduler(calendar, "NSE");
+ * scheduler.add(SessionScheduler.feed(client));
+ * scheduler.add(SessionScheduler.Participant.of(account::start, account::close));
+ * scheduler.add(SessionScheduler.Participant.checked(pnl::start, pnl::close));
+ * scheduler.add(SessionScheduler.Participant.of(risk::start, risk::close));
+ * scheduler.start();
+ * </pre>
+ */
+public class SessionScheduler implements AutoCloseable {
+
+    /** Longest sleep between checks, so clock changes are picked up. */
+    private static final long MAX_SLEEP_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /** Delay before retrying a participant that failed to prewarm or resume. */
+    private static final long RETRY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Session phase.
+     */
+    public enum Phase {
+        IDLE, WARM, ACTIVE
+    }
+
+    /**
+     * Something that should only run during sessions.
+     */
+    public interface Participant {
+        /** Starts or resumes work; throws if it could not, so it is retried. */
+        void resume();
+
+        /** Stops work until the next session. */
+        void pause();
+
+        /** Prepares connections or caches ahead of the open; throws if it could not. */
+        default void prewarm() {
+        }
+
+        /**
+         * Creates a participant from start and stop actions.
+         *
+         * @param resume Action run when the session starts
+         * @param pause  Action run when the session ends
+         * @return Participant
+         */
+        static Participant of(Runnable resume, Runnable pause) {
+            return new Participant() {
+                @Override
+                public void resume() {
+                    resume.run();
+                }
+
+                @Override
+                public void pause() {
+                    pause.run();
+                }
+            };
+        }
+
+        /**
+         * Creates a participant whose start action reports failure, e.g. a subscription that
+         * could not be sent. A false result is retried like an exception.
+         *
+         * @param resume Action run when the session starts, false if it failed
+         * @param pause  Action run when the session ends
+         * @return Participant
+         */
+        static Participant checked(BooleanSupplier resume, Runnable pause) {
+            return of(() -> {
+                if (!resume.getAsBoolean()) {
+                    throw new IllegalStateException("Participant failed to resume");
+                }
+            }, pause);
+        }
+    }
+
+    private final MarketCalendar calendar;
+    private final String exchange;
+    private final long prewarmMillis;
+    private final long leadMillis;
+    private final long graceMillis;
+    private final List<Member> members = new ArrayList<>();
+    private Phase target = Phase.IDLE;
+    private Phase phase = Phase.IDLE;
+    private long nextTransition = -1;
+    private ScheduledExecutorService timer;
+    private ScheduledFuture<?> next;
+
+    // A participant and the phase it has reached
+    private static final class Member {
+        final Participant participant;
+        Phase phase = Phase.IDLE;
+
+        Member(Participant participant) {
+            this.participant = participant;
+        }
+    }
+
+    /**
+     * Creates a scheduler that pre-warms 15 minutes and resumes 1 minute before the open,
+     * and pauses 5 minutes after the close.
+     *
+     * @param calendar Market calendar
+     * @param exchange Exchange whose sessions are followed
+     */
+    public SessionScheduler(MarketCalendar calendar, String exchange) {
+        this(calendar, exchange, TimeUnit.MINUTES.toMillis(15), TimeUnit.MINUTES.toMillis(1), TimeUnit.MINUTES.toMillis(5));
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param calendar      Market calendar
+     * @param exchange      Exchange whose sessions are followed
+     * @param prewarmMillis Time before the open to call prewarm()
+     * @param leadMillis    Time before the open to call resume(), at most prewarmMillis
+     * @param graceMillis   Time after the close to call pause()
+     */
+    public SessionScheduler(MarketCalendar calendar, String exchange, long prewarmMillis, long leadMillis, long graceMillis) {
+        if (leadMillis > prewarmMillis) {
+            throw new IllegalArgumentException("leadMillis must not exceed prewarmMillis");
+        }
+        this.calendar = calendar;
+        this.exchange = exchange;
+        this.prewarmMillis = prewarmMillis;
+        this.leadMillis = leadMillis;
+        this.graceMillis = graceMillis;
+    }
+
+    /**
+     * Creates a participant that connects the feed when warming up and disconnects it when
+     * paused. A failed connect counts as a failure, so the session does not go ACTIVE until the
+     * feed is connected. Add it before the participants that subscribe on the feed.
+     *
+     * @param client Feed client
+     * @return Participant
+     */
+    public static Participant feed(FeedApi client) {
+        return new Participant() {
+            @Override
+            public void prewarm() {
+                connect();
+            }
+
+            @Override
+            public void resume() {
+                connect();
+            }
+
+            private void connect() {
+                if (!client.connect()) {
+                    throw new IllegalStateException("Feed connection failed");
+                }
+            }
+
+            @Override
+            public void pause() {
+                client.disconnect();
+            }
+        };
+    }
+
+    /**
+     * Adds a participant. If a session is in progress it is brought to the current phase.
+     *
+     * @param participant Participant
+     */
+    public synchronized void add(Participant participant) {
+        members.add(new Member(participant));
+        if (target != Phase.IDLE) {
+            drive();
+            if (timer != null) {
+                schedule(System.currentTimeMillis());
+            }
+        }
+    }
+
+    /**
+     * Applies the current phase and follows the calendar on a background thread.
+     */
+    public synchronized void start() {
+        if (timer != null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "openalgo-session-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        tick();
+    }
+
+    /**
+     * Stops following the calendar and pauses the participants if a session was in progress.
+     */
+    @Override
+    public synchronized void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+            next = null;
+        }
+        target = Phase.IDLE;
+        drive();
+    }
+
+    /** @return Current phase */
+    public synchronized Phase getPhase() {
+        return phase;
+    }
+
+    /** @return Epoch millis of the next phase change, or -1 beyond the calendar */
+    public synchronized long getNextTransition() {
+        return nextTransition;
+    }
+
+    private synchronized void tick() {
+        if (timer == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        evaluate(now);
+        schedule(now);
+    }
+
+    // Replaces the pending check, retrying soon while a participant lags behind the phase
+    private void schedule(long now) {
+        long delay = nextTransition < 0 ? MAX_SLEEP_MILLIS : Math.min(Math.max(nextTransition - now, 0), MAX_SLEEP_MILLIS);
+        if (lagging()) {
+            delay = Math.min(delay, RETRY_MILLIS);
+        }
+        if (next != null) {
+            next.cancel(false);
+        }
+        next = timer.schedule(this::tick, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Moves to the phase of an instant and records the next phase change.
+     */
+    synchronized void evaluate(long now) {
+        long close = calendar.nextClose(exchange, now - graceMillis);
+        if (close < 0) {
+            nextTransition = -1;
+            target = Phase.IDLE;
+            drive();
+            return;
+        }
+        LocalDate day = Instant.ofEpochMilli(close).atZone(CandleStore.MARKET_ZONE).toLocalDate();
+        long[] session = calendar.session(exchange, day);
+        long open = session != null ? session[0] : close;
+        if (now >= open - leadMillis) {
+            target = Phase.ACTIVE;
+            nextTransition = close + graceMillis;
+        } else if (now >= open - prewarmMillis) {
+            target = Phase.WARM;
+            nextTransition = open - leadMillis;
+        } else {
+            target = Phase.IDLE;
+            nextTransition = open - prewarmMillis;
+        }
+        drive();
+    }
+
+    // Moves every participant towards the target phase and derives the session phase
+    private void drive() {
+        if (target != Phase.ACTIVE) {
+            for (int i = members.size() - 1; i >= 0; i--) {
+                Member member = members.get(i);
+                if (member.phase == Phase.ACTIVE || target == Phase.IDLE && member.phase == Phase.WARM) {
+                    run(member.participant, Phase.IDLE);
+                    member.phase = target;
+                }
+            }
+        }
+        if (target != Phase.IDLE) {
+            for (Member member : members) {
+                if (member.phase == Phase.IDLE && run(member.participant, Phase.WARM)) {
+                    member.phase = Phase.WARM;
+                }
+            }
+        }
+        if (target == Phase.ACTIVE) {
+            for (Member member : members) {
+                if (member.phase != Phase.ACTIVE) {
+                    if (!run(member.participant, Phase.ACTIVE)) {
+                        // Later participants may depend on this one, e.g. subscribe on the feed
+                        break;
+                    }
+                    member.phase = Phase.ACTIVE;
+                }
+            }
+        }
+        if (target == Phase.IDLE) {
+            phase = Phase.IDLE;
+        } else {
+            phase = target == Phase.ACTIVE && !lagging() ? Phase.ACTIVE : Phase.WARM;
+        }
+    }
+
+    private boolean lagging() {
+        for (Member member : members) {
+            if (member.phase != target) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean run(Participant participant, Phase phase) {
+        try {
+            switch (phase) {
+                case WARM:
+                    participant.prewarm();
+                    break;
+                case ACTIVE:
+                    participant.resume();
+                    break;
+                default:
+                    participant.pause();
+                    break;
+            }
+            return true;
+        } catch (RuntimeException e) {
+            // One failing participant must not keep the others from following the session
+            return false;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package in.openalgo;
+
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Non-blocking telegram() alerts with a background sender.
+ *
+ * {@link #send(String, int)} only queues the message and returns at once, so it is safe to
+ * call from feed callbacks. A daemon thread sends the queue highest priority first, joining
+ * several pending messages into one telegram() call (up to 4096 characters) and taking a
+ * {@link RateLimiter} permit per call.
+ *
+ * A message identical to one still queued is merged into it, with a repeat count and the
+ * higher priority. A message identical to one sent within the coalesce window is dropped.
+ * When the queue is full the {@link DropPolicy} decides what is lost. Messages of a failed
+ * call go back to the queue and are given up after 3 attempts.
+ *
+ * Example usage:
+ * <pre>
+ * TelegramDispatcher alerts = new TelegramDispatcher(client, "trader1");
+ * alerts.start();
+ * alerts.send("NIFTY crossed 26000", 7);   // returns immediately
+ * alerts.send("Stop loss hit on SBIN", 10);
+ * </pre>
+ */
+public class TelegramDispatcher implements AutoCloseable {
+
+    /** Longest message accepted by telegram(). */
+    public static final int MAX_MESSAGE_LENGTH = 4096;
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * What to do with a new message when the queue is full.
+     */
+    public enum DropPolicy {
+        /** Reject the new message. */
+        DROP_NEW,
+        /** Evict the lowest-priority queued message, unless the new one has a lower priority. */
+        DROP_LOWEST
+    }
+
+    private static final class Alert {
+        final String text;
+        int priority;
+        int count = 1;
+        int attempts;
+        final long sequence;
+
+        Alert(String text, int priority, long sequence) {
+            this.text = text;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        String render() {
+            return count == 1 ? text : text + " (x" + count + ")";
+        }
+    }
+
+    private final UtilitiesApi api;
+    private final String username;
+    private final int capacity;
+    private final long coalesceMillis;
+    private final DropPolicy dropPolicy;
+    private final RateLimiter rateLimiter;
+
+    // Highest priority first, then oldest first; guarded by this
+    private final TreeSet<Alert> queue = new TreeSet<>((a, b) -> a.priority != b.priority
+            ? Integer.compare(b.priority, a.priority) : Long.compare(a.sequence, b.sequence));
+    private final Map<String, Alert> pending = new HashMap<>();
+    private final Map<String, Long> recentlySent = new HashMap<>();
+    private long sequence;
+    private Thread sender;
+    private boolean closed;
+
+    private long sent;
+    private long calls;
+    private long failed;
+    private long dropped;
+    private long coalesced;
+
+    /**
+     * Creates a dispatcher for 1000 queued messages, 1 call per second, a 60 second
+     * coalesce window and {@link DropPolicy#DROP_LOWEST}.
+     *
+     * @param api      Client used for telegram() calls
+     * @param username OpenAlgo login username
+     */
+    public TelegramDispatcher(UtilitiesApi api, String username) {
+        this(api, username, 1000, 1, 60_000, DropPolicy.DROP_LOWEST);
+    }
+
+    /**
+     * Creates a dispatcher.
+     *
+     * @param api            Client used for telegram() calls
+     * @param username       OpenAlgo login username
+     * @param capacity       Maximum queued messages
+     * @param callsPerSecond Rate limit of telegram() calls
+     * @param coalesceMillis Window in which a repeated message is dropped after being sent
+     * @param dropPolicy     What to drop when the queue is full
+     */
+    public TelegramDispatcher(UtilitiesApi api, String username, int capacity, double callsPerSecond,
+                              long coalesceMillis, DropPolicy dropPolicy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.api = api;
+        this.username = username;
+        this.capacity = capacity;
+        this.coalesceMillis = coalesceMillis;
+        this.dropPolicy = dropPolicy;
+        this.rateLimiter = new RateLimiter(callsPerSecond, 1);
+    }
+
+    /**
+     * Starts the background sender.
+     */
+    public synchronized void start() {
+        if (sender != null || closed) {
+            return;
+        }
+        sender = new Thread(this::run, "openalgo-telegram");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    /**
+     * Queues a message with normal priority (5).
+     *
+     * @param message Alert text
+     * @return false if the message was dropped
+     */
+    public boolean send(String message) {
+        return send(message, 5);
+    }
+
+    /**
+     * Queues a message without blocking.
+     *
+     * @param message  Alert text, truncated to 4096 characters
+     * @param priority Priority 1-10, higher is sent first
+     * @return false if the message was dropped (duplicate of a recent message, queue full or closed)
+     */
+    public synchronized boolean send(String message, int priority) {
+        if (closed) {
+            dropped++;
+            return false;
+        }
+        String text = message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) : message;
+        int p = Math.max(1, Math.min(10, priority));
+
+        Alert existing = pending.get(text);
+        if (existing != null) {
+            queue.remove(existing);
+            existing.count++;
+            existing.priority = Math.max(existing.priority, p);
+            queue.add(existing);
+            coalesced++;
+            return true;
+        }
+        Long sentAt = recentlySent.get(text);
+        if (sentAt != null && System.currentTimeMillis() - sentAt < coalesceMillis) {
+            coalesced++;
+            return false;
+        }
+
+        if (queue.size() >= capacity) {
+            Alert lowest = queue.last();
+            if (dropPolicy == DropPolicy.DROP_NEW || lowest.priority > p) {
+                dropped++;
+                return false;
+            }
+            queue.remove(lowest);
+            pending.remove(lowest.text);
+            dropped++;
+        }
+        Alert alert = new Alert(text, p, sequence++);
+        queue.add(alert);
+        pending.put(text, alert);
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Stops the sender. Queued messages are not sent.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            closed = true;
+            dropped += queue.size();
+            queue.clear();
+            pending.clear();
+            notifyAll();
+            thread = sender;
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /** @return Messages waiting to be sent */
+    public synchronized int getPending() {
+        return queue.size();
+    }
+
+    /** @return Messages delivered in successful telegram() calls */
+    public synchronized long getSent() {
+        return sent;
+    }
+
+    /** @return telegram() calls made */
+    public synchronized long getCalls() {
+        return calls;
+    }
+
+    /** @return Messages given up after failed telegram() calls */
+    public synchronized long getFailed() {
+        return failed;
+    }
+
+    /** @return Messages dropped by the drop policy or on close */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    /** @return Duplicate messages merged or suppressed */
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                synchronized (this) {
+                    while (queue.isEmpty() && !closed) {
+                        wait();
+                    }
+                    if (closed) {
+                        return;
+                    }
+                }
+                rateLimiter.acquire();
+                List<Alert> batch = new ArrayList<>();
+                String text = nextBatch(batch);
+                if (text == null) {
+                    continue;
+                }
+                JsonObject response;
+                try {
+                    response = api.telegram(username, text, batch.get(0).priority);
+                } catch (RuntimeException e) {
+                    response = null;
+                }
+                boolean ok = response != null && response.has("status")
+                        && "success".equals(response.get("status").getAsString());
+                synchronized (this) {
+                    calls++;
+                    if (ok) {
+                        sent += batch.size();
+                        long now = System.currentTimeMillis();
+                        for (Alert alert : batch) {
+                            recentlySent.put(alert.text, now);
+                        }
+                    } else {
+                        requeue(batch);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Takes the highest-priority messages that fit in one call
+    private synchronized String nextBatch(List<Alert> batch) {
+        long now = System.currentTimeMillis();
+        recentlySent.values().removeIf(sentAt -> now - sentAt >= coalesceMillis);
+        StringBuilder text = new StringBuilder();
+        Iterator<Alert> it = queue.iterator();
+        while (it.hasNext()) {
+            Alert alert = it.next();
+            String line = alert.render();
+            int length = text.length() == 0 ? line.length() : text.length() + 1 + line.length();
+            if (length > MAX_MESSAGE_LENGTH) {
+                if (text.length() == 0) {
+                    line = line.substring(0, MAX_MESSAGE_LENGTH);
+                } else {
+                    break;
+                }
+            }
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(line);
+            it.remove();
+            pending.remove(alert.text);
+            batch.add(alert);
+        }
+        return batch.isEmpty() ? null : text.toString();
+    }
+
+    // Puts the messages of a failed call back in the queue, in their original order
+    private void requeue(List<Alert> batch) {
+        for (Alert alert : batch) {
+            if (++alert.attempts >= MAX_ATTEMPTS) {
+                failed++;
+                continue;
+            }
+            if (closed) {
+                dropped++;
+                continue;
+            }
+            Alert existing = pending.get(alert.text);
+            if (existing != null) {
+                // Queued again while the call was in flight
+                queue.remove(existing);
+                existing.count += alert.count;
+                existing.priority = Math.max(existing.priority, alert.priority);
+                queue.add(existing);
+            } else if (queue.size() < capacity) {
+                queue.add(alert);
+                pending.put(alert.text, alert);
+            } else {
+                dropped++;
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package in.openalgo;
+
+import java.util.Map;
+
+/**
+ * Market data update with primitive fields, delivered to a {@link TickListener}.
+ *
+ * Ticks passed to listeners are flyweights: FeedApi reuses one instance per mode and
+ * overwrites it with the next message, so a tick is only valid during the callback.
+ * Use {@link #copy()} to keep one.
+ */
+public abstract class Tick {
+
+    int id;
+    String exchange;
+    String symbol;
+    double ltp;
+    long timestamp;
+
+    Tick() {
+    }
+
+    /** @return Instrument id from {@link FeedApi#getInstrumentRegistry()} */
+    public int getInstrumentId() {
+        return id;
+    }
+
+    /** @return Exchange code */
+    public String getExchange() {
+        return exchange;
+    }
+
+    /** @return Trading symbol */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /** @return Last traded price */
+    public double getLtp() {
+        return ltp;
+    }
+
+    /** @return Exchange timestamp in epoch millis, 0 if not sent */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets the subscription mode of the tick.
+     *
+     * @return 1 for LTP, 2 for Quote, 3 for Depth
+     */
+    public abstract int getMode();
+
+    /**
+     * Copies the tick so it can be kept after the callback.
+     *
+     * @return Independent copy
+     */
+    public abstract Tick copy();
+
+    /**
+     * Converts the tick to the data map of the Map-based feed API.
+     */
+    abstract Map<String, Object> toMap();
+}
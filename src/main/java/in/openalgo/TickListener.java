@@ -0,0 +1,55 @@
+package in.openalgo;
+
+/**
+ * Typed market data callback, added with {@link FeedApi#addTickListener(TickListener)}.
+ *
+ * Each method defaults to {@link #onTick(Tick)}, so a listener that only needs the price can
+ * override that one method. Ticks are reused by the feed; see {@link Tick}.
+ *
+ * Example usage:
+ * <pre>
+ * client.addTickListener(new TickListener() {
+ *     &#64;Override
+ *     public void onQuote(QuoteTick tick) {
+ *         System.out.println(tick.getSymbol() + " " + tick.getLtp() + " vol " + tick.getVolume());
+ *     }
+ * });
+ * </pre>
+ */
+public interface TickListener {
+
+    /**
+     * Called for every LTP mode update.
+     *
+     * @param tick Update, valid during the call
+     */
+    default void onLtp(LtpTick tick) {
+        onTick(tick);
+    }
+
+    /**
+     * Called for every Quote mode update.
+     *
+     * @param tick Update, valid during the call
+     */
+    default void onQuote(QuoteTick tick) {
+        onTick(tick);
+    }
+
+    /**
+     * Called for every Depth mode update.
+     *
+     * @param tick Update, valid during the call
+     */
+    default void onDepth(DepthTick tick) {
+        onTick(tick);
+    }
+
+    /**
+     * Called for updates of any mode not handled by a more specific method.
+     *
+     * @param tick Update, valid during the call
+     */
+    default void onTick(Tick tick) {
+    }
+}
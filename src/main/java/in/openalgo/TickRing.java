@@ -0,0 +1,482 @@
+package in.openalgo;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands ticks from the WebSocket thread to listeners running on their own threads.
+ *
+ * Tick listeners added to the feed directly run on the WebSocket read thread, so one slow
+ * callback delays every later message. A TickRing is the only listener the read thread calls:
+ * it copies each tick into the next slot of a preallocated ring and publishes the slot's
+ * sequence number, without locks or allocation. Every consumer has its own daemon thread that
+ * follows the published sequence at its own pace with a {@link WaitStrategy}, and its own
+ * sequence that tells how far it has read.
+ *
+ * Every consumer sees ticks in order. What happens when a consumer falls a whole ring behind
+ * is its {@link OverflowPolicy}: a {@code BLOCK} consumer sees every tick and makes the
+ * WebSocket thread wait for it, so size the ring for the largest burst it may lag behind; a
+ * {@code DROP} consumer never holds up the WebSocket thread and instead loses the ticks that
+ * were overwritten before it read them, counted by {@link Consumer#getDropped()}.
+ *
+ * Example usage:
+ * <pre>
+ * TickRing ring = new TickRing(client, 8192);
+ * TickRing.Consumer strategy = ring.addConsumer(new TickListener() {
+ *     public void onQuote(QuoteTick tick) { ... }   // runs on the consumer's thread
+ * }, TickRing.WaitStrategy.YIELD);
+ * ring.addConsumer(dashboard, TickRing.WaitStrategy.PARK, TickRing.OverflowPolicy.DROP);
+ * ring.start();
+ * client.subscribeQuote(instruments, null);
+ * ...
+ * System.out.println("Behind by " + strategy.getLag());
+ * ring.close();
+ * </pre>
+ */
+public class TickRing implements AutoCloseable {
+
+    /**
+     * How a consumer waits for the next tick.
+     */
+    public enum WaitStrategy {
+        /** Spin on the sequence: lowest latency, keeps a core busy. */
+        BUSY_SPIN,
+        /** Spin, yielding the CPU between checks. */
+        YIELD,
+        /** Sleep until the WebSocket thread signals a new tick: no idle CPU, highest latency. */
+        PARK
+    }
+
+    /**
+     * What a consumer that has fallen a whole ring behind does.
+     */
+    public enum OverflowPolicy {
+        /** Make the WebSocket thread wait until the consumer frees a slot; no tick is lost. */
+        BLOCK,
+        /** Let the WebSocket thread overwrite unread slots; the consumer skips what it lost. */
+        DROP
+    }
+
+    // Preallocated slot; only the tick matching the mode is valid. The sequence of the tick it
+    // holds is -1 while the producer writes it, so a DROP consumer can detect an overwrite.
+    private static final class Slot {
+        volatile long sequence = -1;
+        int mode;
+        final LtpTick ltp = new LtpTick();
+        final QuoteTick quote = new QuoteTick();
+        final DepthTick depth = new DepthTick();
+
+        Tick current() {
+            return mode == 1 ? ltp : mode == 2 ? quote : depth;
+        }
+    }
+
+    /**
+     * A listener reading the ring on its own thread.
+     */
+    public final class Consumer {
+        private final TickListener listener;
+        private final WaitStrategy waitStrategy;
+        private final boolean blocking;
+        private final AtomicLong sequence = new AtomicLong(-1);
+        private volatile boolean parked;
+        private volatile boolean running = true;
+        private volatile long errors;
+        private volatile long dropped;
+        private volatile Thread thread;
+
+        // A DROP consumer hands the listener private copies, as the slot may be overwritten
+        private final LtpTick ltp = new LtpTick();
+        private final QuoteTick quote = new QuoteTick();
+        private final DepthTick depth = new DepthTick();
+
+        private Consumer(TickListener listener, WaitStrategy waitStrategy, OverflowPolicy overflowPolicy) {
+            this.listener = listener;
+            this.waitStrategy = waitStrategy;
+            this.blocking = overflowPolicy == OverflowPolicy.BLOCK;
+        }
+
+        /** @return Sequence of the last tick handed to the listener, -1 before the first */
+        public long getSequence() {
+            return sequence.get();
+        }
+
+        /** @return Ticks published but not yet handed to the listener */
+        public long getLag() {
+            return cursor.get() - sequence.get();
+        }
+
+        /** @return Exceptions thrown by the listener */
+        public long getErrors() {
+            return errors;
+        }
+
+        /** @return Ticks a DROP consumer lost because they were overwritten before it read them */
+        public long getDropped() {
+            return dropped;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return blocking ? OverflowPolicy.BLOCK : OverflowPolicy.DROP;
+        }
+
+        public WaitStrategy getWaitStrategy() {
+            return waitStrategy;
+        }
+
+        private void run() {
+            try {
+                long next = sequence.get() + 1;
+                int idle = 0;
+                while (running) {
+                    long available = cursor.get();
+                    if (available < next) {
+                        idle = waitFor(next, idle);
+                        continue;
+                    }
+                    idle = 0;
+                    if (!blocking && available - next >= slots.length) {
+                        // Lapped: everything older than one ring back has been overwritten
+                        long oldest = available - slots.length + 1;
+                        dropped += oldest - next;
+                        next = oldest;
+                    }
+                    for (; next <= available && running; next++) {
+                        Slot slot = slots[(int) (next & mask)];
+                        Tick tick = blocking ? slot.current() : read(slot, next);
+                        if (tick == null) {
+                            dropped++;
+                        } else {
+                            dispatch(tick);
+                        }
+                        // Releases the slot to the producer
+                        sequence.lazySet(next);
+                    }
+                }
+            } finally {
+                // An Error from the listener ends the thread; the producer must not wait for it
+                running = false;
+                consumers.remove(this);
+            }
+        }
+
+        private void dispatch(Tick tick) {
+            try {
+                switch (tick.getMode()) {
+                    case 1:
+                        listener.onLtp((LtpTick) tick);
+                        break;
+                    case 2:
+                        listener.onQuote((QuoteTick) tick);
+                        break;
+                    default:
+                        listener.onDepth((DepthTick) tick);
+                        break;
+                }
+            } catch (RuntimeException e) {
+                // A failing listener must not stop its consumer
+                errors++;
+            }
+        }
+
+        // Copies a slot, or returns null if the producer overwrote it before or during the copy
+        private Tick read(Slot slot, long seq) {
+            if (slot.sequence != seq) {
+                return null;
+            }
+            Tick copy;
+            try {
+                int mode = slot.mode;
+                if (mode == 1) {
+                    ltp.copyFrom(slot.ltp);
+                    copy = ltp;
+                } else if (mode == 2) {
+                    quote.copyFrom(slot.quote);
+                    copy = quote;
+                } else {
+                    depth.copyFrom(slot.depth);
+                    copy = depth;
+                }
+            } catch (RuntimeException e) {
+                // Torn copy of a slot being rewritten, e.g. depth levels without their arrays
+                return null;
+            }
+            // Orders the copy before the re-check
+            VarHandle.acquireFence();
+            return slot.sequence == seq ? copy : null;
+        }
+
+        private int waitFor(long next, int idle) {
+            switch (waitStrategy) {
+                case BUSY_SPIN:
+                    Thread.onSpinWait();
+                    return idle;
+                case YIELD:
+                    if (idle < 100) {
+                        Thread.onSpinWait();
+                        return idle + 1;
+                    }
+                    Thread.yield();
+                    return idle;
+                default:
+                    // Re-check after raising the flag so a publish in between is not missed
+                    parked = true;
+                    if (cursor.get() < next && running) {
+                        LockSupport.parkNanos(this, 1_000_000);
+                    }
+                    parked = false;
+                    return idle;
+            }
+        }
+    }
+
+    private final FeedApi feed;
+    private final Slot[] slots;
+    private final int mask;
+
+    // Last published sequence, written only by the WebSocket thread
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final CopyOnWriteArrayList<Consumer> consumers = new CopyOnWriteArrayList<>();
+
+    // Producer state, touched only by the WebSocket thread
+    private long gate = -1;
+    private volatile long producerWaits;
+
+    private int threads;
+    private volatile boolean started;
+    private volatile boolean closed;
+
+    private final TickListener producer = new TickListener() {
+        @Override
+        public void onTick(Tick tick) {
+            publish(tick);
+        }
+    };
+
+    /**
+     * Creates a ring with 4096 slots.
+     *
+     * @param feed Client whose ticks are dispatched
+     */
+    public TickRing(FeedApi feed) {
+        this(feed, 4096);
+    }
+
+    /**
+     * Creates a ring.
+     *
+     * @param feed     Client whose ticks are dispatched
+     * @param capacity Number of slots, a power of two
+     */
+    public TickRing(FeedApi feed, int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        this.feed = feed;
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Adds a consumer that blocks the producer when it falls a whole ring behind.
+     *
+     * @param listener     Listener called on the consumer's thread
+     * @param waitStrategy How the consumer waits for ticks
+     * @return Handle for the consumer's sequence and lag
+     */
+    public Consumer addConsumer(TickListener listener, WaitStrategy waitStrategy) {
+        return addConsumer(listener, waitStrategy, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Adds a consumer. It receives ticks published from now on, on its own daemon thread,
+     * which starts with {@link #start()} or at once if the ring is already started. An Error
+     * thrown by the listener stops the consumer, as if it had been removed.
+     *
+     * @param listener       Listener called on the consumer's thread
+     * @param waitStrategy   How the consumer waits for ticks
+     * @param overflowPolicy What happens when the consumer falls a whole ring behind
+     * @return Handle for the consumer's sequence, lag and dropped ticks
+     */
+    public synchronized Consumer addConsumer(TickListener listener, WaitStrategy waitStrategy,
+                                             OverflowPolicy overflowPolicy) {
+        if (closed) {
+            throw new IllegalStateException("TickRing is closed");
+        }
+        Consumer consumer = new Consumer(listener, waitStrategy, overflowPolicy);
+        consumer.sequence.set(cursor.get());
+        consumers.add(consumer);
+        // Starts at the cursor seen once it gates the producer, which can then never lap it
+        consumer.sequence.set(cursor.get());
+        if (started) {
+            startThread(consumer);
+        }
+        return consumer;
+    }
+
+    /**
+     * Stops a consumer, waiting up to a second for its thread to finish the current tick.
+     * Ticks it has not read are skipped and no longer hold up the producer.
+     *
+     * @param consumer Handle returned by {@link #addConsumer}
+     */
+    public void removeConsumer(Consumer consumer) {
+        synchronized (this) {
+            if (!consumers.contains(consumer)) {
+                return;
+            }
+            stop(consumer);
+        }
+        Thread thread = consumer.thread;
+        if (thread == Thread.currentThread()) {
+            // Called from the listener: the consumer leaves the ring once the callback returns
+            return;
+        }
+        // Keeps gating the producer until the thread has stopped reading slots
+        join(thread);
+        consumers.remove(consumer);
+    }
+
+    /**
+     * Starts the consumer threads and attaches the ring to the feed.
+     */
+    public synchronized void start() {
+        if (started || closed) {
+            return;
+        }
+        started = true;
+        for (Consumer consumer : consumers) {
+            startThread(consumer);
+        }
+        feed.addTickListener(producer);
+    }
+
+    /**
+     * Detaches the ring from the feed and stops the consumer threads.
+     */
+    @Override
+    public void close() {
+        List<Consumer> stopped;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            feed.removeTickListener(producer);
+            stopped = new ArrayList<>(consumers);
+            for (Consumer consumer : stopped) {
+                stop(consumer);
+            }
+        }
+        for (Consumer consumer : stopped) {
+            if (consumer.thread != Thread.currentThread()) {
+                join(consumer.thread);
+            }
+        }
+        consumers.clear();
+    }
+
+    /** @return Sequence of the last published tick, -1 before the first */
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    /** @return Number of slots */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /** @return Times the WebSocket thread found the ring full and waited for a consumer */
+    public long getProducerWaits() {
+        return producerWaits;
+    }
+
+    // Called on the WebSocket thread only
+    void publish(Tick tick) {
+        long next = cursor.get() + 1;
+        long wrap = next - slots.length;
+        if (wrap > gate) {
+            long min = minimumSequence(next - 1);
+            if (wrap > min) {
+                producerWaits++;
+                int spins = 0;
+                while (wrap > (min = minimumSequence(next - 1))) {
+                    if (closed) {
+                        return;
+                    }
+                    if (spins++ < 1000) {
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.parkNanos(1_000);
+                    }
+                }
+            }
+            gate = min;
+        }
+
+        Slot slot = slots[(int) (next & mask)];
+        slot.sequence = -1;
+        // Keeps the copy below from being seen before the slot is marked as being written
+        VarHandle.storeStoreFence();
+        int mode = tick.getMode();
+        slot.mode = mode;
+        if (mode == 1) {
+            slot.ltp.copyFrom((LtpTick) tick);
+        } else if (mode == 2) {
+            slot.quote.copyFrom((QuoteTick) tick);
+        } else {
+            slot.depth.copyFrom((DepthTick) tick);
+        }
+        slot.sequence = next;
+        // Releases the slot contents; a full fence so parked consumers are seen after it
+        cursor.set(next);
+
+        for (Consumer consumer : consumers) {
+            if (consumer.parked) {
+                LockSupport.unpark(consumer.thread);
+            }
+        }
+    }
+
+    // Only BLOCK consumers hold up the producer
+    private long minimumSequence(long min) {
+        for (Consumer consumer : consumers) {
+            if (consumer.blocking) {
+                min = Math.min(min, consumer.sequence.get());
+            }
+        }
+        return min;
+    }
+
+    private void startThread(Consumer consumer) {
+        Thread thread = new Thread(consumer::run, "openalgo-tickring-" + threads++);
+        thread.setDaemon(true);
+        consumer.thread = thread;
+        thread.start();
+    }
+
+    private static void stop(Consumer consumer) {
+        consumer.running = false;
+        if (consumer.thread != null) {
+            LockSupport.unpark(consumer.thread);
+        }
+    }
+
+    private static void join(Thread thread) {
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
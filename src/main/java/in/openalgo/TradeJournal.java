@@ -0,0 +1,427 @@
+package in.openalgo;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Incremental tradebook() sync into an append-only JSON Lines journal.
+ *
+ * Each trade is identified by its order id, symbol, side, quantity, price and time (plus an
+ * occurrence number for identical partial fills). {@link #sync()} appends only trades that
+ * are not in the journal yet and passes them to listeners, so downstream code sees each fill
+ * once. The journal is read back on open, which makes the seen-set and the trade history
+ * survive restarts; {@link #netPositions()} rebuilds positions and realized P&L from it
+ * without calling the server. A line that was cut short by a crash is skipped.
+ *
+ * Use one journal file per trading day, since tradebook() only returns the current day.
+ *
+ * Example usage:
+ * <pre>
+ * try (TradeJournal journal = new TradeJournal(client, Paths.get("trades-2025-12-22.jsonl"))) {
+ *     journal.addListener(trade -&gt; System.out.println("Fill: " + trade));
+ *     journal.start(2000);
+ *     ...
+ *     Map&lt;String, TradeJournal.NetPosition&gt; positions = journal.netPositions();
+ * }
+ * </pre>
+ */
+public class TradeJournal implements AutoCloseable {
+
+    /**
+     * One fill from the tradebook.
+     */
+    public static final class Trade {
+        private final String key;
+        private final String orderId;
+        private final String symbol;
+        private final String exchange;
+        private final String product;
+        private final String action;
+        private final long quantity;
+        private final double price;
+        private final String timestamp;
+        private final JsonObject raw;
+
+        Trade(String key, JsonObject raw) {
+            this.key = key;
+            this.raw = raw;
+            this.orderId = JsonFields.text(raw, "orderid");
+            this.symbol = JsonFields.text(raw, "symbol");
+            this.exchange = JsonFields.text(raw, "exchange");
+            this.product = JsonFields.text(raw, "product");
+            this.action = JsonFields.text(raw, "action");
+            this.quantity = (long) JsonFields.number(raw, "quantity");
+            this.price = JsonFields.number(raw, "average_price");
+            this.timestamp = JsonFields.text(raw, "timestamp");
+        }
+
+        /** @return Journal key of this fill */
+        public String getKey() {
+            return key;
+        }
+
+        public String getOrderId() {
+            return orderId;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        public String getExchange() {
+            return exchange;
+        }
+
+        public String getProduct() {
+            return product;
+        }
+
+        /** @return BUY or SELL */
+        public String getAction() {
+            return action;
+        }
+
+        public long getQuantity() {
+            return quantity;
+        }
+
+        /** @return Fill price */
+        public double getPrice() {
+            return price;
+        }
+
+        /** @return Trade time as reported by the server, may be null */
+        public String getTimestamp() {
+            return timestamp;
+        }
+
+        /** @return Signed quantity: positive for BUY, negative for SELL */
+        public long getSignedQuantity() {
+            return "SELL".equalsIgnoreCase(action) ? -quantity : quantity;
+        }
+
+        /** @return Copy of the tradebook row */
+        public JsonObject toJson() {
+            return raw.deepCopy();
+        }
+
+        @Override
+        public String toString() {
+            return action + " " + quantity + " " + exchange + ":" + symbol + " @ " + price + " (order " + orderId + ")";
+        }
+    }
+
+    /**
+     * Net position rebuilt from fills using average cost.
+     */
+    public static final class NetPosition {
+        private long quantity;
+        private double averagePrice;
+        private double realizedPnl;
+
+        void apply(long signedQuantity, double price) {
+            if (quantity == 0 || Long.signum(quantity) == Long.signum(signedQuantity)) {
+                // Opening or adding: new average cost
+                averagePrice = (averagePrice * Math.abs(quantity) + price * Math.abs(signedQuantity))
+                        / (Math.abs(quantity) + Math.abs(signedQuantity));
+                quantity += signedQuantity;
+                return;
+            }
+            long closing = Math.min(Math.abs(signedQuantity), Math.abs(quantity));
+            realizedPnl += closing * (price - averagePrice) * Long.signum(quantity);
+            long remaining = quantity + signedQuantity;
+            if (remaining != 0 && Long.signum(remaining) != Long.signum(quantity)) {
+                // Flipped: the rest opens a new position at the fill price
+                averagePrice = price;
+            } else if (remaining == 0) {
+                averagePrice = 0;
+            }
+            quantity = remaining;
+        }
+
+        /** @return Net quantity, negative for short */
+        public long getQuantity() {
+            return quantity;
+        }
+
+        /** @return Average cost of the open quantity */
+        public double getAveragePrice() {
+            return averagePrice;
+        }
+
+        /** @return P&amp;L of the closed quantity */
+        public double getRealizedPnl() {
+            return realizedPnl;
+        }
+
+        @Override
+        public String toString() {
+            return "NetPosition{qty=" + quantity + " avg=" + averagePrice + " realized=" + realizedPnl + "}";
+        }
+    }
+
+    private final AccountApi api;
+    private final Path file;
+    private final Set<String> seen = new HashSet<>();
+    private final List<Trade> trades = new ArrayList<>();
+    private final CopyOnWriteArrayList<Consumer<Trade>> listeners = new CopyOnWriteArrayList<>();
+    private volatile long listenerErrors;
+    private BufferedWriter writer;
+    private boolean closed;
+    private ScheduledExecutorService timer;
+
+    /**
+     * Opens a journal, reading any trades it already holds.
+     *
+     * @param api  Client used for tradebook() calls
+     * @param file Journal file, created if missing
+     * @throws IOException if the journal cannot be read or opened for appending
+     */
+    public TradeJournal(AccountApi api, Path file) throws IOException {
+        this.api = api;
+        this.file = file;
+        if (Files.exists(file)) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                JsonObject row;
+                try {
+                    row = JsonParser.parseString(line).getAsJsonObject();
+                } catch (RuntimeException e) {
+                    continue;
+                }
+                String key = JsonFields.text(row, "journal_key");
+                if (key != null && seen.add(key)) {
+                    row.remove("journal_key");
+                    trades.add(new Trade(key, row));
+                }
+            }
+        } else if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        writer = openWriter();
+    }
+
+    // Opens the journal for appending, first cutting off a torn last line left by a crash or
+    // a failed write so the next record starts on a line of its own
+    private BufferedWriter openWriter() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = completeLength(channel);
+            if (end < channel.size()) {
+                channel.truncate(end);
+            }
+        }
+        return Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    // Length of the file up to and including its last newline
+    private static long completeLength(FileChannel channel) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(4096);
+        long end = channel.size();
+        while (end > 0) {
+            long from = Math.max(0, end - chunk.capacity());
+            int length = (int) (end - from);
+            chunk.clear().limit(length);
+            while (chunk.hasRemaining()) {
+                if (channel.read(chunk, from + chunk.position()) < 0) {
+                    break;
+                }
+            }
+            for (int i = length - 1; i >= 0; i--) {
+                if (chunk.get(i) == '\n') {
+                    return from + i + 1;
+                }
+            }
+            end = from;
+        }
+        return 0;
+    }
+
+    /**
+     * Adds a listener for new fills.
+     *
+     * @param listener Listener called once per new fill, in tradebook order
+     */
+    public void addListener(Consumer<Trade> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a fill listener.
+     *
+     * @param listener Listener to remove
+     */
+    public void removeListener(Consumer<Trade> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Fetches tradebook(), appends unseen trades to the journal and notifies listeners. A
+     * listener that throws is counted and does not keep the others from seeing the fill.
+     *
+     * @return New fills, empty if none or if the call failed
+     * @throws IOException if the journal cannot be written
+     */
+    public List<Trade> sync() throws IOException {
+        JsonObject response = api.tradebook();
+        if (!response.has("status") || !"success".equals(response.get("status").getAsString())
+                || !response.has("data") || !response.get("data").isJsonArray()) {
+            return Collections.emptyList();
+        }
+        List<Trade> added = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Journal is closed: " + file);
+            }
+            if (writer == null) {
+                // The last write failed part-way; reopen past whatever reached the file
+                writer = openWriter();
+            }
+            // Stage the batch; fills count as seen only once they are on disk
+            Map<String, Integer> occurrences = new HashMap<>();
+            StringBuilder lines = new StringBuilder();
+            for (JsonElement element : response.getAsJsonArray("data")) {
+                JsonObject row = element.getAsJsonObject();
+                String base = JsonFields.text(row, "orderid") + "|" + JsonFields.text(row, "symbol")
+                        + "|" + JsonFields.text(row, "action") + "|" + JsonFields.text(row, "quantity")
+                        + "|" + JsonFields.text(row, "average_price") + "|" + JsonFields.text(row, "timestamp");
+                int n = occurrences.merge(base, 1, Integer::sum);
+                String key = n == 1 ? base : base + "#" + n;
+                if (seen.contains(key)) {
+                    continue;
+                }
+                JsonObject line = row.deepCopy();
+                line.addProperty("journal_key", key);
+                lines.append(line).append(System.lineSeparator());
+                added.add(new Trade(key, row.deepCopy()));
+            }
+            if (added.isEmpty()) {
+                return added;
+            }
+            try {
+                writer.write(lines.toString());
+                writer.flush();
+            } catch (IOException e) {
+                BufferedWriter failed = writer;
+                writer = null;
+                try {
+                    failed.close();
+                } catch (IOException ignored) {
+                    // Already failing; the buffered remainder is discarded
+                }
+                throw e;
+            }
+            for (Trade trade : added) {
+                seen.add(trade.key);
+                trades.add(trade);
+            }
+        }
+        for (Trade trade : added) {
+            for (Consumer<Trade> listener : listeners) {
+                try {
+                    listener.accept(trade);
+                } catch (RuntimeException e) {
+                    // The fill is already journaled; the rest of the batch must still be delivered
+                    listenerErrors++;
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Starts syncing on a background thread.
+     *
+     * @param intervalMillis Delay between the end of one sync and the start of the next
+     */
+    public synchronized void start(long intervalMillis) {
+        if (timer != null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "openalgo-trade-journal");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleWithFixedDelay(() -> {
+            try {
+                sync();
+            } catch (IOException | RuntimeException e) {
+                // Keep syncing; the next cycle may succeed
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets all journaled trades in the order they were first seen.
+     *
+     * @return Unmodifiable copy of the trades
+     */
+    public synchronized List<Trade> getTrades() {
+        return Collections.unmodifiableList(new ArrayList<>(trades));
+    }
+
+    /**
+     * Rebuilds net positions and realized P&amp;L from the journaled trades.
+     *
+     * @return Positions keyed by EXCHANGE:SYMBOL:PRODUCT, in order of first fill
+     */
+    public synchronized Map<String, NetPosition> netPositions() {
+        Map<String, NetPosition> positions = new LinkedHashMap<>();
+        for (Trade trade : trades) {
+            String key = trade.exchange + ":" + trade.symbol + (trade.product != null ? ":" + trade.product : "");
+            positions.computeIfAbsent(key, k -> new NetPosition()).apply(trade.getSignedQuantity(), trade.price);
+        }
+        return positions;
+    }
+
+    /** @return Journal file */
+    public Path getFile() {
+        return file;
+    }
+
+    /** @return Exceptions thrown by fill listeners */
+    public long getListenerErrors() {
+        return listenerErrors;
+    }
+
+    /**
+     * Stops background syncing and closes the journal file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package in.openalgo;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Round-trip test for the CandleCodec binary format. Runs fully offline.
+ *
+ * Usage: java -cp target/test-classes:target/classes:&lt;dependencies&gt; in.openalgo.CandleCodecTest
+ */
+public class CandleCodecTest {
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(7);
+        long start = 1766375100L;
+
+        // 5,000 regular 1-minute candles with prices on a 0.05 tick
+        CandleBuffer regular = new CandleBuffer();
+        long tick = 16_000;
+        for (int i = 0; i < 5_000; i++) {
+            long open = tick;
+            long close = open + random.nextInt(21) - 10;
+            long high = Math.max(open, close) + random.nextInt(5);
+            long low = Math.min(open, close) - random.nextInt(5);
+            regular.append(start + i * 60L, open / 20.0, high / 20.0, low / 20.0, close / 20.0, random.nextInt(100_000));
+            tick = close;
+        }
+
+        // Irregular timestamps, prices that are not exact at two decimals and large volumes
+        CandleBuffer irregular = new CandleBuffer();
+        long ts = start;
+        for (int i = 0; i < 3_000; i++) {
+            ts += 1 + random.nextInt(600);
+            double open = 100 + random.nextDouble() * 10;
+            double close = open + random.nextGaussian();
+            irregular.append(ts, open, Math.max(open, close) + 0.123456, Math.min(open, close) - 0.000001, close,
+                    random.nextLong() >>> 20);
+        }
+
+        CandleCodec codec = new CandleCodec();
+        CandleCodec smallBlocks = new CandleCodec(2, 64);
+
+        System.out.println("=== Testing encode()/decode() round trip ===");
+        byte[] encoded = codec.encode(regular);
+        System.out.println("Regular candles identical (expect true): " + same(regular, CandleCodec.decode(ByteBuffer.wrap(encoded))));
+        System.out.println("Bytes per candle (expect < 10): " + (double) encoded.length / regular.size());
+        System.out.println("Irregular candles identical (expect true): "
+                + same(irregular, CandleCodec.decode(ByteBuffer.wrap(codec.encode(irregular)))));
+        System.out.println("Small blocks identical (expect true): "
+                + same(regular, CandleCodec.decode(ByteBuffer.wrap(smallBlocks.encode(regular)))));
+        CandleBuffer empty = CandleCodec.decode(ByteBuffer.wrap(codec.encode(new CandleBuffer())));
+        System.out.println("Empty series size (expect 0): " + empty.size());
+        System.out.println();
+
+        System.out.println("=== Testing write()/read() with a time range ===");
+        Path file = Files.createTempDirectory("codec").resolve("SBIN_1m.oac");
+        smallBlocks.write(file, regular);
+        System.out.println("File candles identical (expect true): " + same(regular, CandleCodec.read(file)));
+        long from = start + 1_000 * 60L;
+        long to = start + 1_499 * 60L;
+        CandleBuffer range = CandleCodec.read(file, from, to);
+        CandleBuffer expected = new CandleBuffer();
+        for (int i = 1_000; i < 1_500; i++) {
+            expected.append(regular.timestamp(i), regular.open(i), regular.high(i), regular.low(i), regular.close(i), regular.volume(i));
+        }
+        System.out.println("Range candles (expect 500): " + range.size());
+        System.out.println("Range identical (expect true): " + same(expected, range));
+    }
+
+    // Compares every column bit for bit
+    private static boolean same(CandleSeries a, CandleSeries b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.timestamp(i) != b.timestamp(i) || a.volume(i) != b.volume(i)
+                    || Double.doubleToLongBits(a.open(i)) != Double.doubleToLongBits(b.open(i))
+                    || Double.doubleToLongBits(a.high(i)) != Double.doubleToLongBits(b.high(i))
+                    || Double.doubleToLongBits(a.low(i)) != Double.doubleToLongBits(b.low(i))
+                    || Double.doubleToLongBits(a.close(i)) != Double.doubleToLongBits(b.close(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
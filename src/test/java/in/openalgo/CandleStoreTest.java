@@ -0,0 +1,42 @@
+package in.openalgo;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Test for the local CandleStore. Runs fully offline.
+ *
+ * Usage: java -cp target/openalgo-1.0.0.jar in.openalgo.CandleStoreTest
+ */
+public class CandleStoreTest {
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("candles");
+
+        // Build 10,000 synthetic 1-minute candles
+        CandleBuffer candles = new CandleBuffer();
+        long start = 1766375100L;
+        for (int i = 0; i < 10_000; i++) {
+            double price = 980 + i * 0.05;
+            candles.append(start + i * 60L, price, price + 1, price - 1, price + 0.5, 1000 + i);
+        }
+
+        System.out.println("=== Testing append() ===");
+        try (CandleStore store = new CandleStore(dir)) {
+            System.out.println("Appended: " + store.append("SBIN", "NSE", "1m", candles));
+            System.out.println("Appended again (expect 0): " + store.append("SBIN", "NSE", "1m", candles));
+        }
+        System.out.println();
+
+        System.out.println("=== Testing read() after reopen ===");
+        try (CandleStore store = new CandleStore(dir)) {
+            CandleSeries all = store.read("SBIN", "NSE", "1m");
+            System.out.println("Stored candles: " + all.size());
+            System.out.println("Last timestamp: " + store.lastTimestamp("SBIN", "NSE", "1m"));
+
+            CandleSeries range = store.read("SBIN", "NSE", "1m", start + 600, start + 1200);
+            System.out.println("Range candles (expect 11): " + range.size());
+            System.out.println("First in range: ts=" + range.timestamp(0) + " close=" + range.close(0));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package in.openalgo;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of WebSocket message decoding: the JSON tree path (JsonParser plus field
+ * lookups) against the single-pass FeedDecoder, for LTP, Quote and Depth messages.
+ * Runs fully offline.
+ *
+ * Usage: mvn test-compile, then
+ * java -cp target/test-classes:target/classes:&lt;dependencies&gt; in.openalgo.FeedDecoderBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeedDecoderBenchmark {
+
+    private static final String LTP = "{\"type\":\"market_data\",\"mode\":1,\"exchange\":\"NSE\",\"symbol\":\"SBIN\","
+            + "\"data\":{\"ltp\":801.55,\"timestamp\":1766375100000}}";
+
+    private static final String QUOTE = "{\"type\":\"market_data\",\"mode\":2,\"exchange\":\"NFO\",\"symbol\":\"NIFTY30DEC2526000CE\","
+            + "\"data\":{\"open\":152.3,\"high\":171.85,\"low\":140.05,\"close\":149.9,\"ltp\":163.45,"
+            + "\"volume\":18734250,\"oi\":9874500,\"timestamp\":1766375100000}}";
+
+    private static final String DEPTH = "{\"type\":\"market_data\",\"mode\":3,\"exchange\":\"NSE\",\"symbol\":\"RELIANCE\","
+            + "\"data\":{\"ltp\":1565.2,\"timestamp\":1766375100000,\"depth\":{"
+            + "\"buy\":[{\"price\":1565.1,\"quantity\":120,\"orders\":4},{\"price\":1565.0,\"quantity\":860,\"orders\":12},"
+            + "{\"price\":1564.9,\"quantity\":75,\"orders\":2},{\"price\":1564.8,\"quantity\":310,\"orders\":6},"
+            + "{\"price\":1564.7,\"quantity\":1500,\"orders\":21}],"
+            + "\"sell\":[{\"price\":1565.2,\"quantity\":40,\"orders\":1},{\"price\":1565.3,\"quantity\":220,\"orders\":5},"
+            + "{\"price\":1565.4,\"quantity\":95,\"orders\":3},{\"price\":1565.5,\"quantity\":2600,\"orders\":30},"
+            + "{\"price\":1565.6,\"quantity\":410,\"orders\":8}]}}}";
+
+    @Param({"ltp", "quote", "depth"})
+    public String message;
+
+    private String text;
+    private final FeedDecoder decoder = new FeedDecoder();
+    private final DepthTick depth = new DepthTick();
+
+    @Setup
+    public void setup() {
+        text = "ltp".equals(message) ? LTP : "quote".equals(message) ? QUOTE : DEPTH;
+    }
+
+    @Benchmark
+    public double jsonTree() {
+        JsonObject json = JsonParser.parseString(text).getAsJsonObject();
+        String type = json.has("type") ? json.get("type").getAsString() : "";
+        String exchange = json.has("exchange") ? json.get("exchange").getAsString() : "";
+        String symbol = json.has("symbol") ? json.get("symbol").getAsString() : "";
+        int mode = json.has("mode") ? json.get("mode").getAsInt() : 0;
+        JsonObject data = json.has("data") ? json.get("data").getAsJsonObject() : new JsonObject();
+        double sum = type.length() + exchange.length() + symbol.length() + mode;
+        sum += data.has("ltp") ? data.get("ltp").getAsDouble() : 0;
+        sum += data.has("timestamp") ? data.get("timestamp").getAsLong() : 0;
+        if (mode == 2) {
+            sum += data.has("open") ? data.get("open").getAsDouble() : 0;
+            sum += data.has("high") ? data.get("high").getAsDouble() : 0;
+            sum += data.has("low") ? data.get("low").getAsDouble() : 0;
+            sum += data.has("close") ? data.get("close").getAsDouble() : 0;
+            sum += data.has("volume") ? data.get("volume").getAsLong() : 0;
+            sum += data.has("oi") ? data.get("oi").getAsLong() : -1;
+        } else if (mode == 3 && data.has("depth")) {
+            JsonObject book = data.getAsJsonObject("depth");
+            sum += levels(book.getAsJsonArray("buy"), depth.buyPrice, depth.buyQuantity, depth.buyOrders);
+            sum += levels(book.getAsJsonArray("sell"), depth.sellPrice, depth.sellQuantity, depth.sellOrders);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double decoder() {
+        FeedDecoder d = decoder;
+        d.decode(text);
+        double sum = d.type + d.exchange.length() + d.symbol.length() + d.mode + d.ltp + d.timestamp;
+        if (d.mode == 2) {
+            sum += d.open + d.high + d.low + d.close + d.volume + d.oi;
+        } else if (d.mode == 3) {
+            sum += d.buyLevels + d.sellLevels;
+        }
+        return sum;
+    }
+
+    private static int levels(JsonArray levels, double[] price, long[] quantity, int[] orders) {
+        for (int i = 0; i < levels.size(); i++) {
+            JsonObject level = levels.get(i).getAsJsonObject();
+            price[i] = level.has("price") ? level.get("price").getAsDouble() : 0;
+            quantity[i] = level.has("quantity") ? level.get("quantity").getAsLong() : 0;
+            orders[i] = level.has("orders") ? level.get("orders").getAsInt() : 0;
+        }
+        return levels.size();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(FeedDecoderBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,175 @@
+package in.openalgo;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Test of the single-pass FeedDecoder against the JSON tree (JsonParser) reading of the same
+ * messages. Runs fully offline.
+ *
+ * Usage: java -cp target/test-classes:target/classes:&lt;dependencies&gt; in.openalgo.FeedDecoderTest
+ */
+public class FeedDecoderTest {
+
+    public static void main(String[] args) {
+        FeedDecoder decoder = new FeedDecoder();
+
+        System.out.println("=== Testing LTP, Quote and Depth messages ===");
+        check(decoder, "LTP", "{\"type\":\"market_data\",\"mode\":1,\"exchange\":\"NSE\",\"symbol\":\"SBIN\","
+                + "\"data\":{\"ltp\":801.55,\"timestamp\":1766375100000}}");
+        check(decoder, "Quote", "{\"type\":\"market_data\",\"mode\":2,\"exchange\":\"NFO\",\"symbol\":\"NIFTY30DEC2526000CE\","
+                + "\"data\":{\"open\":152.3,\"high\":171.85,\"low\":140.05,\"close\":149.9,\"ltp\":163.45,"
+                + "\"volume\":18734250,\"oi\":9874500,\"timestamp\":1766375100000}}");
+        check(decoder, "Depth", "{\"type\":\"market_data\",\"mode\":3,\"exchange\":\"NSE\",\"symbol\":\"RELIANCE\","
+                + "\"data\":{\"ltp\":1565.2,\"timestamp\":1766375100000,\"depth\":{"
+                + "\"buy\":[{\"price\":1565.1,\"quantity\":120,\"orders\":4},{\"price\":1565.0,\"quantity\":860,\"orders\":12}],"
+                + "\"sell\":[{\"price\":1565.2,\"quantity\":40,\"orders\":1},{\"price\":1565.3,\"quantity\":220,\"orders\":5},"
+                + "{\"price\":1565.4,\"quantity\":95,\"orders\":3}]}}}");
+        System.out.println();
+
+        System.out.println("=== Testing unusual encodings ===");
+        check(decoder, "Numbers as strings", "{\"type\":\"market_data\",\"mode\":2,\"exchange\":\"NSE\",\"symbol\":\"SBIN\","
+                + "\"data\":{\"ltp\":\"801.55\",\"open\":\"799\",\"volume\":\"1250000\",\"oi\":\"0\",\"timestamp\":\"1766375100000\"}}");
+        check(decoder, "Null oi", "{\"type\":\"market_data\",\"mode\":2,\"exchange\":\"NSE\",\"symbol\":\"SBIN\","
+                + "\"data\":{\"ltp\":801.55,\"volume\":1250000,\"oi\":null}}");
+        check(decoder, "Escaped symbol", "{\"type\":\"market_data\",\"mode\":1,\"exchange\":\"NSE\",\"symbol\":\"M\\u0026M\\\"X\\\\Y\\/Z\","
+                + "\"data\":{\"ltp\":3120.4}}");
+        check(decoder, "Exponents", "{\"type\":\"market_data\",\"mode\":2,\"exchange\":\"MCX\",\"symbol\":\"CRUDEOIL\","
+                + "\"data\":{\"ltp\":5.8124E3,\"open\":-1.5e-2,\"high\":6e+3,\"low\":0.0001,\"volume\":1.2e6}}");
+        check(decoder, "Empty depth", "{\"type\":\"market_data\",\"mode\":3,\"exchange\":\"NSE\",\"symbol\":\"SBIN\","
+                + "\"data\":{\"ltp\":801.55,\"depth\":{\"buy\":[],\"sell\":[]}}}");
+        check(decoder, "Reordered keys", "{\"data\":{\"timestamp\":1766375100000,\"oi\":12,\"ltp\":163.45,\"volume\":99},"
+                + "\"symbol\":\"NIFTY30DEC2526000CE\",\"extra\":{\"nested\":[1,{\"ltp\":5}]},\"exchange\":\"NFO\","
+                + "\"mode\":2,\"type\":\"market_data\"}");
+        check(decoder, "Auth", "{\"type\":\"auth\",\"status\":\"success\",\"message\":\"Authenticated\"}");
+        System.out.println();
+
+        System.out.println("=== Testing 10,000 random Quote and Depth messages ===");
+        Random random = new Random(42);
+        int mismatches = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (!matches(decoder, randomMessage(random))) {
+                mismatches++;
+            }
+        }
+        System.out.println("Mismatches (expect 0): " + mismatches);
+    }
+
+    private static void check(FeedDecoder decoder, String name, String message) {
+        System.out.println(name + " matches JsonParser (expect true): " + matches(decoder, message)
+                + "  symbol=" + decoder.symbol + " ltp=" + decoder.ltp + " oi=" + decoder.oi);
+    }
+
+    // Decodes a message both ways and compares every field the feed uses
+    private static boolean matches(FeedDecoder decoder, String message) {
+        decoder.decode(message);
+        JsonObject root = JsonParser.parseString(message).getAsJsonObject();
+        String type = text(root, "type");
+        int expectedType = "market_data".equals(type) ? FeedDecoder.MARKET_DATA
+                : "auth".equals(type) ? FeedDecoder.AUTH : FeedDecoder.OTHER;
+        boolean ok = decoder.type == expectedType
+                && decoder.success == "success".equals(text(root, "status"))
+                && decoder.mode == (int) number(root, "mode")
+                && String.valueOf(text(root, "exchange")).equals(orNull(decoder.exchange))
+                && String.valueOf(text(root, "symbol")).equals(orNull(decoder.symbol));
+        JsonObject data = root.has("data") && root.get("data").isJsonObject() ? root.getAsJsonObject("data") : new JsonObject();
+        ok &= decoder.ltp == number(data, "ltp")
+                && decoder.open == number(data, "open")
+                && decoder.high == number(data, "high")
+                && decoder.low == number(data, "low")
+                && decoder.close == number(data, "close")
+                && decoder.volume == (long) number(data, "volume")
+                && decoder.oi == (data.has("oi") && !data.get("oi").isJsonNull() ? (long) number(data, "oi") : -1)
+                && decoder.timestamp == (long) number(data, "timestamp");
+        JsonObject depth = data.has("depth") && data.get("depth").isJsonObject() ? data.getAsJsonObject("depth") : null;
+        ok &= decoder.hasDepth == (depth != null);
+        if (depth != null) {
+            ok &= levelsMatch(depth, "buy", decoder.buyLevels, decoder.buyPrice, decoder.buyQuantity, decoder.buyOrders)
+                    && levelsMatch(depth, "sell", decoder.sellLevels, decoder.sellPrice, decoder.sellQuantity, decoder.sellOrders);
+        }
+        return ok;
+    }
+
+    private static boolean levelsMatch(JsonObject depth, String side, int levels, double[] price, long[] quantity, int[] orders) {
+        JsonArray array = depth.has(side) ? depth.getAsJsonArray(side) : new JsonArray();
+        if (array.size() != levels) {
+            return false;
+        }
+        for (int i = 0; i < levels; i++) {
+            JsonObject level = array.get(i).getAsJsonObject();
+            if (price[i] != number(level, "price") || quantity[i] != (long) number(level, "quantity")
+                    || orders[i] != (int) number(level, "orders")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String text(JsonObject o, String key) {
+        return o.has(key) && o.get(key).isJsonPrimitive() ? o.get(key).getAsString() : null;
+    }
+
+    private static double number(JsonObject o, String key) {
+        JsonElement value = o.get(key);
+        return value == null || value.isJsonNull() ? 0 : value.getAsDouble();
+    }
+
+    private static String orNull(StringBuilder builder) {
+        return builder.length() == 0 ? "null" : builder.toString();
+    }
+
+    // Quote or Depth message with shuffled keys and mixed number encodings
+    private static String randomMessage(Random random) {
+        boolean depth = random.nextBoolean();
+        List<String> data = new ArrayList<>();
+        data.add("\"ltp\":" + randomNumber(random));
+        data.add("\"open\":" + randomNumber(random));
+        data.add("\"volume\":" + random.nextInt(50_000_000));
+        data.add("\"oi\":" + (random.nextInt(4) == 0 ? "null" : String.valueOf(random.nextInt(10_000_000))));
+        data.add("\"timestamp\":" + (1766375100000L + random.nextInt(1_000_000)));
+        if (depth) {
+            data.add("\"depth\":{\"buy\":" + randomLevels(random) + ",\"sell\":" + randomLevels(random) + "}");
+        }
+        Collections.shuffle(data, random);
+        List<String> root = new ArrayList<>();
+        root.add("\"type\":\"market_data\"");
+        root.add("\"mode\":" + (depth ? 3 : 2));
+        root.add("\"exchange\":\"NFO\"");
+        root.add("\"symbol\":\"NIFTY30DEC25" + (20000 + 50 * random.nextInt(200)) + "CE\"");
+        root.add("\"data\":{" + String.join(",", data) + "}");
+        Collections.shuffle(root, random);
+        return "{" + String.join(",", root) + "}";
+    }
+
+    private static String randomLevels(Random random) {
+        List<String> levels = new ArrayList<>();
+        int n = random.nextInt(6);
+        for (int i = 0; i < n; i++) {
+            levels.add("{\"price\":" + randomNumber(random) + ",\"quantity\":" + random.nextInt(100_000)
+                    + ",\"orders\":" + random.nextInt(100) + "}");
+        }
+        return "[" + String.join(",", levels) + "]";
+    }
+
+    private static String randomNumber(Random random) {
+        double value = random.nextInt(10_000_000) / 100.0;
+        switch (random.nextInt(4)) {
+            case 0:
+                return "\"" + value + "\"";
+            case 1:
+                return String.format(Locale.ROOT, "%.4e", value);
+            case 2:
+                return String.valueOf(random.nextDouble() * 1e5);
+            default:
+                return String.valueOf(value);
+        }
+    }
+}
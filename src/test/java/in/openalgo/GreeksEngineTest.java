@@ -0,0 +1,79 @@
+package in.openalgo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test for the local GreeksEngine and ImpliedVolSolver. Runs fully offline.
+ *
+ * Usage: java -cp target/openalgo-1.0.0.jar in.openalgo.GreeksEngineTest
+ */
+public class GreeksEngineTest {
+
+    public static void main(String[] args) {
+        System.out.println("=== Testing compute() against optiongreeks() ===");
+        // NIFTY25NOV2526000CE from the optiongreeks() example response
+        GreeksEngine.Chain single = new GreeksEngine.Chain(2);
+        single.spot = 25966.05;
+        single.add(26000, 28.51 / 365, true, 15.6);
+        single.add(26000, 28.51 / 365, false, 15.6);
+        GreeksEngine.compute(single);
+        System.out.println("Delta (expect 0.4967): " + single.delta[0]);
+        System.out.println("Gamma (expect 0.000352): " + single.gamma[0]);
+        System.out.println("Theta (expect -7.919): " + single.theta[0]);
+        System.out.println("Vega (expect 28.9489): " + single.vega[0]);
+        System.out.println("Put-call parity (expect 0): "
+                + (single.price[0] - single.price[1] - (single.spot - 26000)));
+        System.out.println();
+
+        System.out.println("=== Testing computeAll() ===");
+        List<GreeksEngine.Chain> chains = new ArrayList<>();
+        for (int c = 0; c < 50; c++) {
+            GreeksEngine.Chain chain = new GreeksEngine.Chain(202);
+            chain.spot = 26000 + c;
+            chain.rate = 6.5;
+            for (int strike = 23500; strike <= 28500; strike += 50) {
+                chain.add(strike, 7.0 / 365, true, 14 + (strike - 26000) / 1000.0);
+                chain.add(strike, 7.0 / 365, false, 14 + (strike - 26000) / 1000.0);
+            }
+            chains.add(chain);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            GreeksEngine.computeAll(chains);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.println("Contracts per pass: " + chains.size() * chains.get(0).size);
+        System.out.println("Average pass: " + elapsed / 100 / 1000 + " us");
+        System.out.println("Deep ITM call delta (expect ~1): " + chains.get(0).delta[0]);
+        System.out.println();
+
+        System.out.println("=== Testing ImpliedVolSolver ===");
+        GreeksEngine.Chain chain = chains.get(0);
+        double[] prices = chain.price.clone();
+        double[] expected = chain.vols.clone();
+        ImpliedVolSolver solver = new ImpliedVolSolver();
+        Arrays.fill(chain.vols, 0, chain.size, Double.NaN);
+        System.out.println("Cold start: " + solver.solve(chain, prices));
+        double maxError = 0;
+        for (int i = 0; i < chain.size; i++) {
+            // Smile convention: out-of-the-money contracts worth at least one tick
+            boolean otm = chain.calls[i] ? chain.strikes[i] >= chain.spot : chain.strikes[i] <= chain.spot;
+            if (otm && prices[i] >= 0.05) {
+                maxError = Math.max(maxError, Math.abs(chain.vols[i] - expected[i]));
+            }
+        }
+        System.out.println("Max OTM IV error (percent): " + maxError);
+
+        // Next tick: spot moves a little, previous IVs are the starting point
+        chain.spot += 5;
+        for (int i = 0; i < chain.size; i++) {
+            prices[i] = GreeksEngine.price(chain.spot, chain.strikes[i], chain.years[i], chain.rate,
+                    expected[i] + 0.1, chain.calls[i]);
+        }
+        System.out.println("Warm start: " + solver.solve(chain, prices));
+        GreeksEngine.compute(chain);
+        System.out.println("ATM call delta after solve: " + chain.delta[100]);
+    }
+}
@@ -0,0 +1,78 @@
+package in.openalgo;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Test for MarketCalendar session checks and trading-day arithmetic, built from canned
+ * holidays() and timings() responses. Runs fully offline.
+ *
+ * Usage: java -cp target/test-classes:target/classes:&lt;dependencies&gt; in.openalgo.MarketCalendarTest
+ */
+public class MarketCalendarTest {
+
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+
+    public static void main(String[] args) {
+        // 2025-02-26 is a holiday; 2025-10-21 is closed except for a one-hour NSE session
+        JsonObject holidays = JsonParser.parseString("{\"status\":\"success\",\"data\":["
+                + "{\"date\":\"2025-02-26\",\"description\":\"Mahashivratri\",\"holiday_type\":\"TRADING_HOLIDAY\","
+                + "\"closed_exchanges\":[\"NSE\",\"BSE\",\"NFO\",\"BFO\",\"CDS\",\"BCD\",\"MCX\"],\"open_exchanges\":[]},"
+                + "{\"date\":\"2025-10-21\",\"description\":\"Diwali Laxmi Pujan\",\"holiday_type\":\"TRADING_HOLIDAY\","
+                + "\"closed_exchanges\":[\"NSE\",\"BSE\",\"NFO\",\"BFO\",\"CDS\",\"BCD\",\"MCX\"],"
+                + "\"open_exchanges\":[{\"exchange\":\"NSE\",\"start_time\":" + millis(2025, 10, 21, 13, 45)
+                + ",\"end_time\":" + millis(2025, 10, 21, 14, 45) + "}]}]}").getAsJsonObject();
+        JsonObject timings = JsonParser.parseString("{\"status\":\"success\",\"data\":["
+                + "{\"exchange\":\"NSE\",\"start_time\":" + millis(2025, 12, 19, 9, 15)
+                + ",\"end_time\":" + millis(2025, 12, 19, 15, 30) + "},"
+                + "{\"exchange\":\"MCX\",\"start_time\":" + millis(2025, 12, 19, 9, 0)
+                + ",\"end_time\":" + millis(2025, 12, 19, 23, 55) + "}]}").getAsJsonObject();
+        MarketCalendar calendar = MarketCalendar.fromResponses(2025, holidays, timings, "2025-12-19");
+
+        System.out.println("=== Testing trading days ===");
+        System.out.println("Tue 2025-02-25 (expect true): " + calendar.isTradingDay("NSE", LocalDate.of(2025, 2, 25)));
+        System.out.println("Holiday 2025-02-26 (expect false): " + calendar.isTradingDay("NSE", LocalDate.of(2025, 2, 26)));
+        System.out.println("Sat 2025-02-22 (expect false): " + calendar.isTradingDay("NSE", LocalDate.of(2025, 2, 22)));
+        System.out.println("Special session NSE 2025-10-21 (expect true): " + calendar.isTradingDay("NSE", LocalDate.of(2025, 10, 21)));
+        System.out.println("Special session MCX 2025-10-21 (expect false): " + calendar.isTradingDay("MCX", LocalDate.of(2025, 10, 21)));
+        System.out.println();
+
+        System.out.println("=== Testing trading-day arithmetic ===");
+        System.out.println("nextTradingDay(02-25) (expect 2025-02-27): " + calendar.nextTradingDay("NSE", LocalDate.of(2025, 2, 25)));
+        System.out.println("previousTradingDay(02-27) (expect 2025-02-25): " + calendar.previousTradingDay("NSE", LocalDate.of(2025, 2, 27)));
+        System.out.println("addTradingDays(02-24, 3) (expect 2025-02-28): " + calendar.addTradingDays("NSE", LocalDate.of(2025, 2, 24), 3));
+        System.out.println("addTradingDays(02-28, -3) (expect 2025-02-24): " + calendar.addTradingDays("NSE", LocalDate.of(2025, 2, 28), -3));
+        System.out.println("addTradingDays(Sat 02-22, 1) (expect 2025-02-24): " + calendar.addTradingDays("NSE", LocalDate.of(2025, 2, 22), 1));
+        System.out.println("addTradingDays(Sat 02-22, -1) (expect 2025-02-21): " + calendar.addTradingDays("NSE", LocalDate.of(2025, 2, 22), -1));
+        System.out.println("addTradingDays(02-25, 0) (expect 2025-02-25): " + calendar.addTradingDays("NSE", LocalDate.of(2025, 2, 25), 0));
+        System.out.println("tradingDaysBetween(02-24, 03-03) (expect 4): " + calendar.tradingDaysBetween("NSE", LocalDate.of(2025, 2, 24), LocalDate.of(2025, 3, 3)));
+        System.out.println("tradingDaysBetween(03-03, 02-24) (expect -4): " + calendar.tradingDaysBetween("NSE", LocalDate.of(2025, 3, 3), LocalDate.of(2025, 2, 24)));
+        System.out.println("Beyond the loaded year (expect null): " + calendar.addTradingDays("NSE", LocalDate.of(2025, 12, 30), 5));
+        System.out.println();
+
+        System.out.println("=== Testing sessions ===");
+        long morning = millis(2025, 2, 25, 10, 0);
+        long evening = millis(2025, 2, 25, 16, 0);
+        System.out.println("Open at 10:00 (expect true): " + calendar.isOpen("NSE", morning));
+        System.out.println("Open at 16:00 (expect false): " + calendar.isOpen("NSE", evening));
+        System.out.println("MCX open at 16:00 (expect true): " + calendar.isOpen("MCX", evening));
+        System.out.println("Next close from 10:00 (expect 2025-02-25T15:30+05:30[Asia/Kolkata]): " + time(calendar.nextClose("NSE", morning)));
+        System.out.println("Next open from 16:00 (expect 2025-02-27T09:15+05:30[Asia/Kolkata]): " + time(calendar.nextOpen("NSE", evening)));
+        long[] special = calendar.session("NSE", LocalDate.of(2025, 10, 21));
+        System.out.println("Special session (expect 13:45 to 14:45): " + time(special[0]).toLocalTime() + " to " + time(special[1]).toLocalTime());
+    }
+
+    private static long millis(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).atZone(IST).toInstant().toEpochMilli();
+    }
+
+    private static ZonedDateTime time(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(IST);
+    }
+}
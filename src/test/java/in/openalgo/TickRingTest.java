@@ -0,0 +1,100 @@
+package in.openalgo;
+
+/**
+ * Test for TickRing wrap-around, producer gating by BLOCK consumers and tick dropping by
+ * DROP consumers. Ticks are published directly, without a server. Runs fully offline.
+ *
+ * Usage: java -cp target/test-classes:target/classes:&lt;dependencies&gt; in.openalgo.TickRingTest
+ */
+public class TickRingTest {
+
+    public static void main(String[] args) throws Exception {
+        OpenAlgo client = new OpenAlgo("test-key", "http://127.0.0.1:1");
+        int ticks = 100_000;
+
+        System.out.println("=== Testing wrap-around and gating ===");
+        // 16 slots wrap thousands of times; the slow consumer makes the producer wait
+        try (TickRing ring = new TickRing(client, 16)) {
+            long[] last = new long[2];
+            long[] gaps = new long[2];
+            TickRing.Consumer fast = ring.addConsumer(sequenceChecker(last, gaps, 0, false), TickRing.WaitStrategy.BUSY_SPIN);
+            TickRing.Consumer slow = ring.addConsumer(sequenceChecker(last, gaps, 1, true), TickRing.WaitStrategy.PARK);
+            ring.start();
+            publish(ring, ticks);
+            drain(fast, slow);
+            System.out.println("Capacity (expect 16): " + ring.getCapacity());
+            System.out.println("Cursor (expect " + (ticks - 1) + "): " + ring.getCursor());
+            System.out.println("Fast consumer last tick (expect " + ticks + "): " + last[0] + ", gaps (expect 0): " + gaps[0]);
+            System.out.println("Slow consumer last tick (expect " + ticks + "): " + last[1] + ", gaps (expect 0): " + gaps[1]);
+            System.out.println("Producer waited for the slow consumer (expect true): " + (ring.getProducerWaits() > 0));
+        }
+        System.out.println();
+
+        System.out.println("=== Testing a DROP consumer ===");
+        // Only a DROP consumer lags, so the producer never waits and the consumer skips ticks
+        try (TickRing ring = new TickRing(client, 16)) {
+            long[] last = new long[1];
+            long[] gaps = new long[1];
+            long[] seen = new long[1];
+            TickRing.Consumer dropping = ring.addConsumer(new TickListener() {
+                @Override
+                public void onLtp(LtpTick tick) {
+                    if (tick.getTimestamp() <= last[0] || tick.getLtp() != tick.getTimestamp() % 1000) {
+                        gaps[0]++;   // out of order or torn
+                    }
+                    last[0] = tick.getTimestamp();
+                    seen[0]++;
+                    pause();
+                }
+            }, TickRing.WaitStrategy.PARK, TickRing.OverflowPolicy.DROP);
+            ring.start();
+            publish(ring, ticks);
+            drain(dropping);
+            System.out.println("Producer waits (expect 0): " + ring.getProducerWaits());
+            System.out.println("Seen + dropped (expect " + ticks + "): " + (seen[0] + dropping.getDropped()));
+            System.out.println("Dropped some ticks (expect true): " + (dropping.getDropped() > 0));
+            System.out.println("Out-of-order or torn ticks (expect 0): " + gaps[0]);
+            System.out.println("Last tick delivered (expect " + ticks + "): " + last[0]);
+        }
+    }
+
+    // Counts ticks that do not follow the previous one; timestamps run 1, 2, 3, ...
+    private static TickListener sequenceChecker(long[] last, long[] gaps, int index, boolean slow) {
+        return new TickListener() {
+            @Override
+            public void onLtp(LtpTick tick) {
+                if (tick.getTimestamp() != last[index] + 1) {
+                    gaps[index]++;
+                }
+                last[index] = tick.getTimestamp();
+                if (slow && tick.getTimestamp() % 10_000 == 0) {
+                    pause();
+                }
+            }
+        };
+    }
+
+    private static void publish(TickRing ring, int ticks) {
+        LtpTick tick = new LtpTick();
+        for (long i = 1; i <= ticks; i++) {
+            tick.set(0, "NSE", "SBIN", i % 1000, i);
+            ring.publish(tick);
+        }
+    }
+
+    private static void drain(TickRing.Consumer... consumers) throws InterruptedException {
+        for (TickRing.Consumer consumer : consumers) {
+            while (consumer.getLag() > 0) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package in.openalgo;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Test for TradeJournal sync and crash recovery against a canned tradebook(). Runs fully
+ * offline.
+ *
+ * Usage: java -cp target/test-classes:target/classes:&lt;dependencies&gt; in.openalgo.TradeJournalTest
+ */
+public class TradeJournalTest {
+
+    private static final String BUY = "{\"orderid\":\"1\",\"symbol\":\"SBIN\",\"exchange\":\"NSE\",\"product\":\"MIS\","
+            + "\"action\":\"BUY\",\"quantity\":\"10\",\"average_price\":\"800\",\"timestamp\":\"09:20:01\"}";
+    private static final String SELL = "{\"orderid\":\"2\",\"symbol\":\"SBIN\",\"exchange\":\"NSE\",\"product\":\"MIS\","
+            + "\"action\":\"SELL\",\"quantity\":\"4\",\"average_price\":\"810\",\"timestamp\":\"10:00:00\"}";
+    private static final String SELL_AGAIN = "{\"orderid\":\"3\",\"symbol\":\"SBIN\",\"exchange\":\"NSE\",\"product\":\"MIS\","
+            + "\"action\":\"SELL\",\"quantity\":\"6\",\"average_price\":\"805\",\"timestamp\":\"11:30:00\"}";
+
+    public static void main(String[] args) throws Exception {
+        String[] book = {"[" + BUY + "]"};
+        OpenAlgo client = new OpenAlgo("test-key", "http://127.0.0.1:1") {
+            @Override
+            public JsonObject tradebook() {
+                JsonObject response = new JsonObject();
+                response.addProperty("status", "success");
+                response.add("data", JsonParser.parseString(book[0]).getAsJsonArray());
+                return response;
+            }
+        };
+        Path file = Files.createTempDirectory("journal").resolve("trades.jsonl");
+
+        System.out.println("=== Testing sync() ===");
+        try (TradeJournal journal = new TradeJournal(client, file)) {
+            int[] delivered = {0};
+            journal.addListener(trade -> {
+                throw new IllegalStateException("failing listener");
+            });
+            journal.addListener(trade -> delivered[0]++);
+            System.out.println("New fills (expect 1): " + journal.sync().size());
+            book[0] = "[" + BUY + "," + SELL + "]";
+            System.out.println("New fills (expect 1): " + journal.sync().size());
+            System.out.println("New fills again (expect 0): " + journal.sync().size());
+            System.out.println("Delivered despite failing listener (expect 2): " + delivered[0]);
+            System.out.println("Listener errors (expect 2): " + journal.getListenerErrors());
+        }
+        System.out.println();
+
+        System.out.println("=== Testing recovery from a torn last line ===");
+        // A crash in the middle of writing the next record
+        Files.write(file, SELL_AGAIN.substring(0, 40).getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        try (TradeJournal journal = new TradeJournal(client, file)) {
+            System.out.println("Trades after reopen (expect 2): " + journal.getTrades().size());
+            book[0] = "[" + BUY + "," + SELL + "," + SELL_AGAIN + "]";
+            List<TradeJournal.Trade> added = journal.sync();
+            System.out.println("New fills (expect 1): " + added.size());
+        }
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        int complete = 0;
+        for (String line : lines) {
+            JsonParser.parseString(line);
+            complete++;
+        }
+        System.out.println("Journal lines, all complete JSON (expect 3): " + complete);
+        try (TradeJournal journal = new TradeJournal(client, file)) {
+            System.out.println("Trades after second reopen (expect 3): " + journal.getTrades().size());
+            TradeJournal.NetPosition position = journal.netPositions().get("NSE:SBIN:MIS");
+            System.out.println("Net quantity (expect 0): " + position.getQuantity());
+            System.out.println("Realized P&L (expect 70.0): " + position.getRealizedPnl());
+        }
+    }
+}